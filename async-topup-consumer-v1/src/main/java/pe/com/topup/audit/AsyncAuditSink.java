@@ -0,0 +1,188 @@
+package pe.com.topup.audit;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import pe.com.topup.config.AuditConfig;
+import pe.com.topup.entity.ProcessAudit;
+import pe.com.topup.repository.ProcessAuditRepository;
+
+/**
+ * Default mode (topup.audit.mode=ASYNC): audits leave the processing
+ * transaction and are queued after commit in a bounded in-process queue.
+ * <p>
+ * A single background writer drains the queue with multi-row INSERTs of up to
+ * flush-size rows, every flush-interval or as soon as a full batch is queued.
+ * When the queue is full, {@link #writeAfterCommit(List)} waits for room, which
+ * slows the consumer down instead of growing memory. A failed batch is retried
+ * up to max-attempts times and then dropped with its recharge IDs logged. The
+ * queue is flushed on shutdown; audits still queued if the process dies are lost,
+ * which is the trade-off against the SYNC mode.
+ * </p>
+ */
+@ApplicationScoped
+@Typed(AsyncAuditSink.class)
+public class AsyncAuditSink implements AuditSink {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(AsyncAuditSink.class);
+
+    private static final long BACKPRESSURE_PAUSE_MILLIS = 5;
+
+    private final ProcessAuditRepository processAuditRepository;
+    private final AuditConfig config;
+    private final Vertx vertx;
+    private final BlockingQueue<ProcessAudit> queue;
+    private final AtomicBoolean writing = new AtomicBoolean();
+
+    /**
+     * Batch whose INSERT failed, retried before anything else. Only touched by the writer.
+     */
+    private List<ProcessAudit> retryBatch;
+    private int retryAttempts;
+
+    @Inject
+    public AsyncAuditSink(ProcessAuditRepository processAuditRepository, AuditConfig config, Vertx vertx) {
+        this.processAuditRepository = processAuditRepository;
+        this.config = config;
+        this.vertx = vertx;
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity());
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (config.mode() == AuditConfig.Mode.ASYNC) {
+            vertx.setPeriodic(Math.max(1, config.flushInterval().toMillis()), id -> flushInBackground());
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (config.mode() != AuditConfig.Mode.ASYNC) {
+            return;
+        }
+        long deadline = System.nanoTime() + config.shutdownTimeout().toNanos();
+        while ((!isEmpty() || writing.get()) && System.nanoTime() < deadline) {
+            boolean ran = false;
+            try {
+                ran = flushOnce().await().atMost(config.shutdownTimeout());
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Audit flush on shutdown failed");
+            }
+            if (!ran) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (!isEmpty()) {
+            LOG.errorf("Shutdown with %d audits not written", queue.size()
+                    + (retryBatch != null ? retryBatch.size() : 0));
+        }
+    }
+
+    @Override
+    public Uni<Void> writeInTransaction(List<ProcessAudit> audits) {
+        return Uni.createFrom().voidItem();
+    }
+
+    @Override
+    public Uni<Void> writeAfterCommit(List<ProcessAudit> audits) {
+        int accepted = 0;
+        while (accepted < audits.size() && queue.offer(audits.get(accepted))) {
+            accepted++;
+        }
+        if (queue.size() >= config.flushSize() || accepted < audits.size()) {
+            flushInBackground();
+        }
+        if (accepted == audits.size()) {
+            return Uni.createFrom().voidItem();
+        }
+        // Cola llena: se espera al writer en lugar de crecer sin límite
+        List<ProcessAudit> rest = audits.subList(accepted, audits.size());
+        LOG.debugf("Audit queue full, waiting to enqueue %d audits", rest.size());
+        return pause().chain(() -> writeAfterCommit(rest));
+    }
+
+    private Uni<Void> pause() {
+        return Uni.createFrom().emitter(emitter -> vertx.setTimer(BACKPRESSURE_PAUSE_MILLIS, id -> emitter.complete(null)));
+    }
+
+    private void flushInBackground() {
+        flushOnce().subscribe().with(
+                ran -> {
+                },
+                t -> LOG.errorf(t, "Audit flush failed"));
+    }
+
+    /**
+     * Writes one batch. Never runs concurrently with itself; keeps going while
+     * full batches are queued.
+     *
+     * @return true if this call wrote (or tried to write), false if the writer was busy.
+     */
+    private Uni<Boolean> flushOnce() {
+        if (!writing.compareAndSet(false, true)) {
+            return Uni.createFrom().item(false);
+        }
+        List<ProcessAudit> batch = retryBatch;
+        if (batch == null) {
+            batch = new ArrayList<>(Math.min(queue.size(), config.flushSize()));
+            queue.drainTo(batch, config.flushSize());
+        }
+        if (batch.isEmpty()) {
+            writing.set(false);
+            return Uni.createFrom().item(true);
+        }
+        List<ProcessAudit> written = batch;
+        return processAuditRepository.insertAllStandalone(written)
+                .invoke(rows -> {
+                    retryBatch = null;
+                    retryAttempts = 0;
+                    LOG.debugf("Audit batch written: %d rows", rows);
+                })
+                .onFailure().recoverWithItem(t -> {
+                    if (++retryAttempts >= config.maxAttempts()) {
+                        LOG.errorf(t, "Dropping %d audits after %d attempts: %s", written.size(), retryAttempts,
+                                rechargeIds(written));
+                        retryBatch = null;
+                        retryAttempts = 0;
+                    } else {
+                        LOG.warnf("Audit batch of %d failed (attempt %d): %s", written.size(), retryAttempts,
+                                t.getMessage());
+                        retryBatch = written;
+                    }
+                    return 0;
+                })
+                .eventually(() -> writing.set(false))
+                .invoke(() -> {
+                    if (queue.size() >= config.flushSize()) {
+                        flushInBackground();
+                    }
+                })
+                .replaceWith(true);
+    }
+
+    private boolean isEmpty() {
+        return queue.isEmpty() && retryBatch == null;
+    }
+
+    private static List<String> rechargeIds(List<ProcessAudit> audits) {
+        List<String> ids = new ArrayList<>(audits.size());
+        for (ProcessAudit audit : audits) {
+            ids.add(String.valueOf(audit.rechargeId));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,33 @@
+package pe.com.topup.audit;
+
+import io.smallrye.mutiny.Uni;
+import java.util.List;
+
+import pe.com.topup.entity.ProcessAudit;
+
+/**
+ * Destination of the process_audits rows written for every processed event.
+ * <p>
+ * Processing paths hand the same audits to both hooks: the synchronous sink
+ * writes them in the first, the asynchronous one queues them in the second.
+ * </p>
+ */
+public interface AuditSink {
+
+    /**
+     * Called inside the processing transaction, before commit.
+     *
+     * @param audits The audits of the events in the transaction.
+     * @return A Uni that completes once the sink is done with them in this phase.
+     */
+    Uni<Void> writeInTransaction(List<ProcessAudit> audits);
+
+    /**
+     * Called once the processing transaction has committed.
+     *
+     * @param audits The audits of the events in the transaction.
+     * @return A Uni that completes once the sink accepted them; it only waits
+     *         when the sink is full (backpressure).
+     */
+    Uni<Void> writeAfterCommit(List<ProcessAudit> audits);
+}
@@ -0,0 +1,19 @@
+package pe.com.topup.audit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+
+import pe.com.topup.config.AuditConfig;
+
+/**
+ * Exposes the {@link AuditSink} selected by topup.audit.mode.
+ */
+@ApplicationScoped
+public class AuditSinkProducer {
+
+    @Produces
+    @ApplicationScoped
+    AuditSink auditSink(AuditConfig config, SyncAuditSink syncSink, AsyncAuditSink asyncSink) {
+        return config.mode() == AuditConfig.Mode.SYNC ? syncSink : asyncSink;
+    }
+}
@@ -0,0 +1,35 @@
+package pe.com.topup.audit;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import java.util.List;
+
+import pe.com.topup.entity.ProcessAudit;
+import pe.com.topup.repository.ProcessAuditRepository;
+
+/**
+ * Strict mode (topup.audit.mode=SYNC): audits are inserted in the processing
+ * transaction, so a status and its audit commit or roll back together.
+ */
+@ApplicationScoped
+@Typed(SyncAuditSink.class)
+public class SyncAuditSink implements AuditSink {
+
+    @Inject
+    ProcessAuditRepository processAuditRepository;
+
+    @Override
+    public Uni<Void> writeInTransaction(List<ProcessAudit> audits) {
+        if (audits.size() == 1) {
+            return processAuditRepository.persist(audits.get(0)).replaceWithVoid();
+        }
+        return processAuditRepository.insertAll(audits).replaceWithVoid();
+    }
+
+    @Override
+    public Uni<Void> writeAfterCommit(List<ProcessAudit> audits) {
+        return Uni.createFrom().voidItem();
+    }
+}
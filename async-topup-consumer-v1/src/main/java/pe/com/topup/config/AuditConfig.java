@@ -0,0 +1,60 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Audit sink configuration. Mapped from the "topup.audit" prefix.
+ */
+@ConfigMapping(prefix = "topup.audit")
+public interface AuditConfig {
+
+    /**
+     * How audits are written.
+     */
+    enum Mode {
+        /**
+         * Inside the processing transaction: an outcome is never committed without its audit.
+         */
+        SYNC,
+        /**
+         * After commit, through a bounded queue drained by a background writer.
+         */
+        ASYNC
+    }
+
+    @WithDefault("ASYNC")
+    Mode mode();
+
+    /**
+     * Audits the async queue holds before writers are made to wait.
+     */
+    @WithDefault("10000")
+    int queueCapacity();
+
+    /**
+     * Maximum rows per multi-row INSERT; a full batch is written without waiting for the interval.
+     */
+    @WithDefault("500")
+    int flushSize();
+
+    /**
+     * Maximum time an audit waits in the queue.
+     */
+    @WithDefault("200ms")
+    Duration flushInterval();
+
+    /**
+     * Attempts for a batch whose INSERT fails before it is dropped (and logged).
+     */
+    @WithDefault("3")
+    int maxAttempts();
+
+    /**
+     * Maximum time the shutdown flush may take.
+     */
+    @WithDefault("10s")
+    Duration shutdownTimeout();
+}
@@ -0,0 +1,38 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Duplicate event filter configuration. Mapped from the "topup.dedupe" prefix.
+ */
+@ConfigMapping(prefix = "topup.dedupe")
+public interface DedupeConfig {
+
+    /**
+     * Recharge IDs this instance finished recently, skipped without any lookup.
+     */
+    @WithDefault("100000")
+    int recentCapacity();
+
+    /**
+     * IDs per Bloom filter generation; two generations are kept.
+     */
+    @WithDefault("1000000")
+    int expectedIds();
+
+    /**
+     * Target false positive rate of each Bloom filter generation.
+     */
+    @WithDefault("0.01")
+    double falsePositiveRate();
+
+    /**
+     * On startup, requests created within this window that are already final are
+     * loaded into the Bloom filter: they are the likeliest redeliveries after a crash.
+     */
+    @WithDefault("15m")
+    Duration seedWindow();
+}
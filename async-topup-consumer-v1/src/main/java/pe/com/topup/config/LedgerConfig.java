@@ -0,0 +1,51 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * In-memory reservation ledger configuration (profile "ledger").
+ * Mapped from the "topup.ledger" prefix.
+ */
+@ConfigMapping(prefix = "topup.ledger")
+public interface LedgerConfig {
+
+    /**
+     * Whether the ledger's flush timer runs. Set by the "ledger" profile.
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Maximum time a decided debit waits before being written to the journal.
+     */
+    @WithDefault("50ms")
+    Duration flushInterval();
+
+    /**
+     * Number of decided events that triggers a journal flush before the interval expires.
+     */
+    @WithDefault("500")
+    int flushThreshold();
+
+    /**
+     * Number of decided events waiting for the journal at which new events wait
+     * for a flush instead of being decided.
+     */
+    @WithDefault("5000")
+    int maxPending();
+
+    /**
+     * How often journaled debits are folded into balance_wallets.current_balance.
+     */
+    @WithDefault("1s")
+    Duration checkpointInterval();
+
+    /**
+     * Maximum time a partition revocation or shutdown waits for the final flush.
+     */
+    @WithDefault("10s")
+    Duration drainTimeout();
+}
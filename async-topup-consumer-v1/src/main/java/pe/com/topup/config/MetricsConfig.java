@@ -0,0 +1,19 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Consumer metrics configuration. Mapped from the "topup.metrics" prefix.
+ */
+@ConfigMapping(prefix = "topup.metrics")
+public interface MetricsConfig {
+
+    /**
+     * How often the wallet balance gauges are read from balance_wallets_total.
+     */
+    @WithDefault("15s")
+    Duration walletRefreshInterval();
+}
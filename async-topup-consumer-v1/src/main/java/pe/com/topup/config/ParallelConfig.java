@@ -0,0 +1,46 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Key-ordered parallel consumption configuration (profile "parallel").
+ * Mapped from the "topup.parallel" prefix.
+ */
+@ConfigMapping(prefix = "topup.parallel")
+public interface ParallelConfig {
+
+    /**
+     * What defines the order events must keep.
+     */
+    enum OrderBy {
+        /**
+         * The Kafka record key, i.e. the producer's partition key.
+         */
+        RECORD_KEY,
+        /**
+         * The carrier: events debiting the same wallet never run concurrently.
+         */
+        CARRIER,
+        /**
+         * The destination phone number.
+         */
+        PHONE_NUMBER
+    }
+
+    /**
+     * Number of lanes; each lane processes its events one at a time, in order.
+     * Keep it at or below the reactive pool size (quarkus.datasource.reactive.max-size).
+     */
+    @WithDefault("16")
+    int workers();
+
+    /**
+     * Maximum records received and not yet processed; the consumer stops pulling beyond it.
+     */
+    @WithDefault("256")
+    int maxInFlight();
+
+    @WithDefault("RECORD_KEY")
+    OrderBy orderBy();
+}
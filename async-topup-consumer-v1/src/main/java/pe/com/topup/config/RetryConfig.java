@@ -0,0 +1,28 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Retry topics and dead-letter queue configuration. Mapped from the "topup.retry" prefix.
+ */
+@ConfigMapping(prefix = "topup.retry")
+public interface RetryConfig {
+
+    /**
+     * Delay of each retry tier, in order. One entry per tier, at most three
+     * (topup-topic-retry-1s, -10s and -60s); a transient failure after the last
+     * tier goes to the dead-letter queue.
+     */
+    @WithDefault("1s,10s,60s")
+    List<Duration> delays();
+
+    /**
+     * Maximum length of the error message copied into the record headers.
+     */
+    @WithDefault("512")
+    int maxErrorMessageLength();
+}
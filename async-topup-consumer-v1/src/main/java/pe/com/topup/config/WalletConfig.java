@@ -0,0 +1,35 @@
+package pe.com.topup.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Wallet model configuration. Mapped from the "topup.wallet" prefix.
+ */
+@ConfigMapping(prefix = "topup.wallet")
+public interface WalletConfig {
+
+    /**
+     * Number of sub-wallet rows (balance_wallet_stripes) each carrier's float is
+     * split across. 1 keeps the single balance_wallets row per carrier.
+     */
+    @WithDefault("1")
+    int stripes();
+
+    /**
+     * How often the rebalancer moves funds into and between stripes.
+     */
+    @WithDefault("5s")
+    Duration rebalanceInterval();
+
+    /**
+     * Whether striped wallets are enabled.
+     *
+     * @return true if more than one stripe is configured.
+     */
+    default boolean striped() {
+        return stripes() > 1;
+    }
+}
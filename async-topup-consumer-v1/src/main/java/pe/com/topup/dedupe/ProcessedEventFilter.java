@@ -0,0 +1,124 @@
+package pe.com.topup.dedupe;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import pe.com.topup.config.DedupeConfig;
+import pe.com.topup.repository.RechargeRequestRepository;
+
+/**
+ * In-memory pre-filter for redelivered TopUpEvents, keyed on the recharge ID.
+ * <p>
+ * A bounded LRU of the IDs this instance finished recently answers "already
+ * processed" with no lookup. Two rotating Bloom filter generations answer
+ * "definitely new" for everything else they have never seen; a Bloom hit is only
+ * a possible duplicate and must be checked against recharge_requests. The filter
+ * is per instance and only saves work: exactly-once wallet effects come from the
+ * processors, which never move a request that is already COMPLETED/FAILED.
+ * </p>
+ */
+@ApplicationScoped
+public class ProcessedEventFilter {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(ProcessedEventFilter.class);
+
+    /**
+     * What the filter knows about a recharge ID.
+     */
+    public enum Verdict {
+        /**
+         * Finished by this instance recently: skip.
+         */
+        PROCESSED,
+        /**
+         * Never seen: process without checking.
+         */
+        NEW,
+        /**
+         * Maybe seen: check the request's status before processing.
+         */
+        POSSIBLE_DUPLICATE
+    }
+
+    private final Map<UUID, Boolean> recent;
+    private final DedupeConfig config;
+    private final RechargeRequestRepository rechargeRequestRepository;
+    private final AtomicInteger currentCount = new AtomicInteger();
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    @Inject
+    public ProcessedEventFilter(DedupeConfig config, RechargeRequestRepository rechargeRequestRepository) {
+        this.config = config;
+        this.rechargeRequestRepository = rechargeRequestRepository;
+        int capacity = config.recentCapacity();
+        this.recent = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.current = newGeneration();
+        this.previous = newGeneration();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        rechargeRequestRepository.findRecentTerminalIds(config.seedWindow(), config.expectedIds())
+                .subscribe().with(
+                        ids -> {
+                            ids.forEach(this::remember);
+                            LOG.infof("Duplicate filter seeded with %d final requests", ids.size());
+                        },
+                        t -> LOG.warnf("Could not seed the duplicate filter: %s", t.getMessage()));
+    }
+
+    /**
+     * Classifies an incoming recharge ID.
+     *
+     * @param rechargeId The event's recharge ID.
+     * @return The verdict.
+     */
+    public Verdict check(UUID rechargeId) {
+        synchronized (recent) {
+            if (recent.containsKey(rechargeId)) {
+                return Verdict.PROCESSED;
+            }
+        }
+        if (current.mightContain(rechargeId) || previous.mightContain(rechargeId)) {
+            return Verdict.POSSIBLE_DUPLICATE;
+        }
+        return Verdict.NEW;
+    }
+
+    /**
+     * Records a recharge ID whose final status this instance has committed.
+     *
+     * @param rechargeId The recharge ID.
+     */
+    public void markProcessed(UUID rechargeId) {
+        synchronized (recent) {
+            recent.put(rechargeId, Boolean.TRUE);
+        }
+        remember(rechargeId);
+    }
+
+    private void remember(UUID rechargeId) {
+        current.add(rechargeId);
+        if (currentCount.incrementAndGet() == config.expectedIds()) {
+            // Generación llena: la anterior se descarta para mantener la tasa de falsos positivos
+            previous = current;
+            current = newGeneration();
+            currentCount.set(0);
+        }
+    }
+
+    private BloomFilter newGeneration() {
+        return new BloomFilter(config.expectedIds(), config.falsePositiveRate());
+    }
+}
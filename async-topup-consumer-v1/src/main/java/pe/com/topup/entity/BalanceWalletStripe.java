@@ -0,0 +1,60 @@
+package pe.com.topup.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * One sub-wallet of a carrier's float. Debits for one carrier spread over its
+ * stripes instead of serializing on a single balance_wallets row lock.
+ */
+@Entity
+@Table(name = "balance_wallet_stripes")
+@IdClass(BalanceWalletStripe.Key.class)
+public class BalanceWalletStripe {
+
+    @Id
+    @Column(name = "operator_id")
+    public Integer operatorId;
+
+    @Id
+    @Column(name = "stripe_no")
+    public Integer stripeNo;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    public BigDecimal balance;
+
+    /**
+     * Composite primary key (operator_id, stripe_no).
+     */
+    public static class Key implements Serializable {
+
+        public Integer operatorId;
+        public Integer stripeNo;
+
+        public Key() {
+        }
+
+        public Key(Integer operatorId, Integer stripeNo) {
+            this.operatorId = operatorId;
+            this.stripeNo = stripeNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other
+                    && Objects.equals(operatorId, other.operatorId)
+                    && Objects.equals(stripeNo, other.stripeNo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operatorId, stripeNo);
+        }
+    }
+}
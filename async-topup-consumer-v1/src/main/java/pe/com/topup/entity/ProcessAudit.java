@@ -7,7 +7,10 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
+import java.util.UUID;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "process_audits")
@@ -18,8 +21,9 @@ public class ProcessAudit {
     @Column(name = "audit_id")
     public Integer auditId;
 
-    @Column(name = "recharge_id", length = 36)
-    public String rechargeId;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "recharge_id", length = 16)
+    public UUID rechargeId;
 
     @CreationTimestamp
     @Column(name = "completion_date", columnDefinition = "TIMESTAMP")
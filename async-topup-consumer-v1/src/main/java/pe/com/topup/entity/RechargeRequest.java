@@ -6,16 +6,20 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "recharge_requests")
 public class RechargeRequest {
 
     @Id
-    @Column(name = "recharge_id", length = 36)
-    public String rechargeId;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "recharge_id", length = 16)
+    public UUID rechargeId;
 
     @Column(name = "phone_number", nullable = false, length = 15)
     public String phoneNumber;
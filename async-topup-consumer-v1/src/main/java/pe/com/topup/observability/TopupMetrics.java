@@ -0,0 +1,85 @@
+package pe.com.topup.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import pe.com.topup.worker.TopupCommand;
+
+/**
+ * Processing metrics of the consumer, shared by every consumption mode.
+ * <ul>
+ * <li>topup.consumer.processing: time from picking an event up to its final status
+ * being committed, per carrier and status.</li>
+ * <li>topup.consumer.outcomes: events per carrier and outcome (COMPLETED, FAILED,
+ * RETRY, DEAD_LETTER, DUPLICATE).</li>
+ * <li>topup.end.to.end: time from the sync API storing the request to its final
+ * status, per status. Measured across hosts, so it includes their clock skew.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class TopupMetrics {
+
+    private final MeterRegistry registry;
+
+    @Inject
+    public TopupMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Records an event whose final status (COMPLETED or FAILED) was committed.
+     *
+     * @param command    The event.
+     * @param status     The final status.
+     * @param startNanos {@link System#nanoTime()} when the event was picked up.
+     */
+    public void finished(TopupCommand command, String status, long startNanos) {
+        String carrier = carrier(command);
+        Timer.builder("topup.consumer.processing")
+                .description("Time from picking an event up to committing its final status")
+                .tag("carrier", carrier)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        outcome(carrier, status);
+        if (command.createdAt() > 0) {
+            Timer.builder("topup.end.to.end")
+                    .description("Time from the sync API storing a request to its final status")
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(Math.max(0, System.currentTimeMillis() - command.createdAt()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Counts an event that ended without a final status of its own (RETRY,
+     * DEAD_LETTER before the FAILED status, DUPLICATE).
+     *
+     * @param command The event.
+     * @param outcome The outcome.
+     */
+    public void outcome(TopupCommand command, String outcome) {
+        outcome(carrier(command), outcome);
+    }
+
+    private void outcome(String carrier, String outcome) {
+        Counter.builder("topup.consumer.outcomes")
+                .description("Events processed per carrier and outcome")
+                .tag("carrier", carrier)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    private static String carrier(TopupCommand command) {
+        return command.carrier().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,41 @@
+package pe.com.topup.observability;
+
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+
+import java.util.List;
+
+/**
+ * Rebuilds an OpenTelemetry context from a stored W3C traceparent, so messages
+ * the consumer publishes later (retry tiers, dead-letter topic) stay in the
+ * trace of the original top-up.
+ */
+public final class TraceContexts {
+
+    private static final TextMapGetter<String> TRACE_PARENT_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(String carrier) {
+            return List.of("traceparent");
+        }
+
+        @Override
+        public String get(String carrier, String key) {
+            return "traceparent".equals(key) ? carrier : null;
+        }
+    };
+
+    private TraceContexts() {
+    }
+
+    /**
+     * @param traceParent A W3C traceparent value (may be null).
+     * @return The context whose parent span is the traceparent's, or the current context if none.
+     */
+    public static Context fromTraceParent(String traceParent) {
+        if (traceParent == null) {
+            return Context.current();
+        }
+        return W3CTraceContextPropagator.getInstance().extract(Context.root(), traceParent, TRACE_PARENT_GETTER);
+    }
+}
@@ -0,0 +1,72 @@
+package pe.com.topup.observability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Vertx;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import pe.com.topup.config.MetricsConfig;
+
+/**
+ * Publishes the balance of every carrier's wallet as the gauge
+ * topup.wallet.balance, read periodically from balance_wallets_total (main row
+ * plus stripes). In ledger mode it shows the last checkpointed balance.
+ */
+@ApplicationScoped
+public class WalletBalanceGauges {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(WalletBalanceGauges.class);
+
+    private static final String BALANCES_SQL = "SELECT operator_name, total_balance FROM balance_wallets_total";
+
+    private final Pool pool;
+    private final MeterRegistry registry;
+    private final Vertx vertx;
+    private final MetricsConfig config;
+    private final Map<String, AtomicReference<Double>> balances = new ConcurrentHashMap<>();
+
+    @Inject
+    public WalletBalanceGauges(Pool pool, MeterRegistry registry, Vertx vertx, MetricsConfig config) {
+        this.pool = pool;
+        this.registry = registry;
+        this.vertx = vertx;
+        this.config = config;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        vertx.setPeriodic(Math.max(1, config.walletRefreshInterval().toMillis()), id -> refresh());
+    }
+
+    private void refresh() {
+        pool.query(BALANCES_SQL).execute().subscribe().with(
+                rows -> {
+                    for (Row row : rows) {
+                        BigDecimal balance = row.getBigDecimal("total_balance");
+                        gauge(row.getString("operator_name")).set(balance != null ? balance.doubleValue() : 0d);
+                    }
+                },
+                failure -> LOG.warnf("Could not read wallet balances: %s", failure.getMessage()));
+    }
+
+    private AtomicReference<Double> gauge(String operatorName) {
+        return balances.computeIfAbsent(operatorName.toUpperCase(Locale.ROOT), carrier -> {
+            AtomicReference<Double> value = new AtomicReference<>(0d);
+            Gauge.builder("topup.wallet.balance", value, AtomicReference::get)
+                    .description("Wallet balance per carrier (balance_wallets_total)")
+                    .tag("carrier", carrier)
+                    .register(registry);
+            return value;
+        });
+    }
+}
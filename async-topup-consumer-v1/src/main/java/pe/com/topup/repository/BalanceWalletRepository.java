@@ -3,6 +3,10 @@ package pe.com.topup.repository;
 import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import pe.com.topup.entity.BalanceWallet;
 
 @ApplicationScoped
@@ -12,4 +16,44 @@ public class BalanceWalletRepository implements PanacheRepositoryBase<BalanceWal
         // Case-insensitive search to handle MOVISTAR vs Movistar
         return find("LOWER(operatorName) = LOWER(?1)", operatorName).firstResult();
     }
+
+    /**
+     * Debits a wallet only if it has enough balance, in a single conditional UPDATE.
+     * The row lock taken by the UPDATE makes check and debit atomic, so concurrent
+     * events can never overdraw the wallet.
+     *
+     * @param operatorId The wallet to debit.
+     * @param amount     The amount to debit.
+     * @return true if the wallet was debited, false if the balance was insufficient.
+     */
+    public Uni<Boolean> debitIfSufficient(Integer operatorId, BigDecimal amount) {
+        return update("currentBalance = currentBalance - ?1 where operatorId = ?2 and currentBalance >= ?1",
+                amount, operatorId)
+                .map(updated -> updated == 1);
+    }
+
+    /**
+     * Loads and row-locks (SELECT ... FOR UPDATE) the wallets of several operators,
+     * so running balances computed in memory stay valid until the transaction commits.
+     *
+     * @param lowerCaseOperatorNames Operator names, already lower-cased.
+     * @return The wallets found.
+     */
+    public Uni<List<BalanceWallet>> lockByOperatorNames(Collection<String> lowerCaseOperatorNames) {
+        return find("LOWER(operatorName) in ?1", lowerCaseOperatorNames)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .list();
+    }
+
+    /**
+     * Loads and row-locks (SELECT ... FOR UPDATE) the wallets with the given IDs.
+     *
+     * @param operatorIds The wallets to lock.
+     * @return The wallets found.
+     */
+    public Uni<List<BalanceWallet>> lockByOperatorIds(Collection<Integer> operatorIds) {
+        return find("operatorId in ?1 order by operatorId", operatorIds)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .list();
+    }
 }
@@ -0,0 +1,88 @@
+package pe.com.topup.repository;
+
+import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import pe.com.topup.entity.BalanceWalletStripe;
+
+@ApplicationScoped
+public class BalanceWalletStripeRepository
+        implements PanacheRepositoryBase<BalanceWalletStripe, BalanceWalletStripe.Key> {
+
+    private static final String DEBIT_RICHEST_SQL = "UPDATE balance_wallet_stripes"
+            + " SET balance = balance - ?1"
+            + " WHERE operator_id = ?2 AND balance >= ?1"
+            + " ORDER BY balance DESC LIMIT 1";
+
+    /**
+     * Wallets whose float needs redistributing across stripes 0..N-1: unallocated
+     * balance left on balance_wallets, missing stripes, balance on stripes beyond N,
+     * or a stripe below half its fair share.
+     */
+    private static final String UNBALANCED_SQL = "SELECT w.operator_id"
+            + " FROM balance_wallets w LEFT JOIN balance_wallet_stripes s ON s.operator_id = w.operator_id"
+            + " GROUP BY w.operator_id, w.current_balance"
+            + " HAVING w.current_balance > 0"
+            + " OR COALESCE(SUM(s.stripe_no < ?1), 0) < ?1"
+            + " OR COALESCE(SUM(CASE WHEN s.stripe_no >= ?1 THEN s.balance END), 0) > 0"
+            + " OR COALESCE(MIN(CASE WHEN s.stripe_no < ?1 THEN s.balance END), 0) * 2 * ?1"
+            + " < w.current_balance + COALESCE(SUM(s.balance), 0)";
+
+    /**
+     * Debits one stripe if it has enough balance (conditional UPDATE).
+     *
+     * @param operatorId The carrier's wallet.
+     * @param stripeNo   The stripe to debit.
+     * @param amount     The amount to debit.
+     * @return true if the stripe was debited.
+     */
+    public Uni<Boolean> debitIfSufficient(Integer operatorId, int stripeNo, BigDecimal amount) {
+        return update("balance = balance - ?1 where operatorId = ?2 and stripeNo = ?3 and balance >= ?1",
+                amount, operatorId, stripeNo)
+                .map(updated -> updated == 1);
+    }
+
+    /**
+     * Fallback when the preferred stripe is exhausted: debits the stripe with the
+     * highest balance that still covers the amount.
+     *
+     * @param operatorId The carrier's wallet.
+     * @param amount     The amount to debit.
+     * @return true if some stripe was debited.
+     */
+    public Uni<Boolean> debitRichestIfSufficient(Integer operatorId, BigDecimal amount) {
+        return getSession().chain(session -> session.createNativeQuery(DEBIT_RICHEST_SQL)
+                .setParameter(1, amount)
+                .setParameter(2, operatorId)
+                .executeUpdate())
+                .map(updated -> updated == 1);
+    }
+
+    /**
+     * Finds, without locking, the wallets the rebalancer has work for.
+     *
+     * @param stripes The configured number of stripes.
+     * @return The operatorIds of those wallets.
+     */
+    public Uni<List<Integer>> findUnbalancedOperatorIds(int stripes) {
+        return getSession().chain(session -> session.createNativeQuery(UNBALANCED_SQL, Integer.class)
+                .setParameter(1, stripes)
+                .getResultList());
+    }
+
+    /**
+     * Loads and row-locks (SELECT ... FOR UPDATE) all stripes of several carriers.
+     *
+     * @param operatorIds The carriers' wallets.
+     * @return The stripes, ordered by operator and stripe number.
+     */
+    public Uni<List<BalanceWalletStripe>> lockByOperatorIds(Collection<Integer> operatorIds) {
+        return find("operatorId in ?1 order by operatorId, stripeNo", operatorIds)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .list();
+    }
+}
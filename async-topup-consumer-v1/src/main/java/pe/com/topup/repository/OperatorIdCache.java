@@ -0,0 +1,45 @@
+package pe.com.topup.repository;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory carrier name to operatorId lookup, so the debit path does not run a
+ * {@code LOWER(operatorName)} query for every event. Operators are a handful of
+ * rows that practically never change; only successful lookups are cached.
+ */
+@ApplicationScoped
+public class OperatorIdCache {
+
+    private final Map<String, Integer> operatorIds = new ConcurrentHashMap<>();
+
+    @Inject
+    BalanceWalletRepository balanceWalletRepository;
+
+    /**
+     * Resolves the operatorId of a carrier (case-insensitive).
+     * Must be called within a Hibernate Reactive session on a cache miss.
+     *
+     * @param carrier The carrier name from the event.
+     * @return The operatorId, or null if there is no wallet for the carrier.
+     */
+    public Uni<Integer> operatorId(String carrier) {
+        String key = carrier.toLowerCase(Locale.ROOT);
+        Integer cached = operatorIds.get(key);
+        if (cached != null) {
+            return Uni.createFrom().item(cached);
+        }
+        return balanceWalletRepository.findByOperatorName(carrier)
+                .map(wallet -> {
+                    if (wallet == null) {
+                        return null;
+                    }
+                    operatorIds.put(key, wallet.operatorId);
+                    return wallet.operatorId;
+                });
+    }
+}
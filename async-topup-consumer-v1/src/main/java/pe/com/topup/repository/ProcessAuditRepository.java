@@ -1,9 +1,68 @@
 package pe.com.topup.repository;
 
 import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import org.hibernate.reactive.mutiny.Mutiny;
 import pe.com.topup.entity.ProcessAudit;
 
 @ApplicationScoped
 public class ProcessAuditRepository implements PanacheRepositoryBase<ProcessAudit, Integer> {
+
+    private static final String INSERT_PREFIX = "INSERT INTO process_audits (recharge_id, error_details) VALUES ";
+
+    @Inject
+    Pool pool;
+
+    /**
+     * Inserts several audits with one multi-row INSERT in the current session's
+     * transaction. IDENTITY keys prevent Hibernate from batching persist() calls.
+     * completion_date is filled by the column default.
+     *
+     * @param audits The audits to insert.
+     * @return The number of rows inserted.
+     */
+    public Uni<Integer> insertAll(List<ProcessAudit> audits) {
+        if (audits.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + audits.size() * 8).append(INSERT_PREFIX);
+        for (int i = 0; i < audits.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        return getSession().chain(session -> {
+            Mutiny.MutationQuery query = session.createNativeQuery(sql.toString());
+            int position = 1;
+            for (ProcessAudit audit : audits) {
+                query.setParameter(position++, RechargeIds.toBytes(audit.rechargeId));
+                query.setParameter(position++, audit.errorDetails);
+            }
+            return query.executeUpdate();
+        });
+    }
+
+    /**
+     * Inserts several audits with one multi-row INSERT on a pooled connection,
+     * outside any Hibernate session. Used by the background audit writer.
+     *
+     * @param audits The audits to insert. Must not be empty.
+     * @return The number of rows inserted.
+     */
+    public Uni<Integer> insertAllStandalone(List<ProcessAudit> audits) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + audits.size() * 8).append(INSERT_PREFIX);
+        Tuple params = Tuple.tuple();
+        for (int i = 0; i < audits.size(); i++) {
+            ProcessAudit audit = audits.get(i);
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            params.addBuffer(Buffer.buffer(RechargeIds.toBytes(audit.rechargeId)))
+                    .addString(audit.errorDetails);
+        }
+        return pool.preparedQuery(sql.toString()).execute(params)
+                .map(rows -> rows.rowCount());
+    }
 }
@@ -0,0 +1,38 @@
+package pe.com.topup.repository;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversions between recharge IDs and the 16-byte big-endian form stored in
+ * BINARY(16) columns and carried by v2 events.
+ */
+public final class RechargeIds {
+
+    private RechargeIds() {
+    }
+
+    /**
+     * Converts an ID to its 16-byte big-endian form.
+     *
+     * @param id The ID.
+     * @return The 16 bytes of the ID.
+     */
+    public static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Converts a 16-byte big-endian form back to an ID.
+     *
+     * @param bytes The 16 bytes of the ID.
+     * @return The ID.
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -1,9 +1,135 @@
 package pe.com.topup.repository;
 
 import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import pe.com.topup.entity.RechargeRequest;
 
 @ApplicationScoped
-public class RechargeRequestRepository implements PanacheRepositoryBase<RechargeRequest, String> {
+public class RechargeRequestRepository implements PanacheRepositoryBase<RechargeRequest, UUID> {
+
+    /**
+     * Final statuses: a request in one of them is never processed again.
+     */
+    public static final List<String> TERMINAL_STATUSES = List.of("COMPLETED", "FAILED");
+
+    private static final String TERMINAL_IN = "('COMPLETED', 'FAILED')";
+
+    @Inject
+    Pool pool;
+
+    /**
+     * Sets the same status on several recharge requests with one UPDATE ... IN.
+     * Requests that already have a final status are left untouched.
+     *
+     * @param rechargeIds The requests to update.
+     * @param status      The new status.
+     * @return The number of rows updated.
+     */
+    public Uni<Integer> updateStatus(List<UUID> rechargeIds, String status) {
+        if (rechargeIds.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        return update("status = ?1, updatedAt = ?2 where rechargeId in ?3 and status not in ?4",
+                status, LocalDateTime.now(), rechargeIds, TERMINAL_STATUSES);
+    }
+
+    /**
+     * Returns which of the given requests already have a final status, using a
+     * pooled connection outside any Hibernate session.
+     *
+     * @param rechargeIds The requests to check.
+     * @return The IDs among them that are COMPLETED or FAILED.
+     */
+    public Uni<Set<UUID>> findTerminal(Collection<UUID> rechargeIds) {
+        if (rechargeIds.isEmpty()) {
+            return Uni.createFrom().item(Set.of());
+        }
+        Tuple params = Tuple.tuple();
+        for (UUID rechargeId : rechargeIds) {
+            params.addBuffer(Buffer.buffer(RechargeIds.toBytes(rechargeId)));
+        }
+        return pool.preparedQuery("SELECT recharge_id FROM recharge_requests WHERE recharge_id IN "
+                + placeholders(rechargeIds.size()) + " AND status IN " + TERMINAL_IN)
+                .execute(params)
+                .map(rows -> {
+                    Set<UUID> terminal = new HashSet<>();
+                    for (Row row : rows) {
+                        terminal.add(RechargeIds.fromBytes(row.getBuffer(0).getBytes()));
+                    }
+                    return terminal;
+                });
+    }
+
+    /**
+     * Row-locks (SELECT ... FOR UPDATE) the given requests in the current
+     * transaction and returns those that already have a final status. Used by
+     * batch mode before deciding, so a redelivered event is never debited twice.
+     *
+     * @param rechargeIds The requests to lock.
+     * @return The IDs among them that are COMPLETED or FAILED.
+     */
+    public Uni<Set<UUID>> lockAndFindTerminal(Collection<UUID> rechargeIds) {
+        if (rechargeIds.isEmpty()) {
+            return Uni.createFrom().item(Set.of());
+        }
+        String sql = "SELECT recharge_id FROM recharge_requests WHERE recharge_id IN "
+                + placeholders(rechargeIds.size()) + " AND status IN " + TERMINAL_IN + " FOR UPDATE";
+        return getSession().chain(session -> {
+            var query = session.createNativeQuery(sql, byte[].class);
+            int position = 1;
+            for (UUID rechargeId : rechargeIds) {
+                query.setParameter(position++, RechargeIds.toBytes(rechargeId));
+            }
+            return query.getResultList();
+        }).map(rows -> {
+            Set<UUID> terminal = new HashSet<>();
+            for (byte[] row : rows) {
+                terminal.add(RechargeIds.fromBytes(row));
+            }
+            return terminal;
+        });
+    }
+
+    /**
+     * Loads the IDs of requests created within a window that already have a final
+     * status, newest first, using a pooled connection (served by idx_status_created).
+     *
+     * @param window How far back to look.
+     * @param limit  Maximum number of IDs.
+     * @return The IDs.
+     */
+    public Uni<List<UUID>> findRecentTerminalIds(Duration window, int limit) {
+        return pool.preparedQuery("SELECT recharge_id FROM recharge_requests WHERE status IN " + TERMINAL_IN
+                + " AND created_at >= DATE_SUB(NOW(6), INTERVAL ? SECOND) ORDER BY created_at DESC LIMIT ?")
+                .execute(Tuple.of(window.toSeconds(), limit))
+                .map(rows -> {
+                    List<UUID> ids = new ArrayList<>(rows.size());
+                    for (Row row : rows) {
+                        ids.add(RechargeIds.fromBytes(row.getBuffer(0).getBytes()));
+                    }
+                    return ids;
+                });
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder in = new StringBuilder(count * 3 + 2).append('(');
+        for (int i = 0; i < count; i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+        return in.append(')').toString();
+    }
 }
@@ -0,0 +1,204 @@
+package pe.com.topup.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import pe.com.topup.entity.ProcessAudit;
+
+/**
+ * Durable side of the reservation ledger: the write-ahead journal (wallet_journal)
+ * and its checkpoints into balance_wallets.
+ * <p>
+ * Uses the reactive pool directly instead of a Hibernate session, so flushes can
+ * run from timers and from the Kafka polling thread on partition revocation.
+ * A wallet's durable balance is always
+ * {@code current_balance - SUM(amount of its journal rows with applied = 0)}.
+ * </p>
+ */
+@ApplicationScoped
+public class WalletJournalRepository {
+
+    private static final String LOAD_SQL = "SELECT w.operator_id, w.current_balance - COALESCE("
+            + "(SELECT SUM(j.amount) FROM wallet_journal j WHERE j.operator_id = w.operator_id AND j.applied = 0), 0)"
+            + " FROM balance_wallets w WHERE LOWER(w.operator_name) = ? LIMIT 1";
+
+    /**
+     * A debit decided in memory, to be journaled.
+     *
+     * @param operatorId The debited wallet.
+     * @param rechargeId The recharge it belongs to (unique in the journal).
+     * @param amount     The debited amount.
+     */
+    public record JournalDebit(Integer operatorId, UUID rechargeId, BigDecimal amount) {
+    }
+
+    /**
+     * A wallet's durable balance as seen by the ledger.
+     *
+     * @param operatorId The wallet.
+     * @param balance    The last checkpointed balance minus the journal rows not applied yet.
+     */
+    public record DurableBalance(Integer operatorId, BigDecimal balance) {
+    }
+
+    private final Pool pool;
+
+    @Inject
+    public WalletJournalRepository(Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Rebuilds a carrier's balance: last checkpointed balance minus the replayed
+     * journal rows that were not folded into it yet.
+     *
+     * @param lowerCaseCarrier The carrier name, already lower-cased.
+     * @return The durable balance, or null if there is no wallet for the carrier.
+     */
+    public Uni<DurableBalance> loadBalance(String lowerCaseCarrier) {
+        return pool.preparedQuery(LOAD_SQL).execute(Tuple.of(lowerCaseCarrier))
+                .map(rows -> {
+                    if (rows.size() == 0) {
+                        return null;
+                    }
+                    Row row = rows.iterator().next();
+                    return new DurableBalance(row.getInteger(0), row.getBigDecimal(1));
+                });
+    }
+
+    /**
+     * Writes decided events in one transaction: journal rows for the debits,
+     * final statuses and audits. Journal rows are keyed by recharge_id and inserted
+     * with INSERT IGNORE, so a redelivered event is never debited twice durably.
+     *
+     * @param debits    The debits to journal.
+     * @param completed Requests to mark COMPLETED.
+     * @param failed    Requests to mark FAILED.
+     * @param audits    Audits to insert.
+     * @return A Uni that completes once the transaction has committed.
+     */
+    public Uni<Void> append(List<JournalDebit> debits, List<UUID> completed, List<UUID> failed,
+            List<ProcessAudit> audits) {
+        return pool.withTransaction(connection -> insertJournal(connection, debits)
+                .chain(() -> updateStatus(connection, completed, "COMPLETED"))
+                .chain(() -> updateStatus(connection, failed, "FAILED"))
+                .chain(() -> insertAudits(connection, audits)))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Folds the journal rows not applied yet into balance_wallets for the given
+     * wallets and marks them applied, in one transaction.
+     *
+     * @param operatorIds The wallets owned by this instance.
+     * @return The resulting current_balance of each wallet.
+     */
+    public Uni<Map<Integer, BigDecimal>> checkpoint(Collection<Integer> operatorIds) {
+        if (operatorIds.isEmpty()) {
+            return Uni.createFrom().item(Map.of());
+        }
+        String in = placeholders(operatorIds.size());
+        Tuple ids = Tuple.tuple();
+        operatorIds.forEach(ids::addInteger);
+        return pool.withTransaction(connection -> connection.preparedQuery(
+                "SELECT operator_id, SUM(amount), MAX(journal_id) FROM wallet_journal"
+                        + " WHERE applied = 0 AND operator_id IN " + in + " GROUP BY operator_id FOR UPDATE")
+                .execute(ids)
+                .chain(pending -> foldJournal(connection, pending))
+                .chain(() -> connection.preparedQuery(
+                        "SELECT operator_id, current_balance FROM balance_wallets WHERE operator_id IN " + in)
+                        .execute(ids))
+                .map(rows -> {
+                    Map<Integer, BigDecimal> balances = new HashMap<>();
+                    for (Row row : rows) {
+                        balances.put(row.getInteger(0), row.getBigDecimal(1));
+                    }
+                    return balances;
+                }));
+    }
+
+    private Uni<Void> foldJournal(SqlConnection connection, RowSet<Row> pending) {
+        Uni<Void> chain = Uni.createFrom().voidItem();
+        for (Row row : pending) {
+            Integer operatorId = row.getInteger(0);
+            BigDecimal total = row.getBigDecimal(1);
+            long maxJournalId = row.getLong(2);
+            // La conexión no admite sentencias concurrentes: una wallet tras otra
+            chain = chain
+                    .chain(() -> connection.preparedQuery(
+                            "UPDATE balance_wallets SET current_balance = current_balance - ? WHERE operator_id = ?")
+                            .execute(Tuple.of(total, operatorId)))
+                    .chain(() -> connection.preparedQuery("UPDATE wallet_journal SET applied = 1"
+                            + " WHERE operator_id = ? AND applied = 0 AND journal_id <= ?")
+                            .execute(Tuple.of(operatorId, maxJournalId)))
+                    .replaceWithVoid();
+        }
+        return chain;
+    }
+
+    private static Uni<Void> insertJournal(SqlConnection connection, List<JournalDebit> debits) {
+        if (debits.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO wallet_journal (operator_id, recharge_id, amount) VALUES ");
+        Tuple params = Tuple.tuple();
+        for (int i = 0; i < debits.size(); i++) {
+            JournalDebit debit = debits.get(i);
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            params.addInteger(debit.operatorId())
+                    .addBuffer(Buffer.buffer(RechargeIds.toBytes(debit.rechargeId())))
+                    .addBigDecimal(debit.amount());
+        }
+        return connection.preparedQuery(sql.toString()).execute(params).replaceWithVoid();
+    }
+
+    private static Uni<Void> updateStatus(SqlConnection connection, List<UUID> rechargeIds, String status) {
+        if (rechargeIds.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        Tuple params = Tuple.of(status);
+        for (UUID rechargeId : rechargeIds) {
+            params.addBuffer(Buffer.buffer(RechargeIds.toBytes(rechargeId)));
+        }
+        return connection.preparedQuery("UPDATE recharge_requests SET status = ?, updated_at = NOW(6)"
+                + " WHERE recharge_id IN " + placeholders(rechargeIds.size())
+                + " AND status NOT IN ('COMPLETED', 'FAILED')")
+                .execute(params)
+                .replaceWithVoid();
+    }
+
+    private static Uni<Void> insertAudits(SqlConnection connection, List<ProcessAudit> audits) {
+        if (audits.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO process_audits (recharge_id, error_details) VALUES ");
+        Tuple params = Tuple.tuple();
+        for (int i = 0; i < audits.size(); i++) {
+            ProcessAudit audit = audits.get(i);
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            params.addBuffer(Buffer.buffer(RechargeIds.toBytes(audit.rechargeId)))
+                    .addString(audit.errorDetails);
+        }
+        return connection.preparedQuery(sql.toString()).execute(params).replaceWithVoid();
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder in = new StringBuilder(count * 3 + 2).append('(');
+        for (int i = 0; i < count; i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+        return in.append(')').toString();
+    }
+}
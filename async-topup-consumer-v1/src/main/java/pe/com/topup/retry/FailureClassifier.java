@@ -0,0 +1,77 @@
+package pe.com.topup.retry;
+
+import io.vertx.mysqlclient.MySQLException;
+import io.vertx.sqlclient.ClosedConnectionException;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import java.net.ConnectException;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tells transient technical errors (deadlocks, lock wait timeouts, lost or
+ * refused connections) from everything else. Transient errors are worth
+ * retrying later; any other error would fail the same way again.
+ * <p>
+ * Business outcomes (insufficient balance, unknown operator) never reach this
+ * class: the processor stores them as FAILED without raising an error.
+ * </p>
+ */
+public final class FailureClassifier {
+
+    /**
+     * MySQL/MariaDB error codes: deadlock, lock wait timeout, too many connections,
+     * server gone away, connection lost during query.
+     */
+    private static final Set<Integer> TRANSIENT_ERROR_CODES = Set.of(1213, 1205, 1040, 2006, 2013);
+
+    private FailureClassifier() {
+    }
+
+    /**
+     * Walks the cause chain looking for a transient error.
+     *
+     * @param failure The failure raised while processing an event.
+     * @return true if retrying the event later may succeed.
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof MySQLException mysql) {
+                String sqlState = mysql.getSqlState();
+                // 40xxx: transacción revertida por el servidor; 08xxx: conexión
+                if (TRANSIENT_ERROR_CODES.contains(mysql.getErrorCode())
+                        || (sqlState != null && (sqlState.startsWith("40") || sqlState.startsWith("08")))) {
+                    return true;
+                }
+            }
+            if (t instanceof ClosedConnectionException
+                    || t instanceof ConnectException
+                    || t instanceof TimeoutException
+                    || t instanceof io.smallrye.mutiny.TimeoutException
+                    || t instanceof LockAcquisitionException
+                    || t instanceof JDBCConnectionException
+                    || t instanceof PessimisticLockException
+                    || t instanceof LockTimeoutException
+                    || t instanceof QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param failure The failure raised while processing an event.
+     * @return The innermost cause, which names the actual error.
+     */
+    public static Throwable rootCause(Throwable failure) {
+        Throwable root = failure;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+}
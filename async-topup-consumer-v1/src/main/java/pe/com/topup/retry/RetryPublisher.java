@@ -0,0 +1,158 @@
+package pe.com.topup.retry;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.TracingMetadata;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import pe.com.topup.config.RetryConfig;
+import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.observability.TraceContexts;
+import pe.com.topup.worker.TopupCommand;
+
+/**
+ * Moves events that failed with a transient error out of the main topic.
+ * <p>
+ * Attempt N (1-based) goes to retry tier N, whose consumer waits until the
+ * {@link #NOT_BEFORE_HEADER} time before processing it again; once every tier is
+ * used up, or on a non-transient error, the event goes to the dead-letter topic.
+ * The record key, the trace and the creation time are kept, and the headers
+ * carry the attempt count and the error that caused the move, so the partition
+ * behind it keeps flowing while the failed event waits somewhere else.
+ * </p>
+ */
+@ApplicationScoped
+public class RetryPublisher {
+
+    public static final String ATTEMPT_HEADER = "x-topup-attempt";
+    public static final String NOT_BEFORE_HEADER = "x-topup-not-before";
+    public static final String ERROR_CLASS_HEADER = "x-topup-error-class";
+    public static final String ERROR_MESSAGE_HEADER = "x-topup-error-message";
+    public static final String TRANSIENT_HEADER = "x-topup-transient";
+
+    private final List<MutinyEmitter<TopUpEvent>> tiers;
+    private final MutinyEmitter<TopUpEvent> deadLetter;
+    private final List<Duration> delays;
+    private final int maxErrorMessageLength;
+
+    @Inject
+    public RetryPublisher(@Channel("topup-retry-1-out") MutinyEmitter<TopUpEvent> tier1,
+            @Channel("topup-retry-2-out") MutinyEmitter<TopUpEvent> tier2,
+            @Channel("topup-retry-3-out") MutinyEmitter<TopUpEvent> tier3,
+            @Channel("topup-dlq") MutinyEmitter<TopUpEvent> deadLetter,
+            RetryConfig config) {
+        this.tiers = List.of(tier1, tier2, tier3);
+        this.deadLetter = deadLetter;
+        if (config.delays().size() > tiers.size()) {
+            throw new IllegalStateException("topup.retry.delays supports at most " + tiers.size() + " tiers, got "
+                    + config.delays());
+        }
+        this.delays = config.delays();
+        this.maxErrorMessageLength = config.maxErrorMessageLength();
+    }
+
+    /**
+     * @param attempt The attempt that just failed (0 = first delivery).
+     * @return true if a retry tier is left for the next attempt.
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < delays.size();
+    }
+
+    /**
+     * Publishes the event to the tier of the next attempt.
+     *
+     * @param command The failed top-up.
+     * @param attempt The attempt that just failed (0 = first delivery).
+     * @param failure The transient error.
+     * @return A Uni that completes once Kafka acknowledged the record.
+     */
+    public Uni<Void> retry(TopupCommand command, int attempt, Throwable failure) {
+        int next = attempt + 1;
+        long notBefore = System.currentTimeMillis() + delays.get(attempt).toMillis();
+        Headers headers = headers(next, failure, true);
+        headers.add(NOT_BEFORE_HEADER, Long.toString(notBefore).getBytes(StandardCharsets.UTF_8));
+        return tiers.get(attempt).sendMessage(message(command, headers));
+    }
+
+    /**
+     * Publishes the event to the dead-letter topic.
+     *
+     * @param command The failed top-up.
+     * @param attempt The attempt that failed last (0 = first delivery).
+     * @param failure The error.
+     * @return A Uni that completes once Kafka acknowledged the record.
+     */
+    public Uni<Void> deadLetter(TopupCommand command, int attempt, Throwable failure) {
+        return deadLetter.sendMessage(message(command,
+                headers(attempt, failure, FailureClassifier.isTransient(failure))));
+    }
+
+    /**
+     * @param headers The headers of a record read from a retry topic.
+     * @return The attempt it carries, or 0 if absent.
+     */
+    public static int attempt(Headers headers) {
+        String value = header(headers, ATTEMPT_HEADER);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    /**
+     * @param headers The headers of a record read from a retry topic.
+     * @return The epoch millis before which it must not be processed, or 0 if absent.
+     */
+    public static long notBefore(Headers headers) {
+        String value = header(headers, NOT_BEFORE_HEADER);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    private Headers headers(int attempt, Throwable failure, boolean transientFailure) {
+        Throwable root = FailureClassifier.rootCause(failure);
+        String errorMessage = String.valueOf(root.getMessage());
+        if (errorMessage.length() > maxErrorMessageLength) {
+            errorMessage = errorMessage.substring(0, maxErrorMessageLength);
+        }
+        Headers headers = new RecordHeaders();
+        headers.add(ATTEMPT_HEADER, Integer.toString(attempt).getBytes(StandardCharsets.UTF_8));
+        headers.add(ERROR_CLASS_HEADER, root.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(ERROR_MESSAGE_HEADER, errorMessage.getBytes(StandardCharsets.UTF_8));
+        headers.add(TRANSIENT_HEADER, Boolean.toString(transientFailure).getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    private static Message<TopUpEvent> message(TopupCommand command, Headers headers) {
+        if (command.createdAt() > 0) {
+            headers.add(TopupCommand.CREATED_AT_HEADER,
+                    Long.toString(command.createdAt()).getBytes(StandardCharsets.UTF_8));
+        }
+        TopUpEvent event = TopUpEvent.newBuilder()
+                .setRequestId(command.rechargeId().toString())
+                .setPhoneNumber(command.phoneNumber())
+                .setAmount(command.amount().toPlainString())
+                .setCarrier(command.carrier())
+                .build();
+        return Message.of(event)
+                .addMetadata(OutgoingKafkaRecordMetadata.<String>builder()
+                        .withKey(command.key())
+                        .withHeaders(headers)
+                        .build())
+                // El connector inyecta el traceparent hijo de la traza original
+                .addMetadata(TracingMetadata.withCurrent(TraceContexts.fromTraceParent(command.traceParent())));
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,14 @@
+package pe.com.topup.worker;
+
+import java.util.UUID;
+
+/**
+ * Raised inside a processing transaction when the request turns out to be final
+ * already (a redelivered event), so the transaction rolls back its debit.
+ */
+class DuplicateEventException extends RuntimeException {
+
+    DuplicateEventException(UUID rechargeId) {
+        super("Recharge request already final or unknown: " + rechargeId, null, false, false);
+    }
+}
@@ -0,0 +1,148 @@
+package pe.com.topup.worker;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks on a fixed number of lanes, choosing the lane by key hash: tasks with
+ * the same key run one at a time in submission order, tasks on different lanes run
+ * concurrently. At most maxInFlight tasks are queued or running; beyond that,
+ * {@link #submit(String, Supplier)} completes only when one finishes.
+ * <p>
+ * Designed for a single submitter that waits for each submit before the next
+ * one, like an {@code @Incoming} method: only one submit can be waiting for room.
+ * </p>
+ */
+final class KeyOrderedExecutor {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(KeyOrderedExecutor.class);
+
+    private final Lane[] lanes;
+    private final int maxInFlight;
+
+    // Guarded by this
+    private int inFlight;
+    private UniEmitter<? super Void> waiter;
+
+    KeyOrderedExecutor(int workers, int maxInFlight) {
+        this.lanes = new Lane[Math.max(1, workers)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Queues a task behind the previous tasks with the same key.
+     *
+     * @param key  The ordering key (null is a key like any other).
+     * @param task The task; subscribed when its turn comes.
+     * @return A Uni that completes once the task is accepted, not when it finishes.
+     */
+    Uni<Void> submit(String key, Supplier<Uni<Void>> task) {
+        Lane lane = lanes[Math.floorMod(Objects.hashCode(key), lanes.length)];
+        return acquire().invoke(() -> lane.enqueue(task));
+    }
+
+    private Uni<Void> acquire() {
+        return Uni.createFrom().emitter(emitter -> {
+            boolean acquired;
+            synchronized (this) {
+                acquired = inFlight < maxInFlight;
+                if (acquired) {
+                    inFlight++;
+                } else {
+                    waiter = emitter;
+                }
+            }
+            if (acquired) {
+                emitter.complete(null);
+            }
+        });
+    }
+
+    private void release() {
+        UniEmitter<? super Void> next;
+        synchronized (this) {
+            next = waiter;
+            if (next != null) {
+                // El permiso pasa directamente al submit que esperaba
+                waiter = null;
+            } else {
+                inFlight--;
+            }
+        }
+        if (next != null) {
+            next.complete(null);
+        }
+    }
+
+    private final class Lane {
+        private static final int SUBSCRIBING = 0;
+        private static final int PENDING = 1;
+        private static final int COMPLETED = 2;
+
+        private final Queue<Supplier<Uni<Void>>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        void enqueue(Supplier<Uni<Void>> task) {
+            queue.add(task);
+            drain();
+        }
+
+        private void drain() {
+            while (running.compareAndSet(false, true)) {
+                Supplier<Uni<Void>> next;
+                while ((next = queue.poll()) != null) {
+                    if (!runInline(next)) {
+                        // Sigue en curso: finished() retoma la lane cuando termine
+                        return;
+                    }
+                    release();
+                }
+                running.set(false);
+                // Una tarea pudo llegar entre el poll vacío y la liberación de la lane
+                if (queue.isEmpty()) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Subscribes to a task.
+         *
+         * @return true if the task completed during the subscription; the caller
+         *         then continues with the next one instead of recursing.
+         */
+        private boolean runInline(Supplier<Uni<Void>> task) {
+            Uni<Void> work;
+            try {
+                work = task.get();
+            } catch (RuntimeException e) {
+                work = Uni.createFrom().failure(e);
+            }
+            AtomicInteger state = new AtomicInteger(SUBSCRIBING);
+            work.subscribe().with(ok -> finished(state), t -> {
+                LOG.errorf(t, "Task failed in key-ordered lane");
+                finished(state);
+            });
+            return !state.compareAndSet(SUBSCRIBING, PENDING);
+        }
+
+        private void finished(AtomicInteger state) {
+            if (state.compareAndSet(SUBSCRIBING, COMPLETED)) {
+                // Terminó dentro de subscribe: el bucle de drain() sigue con la próxima
+                return;
+            }
+            release();
+            running.set(false);
+            drain();
+        }
+    }
+}
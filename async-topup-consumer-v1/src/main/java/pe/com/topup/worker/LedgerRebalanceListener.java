@@ -0,0 +1,34 @@
+package pe.com.topup.worker;
+
+import io.smallrye.common.annotation.Identifier;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumerRebalanceListener;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Collection;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Hands carrier ownership over on rebalance: before partitions are revoked the
+ * ledger flushes and checkpoints everything and drops its balances, so the new
+ * owner rebuilds them from the database. Carriers are not mapped back to
+ * partitions; every loaded balance is dropped and reloaded on next use.
+ */
+@ApplicationScoped
+@Identifier("topup-ledger-rebalance")
+public class LedgerRebalanceListener implements KafkaConsumerRebalanceListener {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(LedgerRebalanceListener.class);
+
+    @Inject
+    WalletLedger ledger;
+
+    @Override
+    public void onPartitionsRevoked(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        LOG.infof("Partitions revoked %s: draining ledger", partitions);
+        ledger.drain();
+    }
+}
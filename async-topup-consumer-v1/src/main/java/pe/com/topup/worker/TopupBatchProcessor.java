@@ -0,0 +1,308 @@
+package pe.com.topup.worker;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.KafkaRecord;
+import io.smallrye.reactive.messaging.kafka.KafkaRecordBatch;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.avro.specific.SpecificRecord;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+import pe.com.topup.audit.AuditSink;
+import pe.com.topup.config.WalletConfig;
+import pe.com.topup.dedupe.ProcessedEventFilter;
+import pe.com.topup.entity.BalanceWallet;
+import pe.com.topup.entity.BalanceWalletStripe;
+import pe.com.topup.entity.ProcessAudit;
+import pe.com.topup.observability.TopupMetrics;
+import pe.com.topup.repository.BalanceWalletRepository;
+import pe.com.topup.repository.BalanceWalletStripeRepository;
+import pe.com.topup.repository.RechargeRequestRepository;
+
+/**
+ * Batch consumption mode (profile "batch"): applies a whole Kafka poll in one transaction.
+ * <p>
+ * The wallets involved are locked once, every event is decided COMPLETED/FAILED in
+ * arrival order against running balances kept in memory, and the outcome is written
+ * with one net debit per wallet, one status UPDATE per final status and the audits
+ * handed to the {@link AuditSink} (one multi-row INSERT in SYNC mode). With striped
+ * wallets the stripes of those wallets are locked too and each net debit is drawn
+ * from the unallocated balance first, then from the richest stripes. Offsets
+ * are acknowledged only after that transaction has committed. If the batch
+ * transaction fails, its events are retried one by one through
+ * {@link TopupProcessor#handle(TopupCommand)}.
+ * </p>
+ */
+@ApplicationScoped
+public class TopupBatchProcessor {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(TopupBatchProcessor.class);
+
+    @Inject
+    BalanceWalletRepository balanceWalletRepository;
+
+    @Inject
+    BalanceWalletStripeRepository balanceWalletStripeRepository;
+
+    @Inject
+    WalletConfig walletConfig;
+
+    @Inject
+    RechargeRequestRepository rechargeRequestRepository;
+
+    @Inject
+    AuditSink auditSink;
+
+    @Inject
+    TopupProcessor singleProcessor;
+
+    @Inject
+    TopupStatusNotifier statusNotifier;
+
+    @Inject
+    ProcessedEventFilter eventFilter;
+
+    @Inject
+    TopupMetrics metrics;
+
+    @Incoming("topup-consumer-batch")
+    public Uni<Void> process(KafkaRecordBatch<String, SpecificRecord> batch) {
+        long startNanos = System.nanoTime();
+        List<TopupCommand> commands = new ArrayList<>(batch.getRecords().size());
+        for (KafkaRecord<String, SpecificRecord> record : batch.getRecords()) {
+            TopupCommand command = TopupCommand.from(record.getKey(), record.getPayload(), record.getHeaders());
+            if (command == null) {
+                continue;
+            }
+            if (eventFilter.check(command.rechargeId()) == ProcessedEventFilter.Verdict.PROCESSED) {
+                LOG.infof("Skipping duplicate RequestId: %s (recently processed)", command.rechargeId());
+                metrics.outcome(command, "DUPLICATE");
+                continue;
+            }
+            commands.add(command);
+        }
+        LOG.infof("Starting batch of %d events (%d valid)", batch.getRecords().size(), commands.size());
+        if (commands.isEmpty()) {
+            return Uni.createFrom().completionStage(batch.ack());
+        }
+
+        return Panache.withTransaction(() -> apply(commands))
+                .call(outcomes -> auditSink.writeAfterCommit(toAudits(outcomes)))
+                // Notificamos los estados finales recién cuando la transacción confirmó
+                .invoke(outcomes -> outcomes.forEach(
+                        outcome -> statusNotifier.notify(outcome.rechargeId().toString(), outcome.status())))
+                .invoke(outcomes -> outcomes.forEach(
+                        outcome -> metrics.finished(outcome.command(), outcome.status(), startNanos)))
+                .invoke(() -> commands.forEach(command -> eventFilter.markProcessed(command.rechargeId())))
+                .invoke(outcomes -> LOG.infof("Batch of %d events committed", outcomes.size()))
+                .replaceWithVoid()
+                .onFailure().recoverWithUni(t -> {
+                    LOG.errorf(t, "Batch of %d events failed, retrying one by one", commands.size());
+                    return Multi.createFrom().iterable(commands)
+                            .onItem().transformToUniAndConcatenate(singleProcessor::handle)
+                            .collect().last()
+                            .replaceWithVoid();
+                })
+                .chain(() -> Uni.createFrom().completionStage(batch.ack()));
+    }
+
+    Uni<List<Outcome>> apply(List<TopupCommand> polled) {
+        // Un mismo ID dos veces en el poll: ninguna copia es final todavía, el filtro de terminales no la ve
+        List<TopupCommand> commands = withoutRepeats(polled);
+        Set<String> carriers = new LinkedHashSet<>();
+        for (TopupCommand command : commands) {
+            carriers.add(command.carrier().toLowerCase(Locale.ROOT));
+        }
+
+        List<UUID> rechargeIds = new ArrayList<>(commands.size());
+        for (TopupCommand command : commands) {
+            rechargeIds.add(command.rechargeId());
+        }
+
+        // Mismo orden de bloqueo que el modo normal: wallets primero, solicitudes después
+        return balanceWalletRepository.lockByOperatorNames(carriers)
+                .chain(wallets -> lockStripes(wallets)
+                        .chain(stripes -> rechargeRequestRepository.lockAndFindTerminal(rechargeIds)
+                                .chain(terminal -> decideAndWrite(withoutDuplicates(commands, terminal),
+                                        wallets, stripes))));
+    }
+
+    /**
+     * Keeps the first event of each recharge ID in the poll; later copies are
+     * counted as duplicates, so a request is never debited twice in one batch.
+     */
+    private List<TopupCommand> withoutRepeats(List<TopupCommand> commands) {
+        Set<UUID> seen = new HashSet<>();
+        List<TopupCommand> unique = new ArrayList<>(commands.size());
+        for (TopupCommand command : commands) {
+            if (seen.add(command.rechargeId())) {
+                unique.add(command);
+            } else {
+                LOG.infof("Skipping duplicate RequestId: %s (repeated in batch)", command.rechargeId());
+                metrics.outcome(command, "DUPLICATE");
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Drops redelivered events whose request is already final, so they are neither
+     * debited nor audited again.
+     */
+    private static List<TopupCommand> withoutDuplicates(List<TopupCommand> commands, Set<UUID> terminal) {
+        if (terminal.isEmpty()) {
+            return commands;
+        }
+        List<TopupCommand> fresh = new ArrayList<>(commands.size() - terminal.size());
+        for (TopupCommand command : commands) {
+            if (terminal.contains(command.rechargeId())) {
+                LOG.infof("Skipping duplicate RequestId: %s (already final)", command.rechargeId());
+            } else {
+                fresh.add(command);
+            }
+        }
+        return fresh;
+    }
+
+    private Uni<List<BalanceWalletStripe>> lockStripes(List<BalanceWallet> wallets) {
+        if (!walletConfig.striped() || wallets.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        List<Integer> operatorIds = new ArrayList<>(wallets.size());
+        for (BalanceWallet wallet : wallets) {
+            operatorIds.add(wallet.operatorId);
+        }
+        return balanceWalletStripeRepository.lockByOperatorIds(operatorIds);
+    }
+
+    private Uni<List<Outcome>> decideAndWrite(List<TopupCommand> commands, List<BalanceWallet> wallets,
+            List<BalanceWalletStripe> stripes) {
+        Map<Integer, List<BalanceWalletStripe>> stripesByOperator = new HashMap<>();
+        for (BalanceWalletStripe stripe : stripes) {
+            stripesByOperator.computeIfAbsent(stripe.operatorId, id -> new ArrayList<>()).add(stripe);
+        }
+        Map<String, BalanceWallet> walletsByName = new HashMap<>();
+        Map<String, BigDecimal> balances = new HashMap<>();
+        for (BalanceWallet wallet : wallets) {
+            String name = wallet.operatorName.toLowerCase(Locale.ROOT);
+            if (walletsByName.putIfAbsent(name, wallet) == null) {
+                BigDecimal available = wallet.currentBalance;
+                for (BalanceWalletStripe stripe : stripesByOperator.getOrDefault(wallet.operatorId, List.of())) {
+                    available = available.add(stripe.balance);
+                }
+                balances.put(name, available);
+            }
+        }
+
+        // Decisión en orden de llegada contra el saldo acumulado en memoria
+        Map<Integer, BigDecimal> debits = new LinkedHashMap<>();
+        List<Outcome> outcomes = new ArrayList<>(commands.size());
+        for (TopupCommand command : commands) {
+            String name = command.carrier().toLowerCase(Locale.ROOT);
+            BalanceWallet wallet = walletsByName.get(name);
+            if (wallet == null) {
+                outcomes.add(new Outcome(command, "FAILED",
+                        "Operador no encontrado: " + command.carrier()));
+                continue;
+            }
+            BigDecimal balance = balances.get(name);
+            if (balance.compareTo(command.amount()) >= 0) {
+                balances.put(name, balance.subtract(command.amount()));
+                debits.merge(wallet.operatorId, command.amount(), BigDecimal::add);
+                outcomes.add(new Outcome(command, "COMPLETED", "Proceso exitoso"));
+            } else {
+                LOG.warnf("Insufficient balance for RequestId: %s. Wallet Balance: %s, Required: %s",
+                        command.rechargeId(), balance, command.amount());
+                outcomes.add(new Outcome(command, "FAILED", "Saldo insuficiente"));
+            }
+        }
+
+        List<UUID> completed = new ArrayList<>();
+        List<UUID> failed = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            ("COMPLETED".equals(outcome.status()) ? completed : failed).add(outcome.rechargeId());
+        }
+
+        Uni<?> walletWrites;
+        if (walletConfig.striped()) {
+            // Filas ya bloqueadas y gestionadas por la sesión: se escriben en el flush del commit
+            debits.forEach((operatorId, amount) -> drawFromStripes(
+                    wallets, stripesByOperator.getOrDefault(operatorId, List.of()), operatorId, amount));
+            walletWrites = Uni.createFrom().voidItem();
+        } else {
+            walletWrites = Multi.createFrom().iterable(debits.entrySet())
+                    .onItem().transformToUniAndConcatenate(debit -> balanceWalletRepository.update(
+                            "currentBalance = currentBalance - ?1 where operatorId = ?2",
+                            debit.getValue(), debit.getKey()))
+                    .collect().asList();
+        }
+
+        // La sesión reactiva no admite operaciones concurrentes: todo va en secuencia
+        return walletWrites
+                .chain(() -> rechargeRequestRepository.updateStatus(completed, "COMPLETED"))
+                .chain(() -> rechargeRequestRepository.updateStatus(failed, "FAILED"))
+                .chain(() -> auditSink.writeInTransaction(toAudits(outcomes)))
+                .invoke(() -> LOG.debugf("Batch applied: %d debits, %d COMPLETED, %d FAILED",
+                        debits.size(), completed.size(), failed.size()))
+                .replaceWith(outcomes);
+    }
+
+    /**
+     * Draws a net debit from a striped wallet: the unallocated balance on the
+     * balance_wallets row first, then the stripes from richest to poorest. The
+     * caller has already checked that their sum covers the amount.
+     */
+    private static void drawFromStripes(List<BalanceWallet> wallets, List<BalanceWalletStripe> stripes,
+            Integer operatorId, BigDecimal amount) {
+        BigDecimal remaining = amount;
+        for (BalanceWallet wallet : wallets) {
+            if (wallet.operatorId.equals(operatorId)) {
+                BigDecimal taken = remaining.min(wallet.currentBalance.max(BigDecimal.ZERO));
+                wallet.currentBalance = wallet.currentBalance.subtract(taken);
+                remaining = remaining.subtract(taken);
+                break;
+            }
+        }
+        List<BalanceWalletStripe> richestFirst = new ArrayList<>(stripes);
+        richestFirst.sort((a, b) -> b.balance.compareTo(a.balance));
+        for (BalanceWalletStripe stripe : richestFirst) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal taken = remaining.min(stripe.balance.max(BigDecimal.ZERO));
+            stripe.balance = stripe.balance.subtract(taken);
+            remaining = remaining.subtract(taken);
+        }
+    }
+
+    private static List<ProcessAudit> toAudits(List<Outcome> outcomes) {
+        List<ProcessAudit> audits = new ArrayList<>(outcomes.size());
+        for (Outcome outcome : outcomes) {
+            ProcessAudit audit = new ProcessAudit();
+            audit.rechargeId = outcome.rechargeId();
+            audit.errorDetails = outcome.details();
+            audits.add(audit);
+        }
+        return audits;
+    }
+
+    private record Outcome(TopupCommand command, String status, String details) {
+
+        UUID rechargeId() {
+            return command.rechargeId();
+        }
+    }
+}
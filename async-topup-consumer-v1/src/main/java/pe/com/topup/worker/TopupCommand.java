@@ -0,0 +1,116 @@
+package pe.com.topup.worker;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.model.TopUpEventV2;
+import pe.com.topup.repository.RechargeIds;
+
+/**
+ * A top-up to apply, parsed and validated from a {@link TopUpEvent} or a {@link TopUpEventV2}.
+ * Decouples the processing logic from the Avro wire format, so both schema
+ * versions can share the topic while producers migrate.
+ *
+ * @param rechargeId  The recharge ID (BINARY(16) in the database).
+ * @param phoneNumber The destination phone number.
+ * @param amount      The amount to debit from the carrier's wallet.
+ * @param carrier     The carrier name as sent by the producer.
+ * @param key         The Kafka record key the event arrived with (may be null).
+ * @param createdAt   Epoch millis when the request was stored by the sync API, or 0 if unknown.
+ * @param traceParent W3C traceparent of the record, or null if it carried none.
+ */
+public record TopupCommand(UUID rechargeId, String phoneNumber, BigDecimal amount, String carrier, String key,
+        long createdAt, String traceParent) {
+
+    /**
+     * Header set by the producer with the epoch millis the request was stored.
+     */
+    public static final String CREATED_AT_HEADER = "x-topup-created-at";
+
+    /**
+     * W3C trace context header.
+     */
+    public static final String TRACE_PARENT_HEADER = "traceparent";
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(TopupCommand.class);
+
+    /**
+     * Parses an event of either schema version. Malformed events are logged and
+     * skipped, since retrying them would fail the same way.
+     *
+     * @param key     The Kafka record key.
+     * @param event   The event ({@link TopUpEvent} or {@link TopUpEventV2}).
+     * @param headers The record headers (may be null).
+     * @return The command, or null if the event cannot be processed.
+     */
+    public static TopupCommand from(String key, SpecificRecord event, Headers headers) {
+        if (event instanceof TopUpEventV2 v2) {
+            return fromV2(key, v2, headers);
+        }
+        if (event instanceof TopUpEvent v1) {
+            return fromV1(key, v1, headers);
+        }
+        if (event == null) {
+            LOG.warn("Received null event, ignoring.");
+        } else {
+            LOG.errorf("Unsupported event type: %s", event.getSchema().getFullName());
+        }
+        return null;
+    }
+
+    private static TopupCommand fromV2(String key, TopUpEventV2 event, Headers headers) {
+        // Types are enforced by the schema: no parsing left to fail
+        long createdAt = event.getCreatedAt().toEpochMilli();
+        return new TopupCommand(RechargeIds.fromBytes(event.getRequestId().bytes()), event.getPhoneNumber(),
+                BigDecimal.valueOf(event.getAmountCents(), 2), event.getCarrier().name(), key,
+                createdAt > 0 ? createdAt : createdAtHeader(headers), header(headers, TRACE_PARENT_HEADER));
+    }
+
+    private static TopupCommand fromV1(String key, TopUpEvent event, Headers headers) {
+        BigDecimal amount;
+        try {
+            // Handle case where amount comes as String
+            amount = new BigDecimal(event.getAmount().toString());
+        } catch (Exception e) {
+            LOG.errorf("Invalid amount format: %s", event.getAmount());
+            return null;
+        }
+
+        UUID rechargeId;
+        try {
+            // recharge_id is a time-ordered UUID stored as BINARY(16)
+            rechargeId = UUID.fromString(event.getRequestId());
+        } catch (Exception e) {
+            LOG.errorf("Invalid requestId format: %s", event.getRequestId());
+            return null;
+        }
+        // Use carrier directly from event
+        String phoneNumber = event.getPhoneNumber() != null ? event.getPhoneNumber().toString() : "";
+        String carrier = event.getCarrier() != null ? event.getCarrier().toString() : "UNKNOWN";
+        return new TopupCommand(rechargeId, phoneNumber, amount, carrier, key, createdAtHeader(headers),
+                header(headers, TRACE_PARENT_HEADER));
+    }
+
+    private static long createdAtHeader(Headers headers) {
+        String createdAt = header(headers, CREATED_AT_HEADER);
+        if (createdAt != null) {
+            try {
+                return Long.parseLong(createdAt);
+            } catch (NumberFormatException e) {
+                LOG.debugf("Invalid %s header: %s", CREATED_AT_HEADER, createdAt);
+            }
+        }
+        return 0;
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers != null ? headers.lastHeader(name) : null;
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,88 @@
+package pe.com.topup.worker;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.avro.specific.SpecificRecord;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.time.Duration;
+import java.util.List;
+
+import pe.com.topup.dedupe.ProcessedEventFilter;
+import pe.com.topup.observability.TopupMetrics;
+import pe.com.topup.repository.RechargeRequestRepository;
+
+/**
+ * Ledger consumption mode (profile "ledger"): debits are decided against the
+ * in-memory {@link WalletLedger} and each message is acked later, once the flush
+ * holding its outcome has committed. Requires the producer to key events by
+ * carrier (TOPUP_DISPATCHER_PARTITION_KEY=CARRIER), so each carrier has a single writer.
+ * <p>
+ * Every debit goes through the ledger: a direct debit of balance_wallets would
+ * not be seen by the balances held in memory. If a carrier's balance cannot be
+ * loaded, the event is retried in place, and the retry tiers are disabled in
+ * this profile.
+ * </p>
+ */
+@ApplicationScoped
+public class TopupLedgerProcessor {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(TopupLedgerProcessor.class);
+
+    private static final Duration LOAD_RETRY_INITIAL_BACKOFF = Duration.ofMillis(100);
+
+    private static final Duration LOAD_RETRY_MAX_BACKOFF = Duration.ofSeconds(5);
+
+    @Inject
+    WalletLedger ledger;
+
+    @Inject
+    ProcessedEventFilter eventFilter;
+
+    @Inject
+    RechargeRequestRepository rechargeRequestRepository;
+
+    @Inject
+    TopupMetrics metrics;
+
+    @Incoming("topup-consumer-ledger")
+    public Uni<Void> process(Message<SpecificRecord> message) {
+        IncomingKafkaRecordMetadata<?, ?> metadata = message.getMetadata(IncomingKafkaRecordMetadata.class)
+                .orElse(null);
+        TopupCommand command = TopupCommand.from(metadata != null ? (String) metadata.getKey() : null,
+                message.getPayload(), metadata != null ? metadata.getHeaders() : null);
+        if (command == null) {
+            return Uni.createFrom().completionStage(message.ack());
+        }
+        switch (eventFilter.check(command.rechargeId())) {
+            case PROCESSED:
+                LOG.infof("Skipping duplicate RequestId: %s (recently processed)", command.rechargeId());
+                metrics.outcome(command, "DUPLICATE");
+                return Uni.createFrom().completionStage(message.ack());
+            case POSSIBLE_DUPLICATE:
+                return rechargeRequestRepository.findTerminal(List.of(command.rechargeId()))
+                        .chain(terminal -> {
+                            if (terminal.contains(command.rechargeId())) {
+                                LOG.infof("Skipping duplicate RequestId: %s (already final)", command.rechargeId());
+                                metrics.outcome(command, "DUPLICATE");
+                                eventFilter.markProcessed(command.rechargeId());
+                                return Uni.createFrom().completionStage(message.ack());
+                            }
+                            return submit(command, message);
+                        });
+            default:
+                return submit(command, message);
+        }
+    }
+
+    private Uni<Void> submit(TopupCommand command, Message<SpecificRecord> message) {
+        // Solo falla la carga del saldo: sin decisión en memoria no hay débito posible fuera del ledger
+        return ledger.submit(command, message)
+                .onFailure().invoke(t -> LOG.errorf(t, "Ledger could not load the balance for RequestId: %s,"
+                        + " retrying", command.rechargeId()))
+                .onFailure().retry().withBackOff(LOAD_RETRY_INITIAL_BACKOFF, LOAD_RETRY_MAX_BACKOFF).indefinitely();
+    }
+}
@@ -0,0 +1,78 @@
+package pe.com.topup.worker;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.providers.locals.LocalContextMetadata;
+import io.vertx.core.Context;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.avro.specific.SpecificRecord;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import pe.com.topup.config.ParallelConfig;
+
+/**
+ * Parallel consumption mode (profile "parallel"): fans the records of each
+ * partition out to {@link ParallelConfig#workers()} lanes, keeping the order of
+ * events with the same key (record key, carrier or phone number).
+ * <p>
+ * Each event runs through {@link TopupProcessor#handle(TopupCommand)} on its own
+ * message context and is acked when done. Acks arrive out of order; the throttled
+ * commit strategy only commits an offset once every record before it is acked,
+ * so a restart never skips an unfinished record. In-flight records are bounded
+ * by {@link ParallelConfig#maxInFlight()}.
+ * </p>
+ */
+@ApplicationScoped
+public class TopupParallelProcessor {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(TopupParallelProcessor.class);
+
+    private final TopupProcessor singleProcessor;
+    private final ParallelConfig config;
+    private final KeyOrderedExecutor executor;
+
+    @Inject
+    public TopupParallelProcessor(TopupProcessor singleProcessor, ParallelConfig config) {
+        this.singleProcessor = singleProcessor;
+        this.config = config;
+        this.executor = new KeyOrderedExecutor(config.workers(), config.maxInFlight());
+    }
+
+    @Incoming("topup-consumer-parallel")
+    public Uni<Void> process(Message<SpecificRecord> message) {
+        IncomingKafkaRecordMetadata<?, ?> metadata = message.getMetadata(IncomingKafkaRecordMetadata.class)
+                .orElse(null);
+        TopupCommand command = TopupCommand.from(metadata != null ? (String) metadata.getKey() : null,
+                message.getPayload(), metadata != null ? metadata.getHeaders() : null);
+        if (command == null) {
+            return Uni.createFrom().completionStage(message.ack());
+        }
+        Context context = message.getMetadata(LocalContextMetadata.class)
+                .map(LocalContextMetadata::context)
+                .orElse(null);
+        return executor.submit(orderKey(command), () -> {
+            Uni<Void> work = Uni.createFrom().deferred(() -> singleProcessor.handle(command));
+            if (context != null) {
+                // Cada evento corre en el contexto de su propio mensaje: sesiones reactivas independientes
+                work = work.runSubscriptionOn(task -> context.runOnContext(v -> task.run()));
+            }
+            return work
+                    .onFailure().invoke(t -> LOG.errorf(t, "Error processing RequestId: %s", command.rechargeId()))
+                    .onFailure().recoverWithNull()
+                    .chain(() -> Uni.createFrom().completionStage(message.ack()));
+        });
+    }
+
+    private String orderKey(TopupCommand command) {
+        switch (config.orderBy()) {
+            case CARRIER:
+                return command.carrier();
+            case PHONE_NUMBER:
+                return command.phoneNumber();
+            default:
+                return command.key() != null ? command.key() : command.carrier();
+        }
+    }
+}
@@ -6,13 +6,23 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 
+import pe.com.topup.audit.AuditSink;
+import pe.com.topup.config.WalletConfig;
+import pe.com.topup.dedupe.ProcessedEventFilter;
 import pe.com.topup.entity.ProcessAudit;
-import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.observability.TopupMetrics;
 import pe.com.topup.repository.BalanceWalletRepository;
-import pe.com.topup.repository.ProcessAuditRepository;
+import pe.com.topup.repository.BalanceWalletStripeRepository;
+import pe.com.topup.repository.OperatorIdCache;
 import pe.com.topup.repository.RechargeRequestRepository;
+import pe.com.topup.retry.FailureClassifier;
+import pe.com.topup.retry.RetryPublisher;
 
 @ApplicationScoped
 public class TopupProcessor {
@@ -22,98 +32,247 @@ public class TopupProcessor {
     @Inject
     BalanceWalletRepository balanceWalletRepository;
 
+    @Inject
+    BalanceWalletStripeRepository balanceWalletStripeRepository;
+
+    @Inject
+    WalletConfig walletConfig;
+
+    @Inject
+    OperatorIdCache operatorIdCache;
+
     @Inject
     RechargeRequestRepository rechargeRequestRepository;
 
     @Inject
-    ProcessAuditRepository processAuditRepository;
+    AuditSink auditSink;
+
+    @Inject
+    TopupStatusNotifier statusNotifier;
+
+    @Inject
+    ProcessedEventFilter eventFilter;
+
+    @Inject
+    RetryPublisher retryPublisher;
+
+    @Inject
+    TopupMetrics metrics;
 
     @Incoming("topup-consumer")
-    public Uni<Void> process(TopUpEvent event) {
-        if (event == null) {
-            LOG.warn("Received null event, ignoring.");
+    public Uni<Void> process(ConsumerRecord<String, SpecificRecord> record) {
+        // The record key is the producer's partition key (carrier by default): every event with the
+        // same key arrives on the same partition and is processed here one at a time, in order.
+        TopupCommand command = TopupCommand.from(record.key(), record.value(), record.headers());
+        if (command == null) {
             return Uni.createFrom().voidItem();
         }
+        LOG.infof("Starting processing for RequestId: %s, PhoneNumber: %s, Amount: %s, Key: %s",
+                command.rechargeId(), command.phoneNumber(), command.amount(), command.key());
+        return handle(command);
+    }
 
-        LOG.infof("Starting processing for RequestId: %s, PhoneNumber: %s, Amount: %s",
-                event.getRequestId(), event.getPhoneNumber(), event.getAmount());
+    /**
+     * Applies one top-up in its own transaction and publishes its final status.
+     * Also used by {@link TopupBatchProcessor} to retry a batch event by event.
+     * Redelivered events are skipped: the duplicate filter answers for most of them
+     * without a lookup, and the status UPDATE only moves requests that are not final
+     * yet, rolling the debit back otherwise.
+     *
+     * @param command The top-up to apply.
+     * @return A Uni that completes once the final status is stored.
+     */
+    public Uni<Void> handle(TopupCommand command) {
+        return handle(command, 0);
+    }
 
-        BigDecimal amount;
-        try {
-            // Handle case where amount comes as String
-            amount = new BigDecimal(event.getAmount().toString());
-        } catch (Exception e) {
-            LOG.errorf("Invalid amount format: %s", event.getAmount());
-            return Uni.createFrom().voidItem();
+    /**
+     * Same as {@link #handle(TopupCommand)} for a given delivery attempt. A transient
+     * error (deadlock, lost connection) leaves the request PENDING and moves the event
+     * to the next retry tier; once the tiers are used up, or on any other technical
+     * error, the request is marked FAILED and the event goes to the dead-letter topic.
+     *
+     * @param command The top-up to apply.
+     * @param attempt 0 for the first delivery, N for the event read from retry tier N.
+     * @return A Uni that completes once the final status is stored or the retry is published.
+     */
+    public Uni<Void> handle(TopupCommand command, int attempt) {
+        UUID requestId = command.rechargeId();
+        long startNanos = System.nanoTime();
+        switch (eventFilter.check(requestId)) {
+            case PROCESSED:
+                LOG.infof("Skipping duplicate RequestId: %s (recently processed)", requestId);
+                metrics.outcome(command, "DUPLICATE");
+                return Uni.createFrom().voidItem();
+            case POSSIBLE_DUPLICATE:
+                return rechargeRequestRepository.findTerminal(List.of(requestId))
+                        .chain(terminal -> {
+                            if (terminal.contains(requestId)) {
+                                LOG.infof("Skipping duplicate RequestId: %s (already final)", requestId);
+                                eventFilter.markProcessed(requestId);
+                                metrics.outcome(command, "DUPLICATE");
+                                return Uni.createFrom().voidItem();
+                            }
+                            return apply(command, attempt, startNanos);
+                        });
+            default:
+                return apply(command, attempt, startNanos);
         }
+    }
 
-        String requestId = event.getRequestId();
-        // Use carrier directly from event
-        String phoneNumber = event.getPhoneNumber() != null ? event.getPhoneNumber().toString() : "";
-        String carrier = event.getCarrier() != null ? event.getCarrier().toString() : "UNKNOWN";
+    private Uni<Void> apply(TopupCommand command, int attempt, long startNanos) {
+        UUID requestId = command.rechargeId();
+        BigDecimal amount = command.amount();
+        String phoneNumber = command.phoneNumber();
+        String carrier = command.carrier();
 
         LOG.debugf("Resolved Carrier: %s for PhoneNumber: %s", carrier, phoneNumber);
         LOG.debugf("Checking balance for Carrier: %s", carrier);
 
-        return Panache.withTransaction(() -> balanceWalletRepository.findByOperatorName(carrier)
-                .onItem().ifNotNull().transformToUni(wallet -> {
-                    LOG.infof("Wallet found for carrier %s. Current Balance: %s", carrier, wallet.currentBalance);
-                    if (wallet.currentBalance.compareTo(amount) >= 0) {
-                        LOG.infof("Sufficient balance. Deducting %s from wallet.", amount);
-                        // Saldo suficiente
-                        return balanceWalletRepository
-                                .update("currentBalance = currentBalance - ?1 where operatorId = ?2", amount,
-                                        wallet.operatorId)
-                                .chain(() -> {
-                                    LOG.info("Wallet updated. Updating recharge status to COMPLETED.");
-                                    return updateRechargeStatus(requestId, "COMPLETED");
-                                })
-                                .chain(() -> {
-                                    LOG.info("Status updated. Creating success audit.");
-                                    return createAudit(requestId, "Proceso exitoso");
-                                });
-                    } else {
-                        LOG.warnf("Insufficient balance for RequestId: %s. Wallet Balance: %s, Required: %s",
-                                requestId, wallet.currentBalance, amount);
-                        // Saldo insuficiente
+        return Panache.withTransaction(() -> operatorIdCache.operatorId(carrier)
+                .chain(operatorId -> {
+                    // Si no se encuentra el operador
+                    if (operatorId == null) {
+                        LOG.warnf("Operator not found for carrier: %s", carrier);
                         return updateRechargeStatus(requestId, "FAILED")
-                                .chain(() -> {
-                                    LOG.info("Status updated to FAILED. Creating failure audit.");
-                                    return createAudit(requestId, "Saldo insuficiente");
-                                });
+                                .chain(() -> createAudit(requestId, "Operador no encontrado: " + carrier))
+                                .map(audit -> new Outcome("FAILED", audit));
                     }
-                })
-                // Si no se encuentra el operador (wallet es null)
-                .onItem().ifNull().switchTo(() -> {
-                    LOG.warnf("Operator not found for carrier: %s", carrier);
-                    return updateRechargeStatus(requestId, "FAILED")
-                            .chain(() -> createAudit(requestId, "Operador no encontrado: " + carrier));
+                    // Débito condicional: la cantidad de filas afectadas decide el resultado
+                    return debit(operatorId, requestId, amount)
+                            .chain(debited -> {
+                                if (debited) {
+                                    LOG.infof("Deducted %s from wallet of carrier %s. Updating recharge status to COMPLETED.",
+                                            amount, carrier);
+                                    // Saldo suficiente
+                                    return updateRechargeStatus(requestId, "COMPLETED")
+                                            .chain(() -> {
+                                                LOG.info("Status updated. Creating success audit.");
+                                                return createAudit(requestId, "Proceso exitoso");
+                                            })
+                                            .map(audit -> new Outcome("COMPLETED", audit));
+                                }
+                                LOG.warnf("Insufficient balance for RequestId: %s. Carrier: %s, Required: %s",
+                                        requestId, carrier, amount);
+                                // Saldo insuficiente
+                                return updateRechargeStatus(requestId, "FAILED")
+                                        .chain(() -> {
+                                            LOG.info("Status updated to FAILED. Creating failure audit.");
+                                            return createAudit(requestId, "Saldo insuficiente");
+                                        })
+                                        .map(audit -> new Outcome("FAILED", audit));
+                            });
                 }))
+                // Notificamos el estado final recién cuando la transacción confirmó
+                .call(outcome -> auditSink.writeAfterCommit(List.of(outcome.audit())))
+                .invoke(outcome -> statusNotifier.notify(requestId.toString(), outcome.status()))
+                .invoke(outcome -> metrics.finished(command, outcome.status(), startNanos))
+                .invoke(() -> eventFilter.markProcessed(requestId))
                 .replaceWithVoid()
-                .onFailure().invoke(t -> LOG.errorf(t, "Error processing RequestId: %s", requestId))
-                .onFailure().recoverWithUni(t ->
-                // Error técnico dentro de la transacción o búsqueda
-                Panache.withTransaction(() -> {
-                    LOG.errorf("Recovering from error for RequestId: %s. Updating status to FAILED.", requestId);
-                    return updateRechargeStatus(requestId, "FAILED")
-                            .chain(() -> createAudit(requestId, "Error interno: " + t.getMessage()));
-                }).replaceWithVoid());
+                .onFailure(DuplicateEventException.class).recoverWithUni(() -> {
+                    LOG.infof("Skipping duplicate RequestId: %s (final status set by another delivery)", requestId);
+                    eventFilter.markProcessed(requestId);
+                    metrics.outcome(command, "DUPLICATE");
+                    return Uni.createFrom().voidItem();
+                })
+                .onFailure().invoke(t -> LOG.errorf(t, "Error processing RequestId: %s (attempt %d)", requestId, attempt))
+                .onFailure().recoverWithUni(t -> recover(command, attempt, startNanos, t));
     }
 
-    private Uni<Integer> updateRechargeStatus(String requestId, String status) {
+    /**
+     * Handles a technical error: transient ones go to the next retry tier without
+     * touching the request; the rest, and transient ones out of tiers, are stored
+     * as FAILED after the event is parked in the dead-letter topic.
+     */
+    private Uni<Void> recover(TopupCommand command, int attempt, long startNanos, Throwable failure) {
+        UUID requestId = command.rechargeId();
+        boolean transientFailure = FailureClassifier.isTransient(failure);
+        if (transientFailure && retryPublisher.canRetry(attempt)) {
+            LOG.warnf("Transient error for RequestId: %s. Scheduling retry %d.", requestId, attempt + 1);
+            return retryPublisher.retry(command, attempt, failure)
+                    .invoke(() -> metrics.outcome(command, "RETRY"))
+                    .onFailure().recoverWithUni(e -> {
+                        LOG.errorf(e, "Could not schedule retry for RequestId: %s", requestId);
+                        return markFailed(command, startNanos, "Error interno: " + failure.getMessage());
+                    });
+        }
+        String details = transientFailure
+                ? "Reintentos agotados: " + failure.getMessage()
+                : "Error interno: " + failure.getMessage();
+        return retryPublisher.deadLetter(command, attempt, failure)
+                .invoke(() -> metrics.outcome(command, "DEAD_LETTER"))
+                // El DLQ es best-effort: el estado FAILED se guarda igual
+                .onFailure().invoke(e -> LOG.errorf(e, "Could not publish RequestId: %s to the dead-letter topic",
+                        requestId))
+                .onFailure().recoverWithNull()
+                .chain(() -> markFailed(command, startNanos, details));
+    }
+
+    private Uni<Void> markFailed(TopupCommand command, long startNanos, String details) {
+        UUID requestId = command.rechargeId();
+        // Error técnico dentro de la transacción o búsqueda
+        return Panache.withTransaction(() -> {
+            LOG.errorf("Recovering from error for RequestId: %s. Updating status to FAILED.", requestId);
+            return updateRechargeStatus(requestId, "FAILED")
+                    .chain(() -> createAudit(requestId, details));
+        }).call(audit -> auditSink.writeAfterCommit(List.of(audit)))
+                .invoke(() -> statusNotifier.notify(requestId.toString(), "FAILED"))
+                .invoke(() -> metrics.finished(command, "FAILED", startNanos))
+                .invoke(() -> eventFilter.markProcessed(requestId))
+                .replaceWithVoid()
+                .onFailure(DuplicateEventException.class).recoverWithNull();
+    }
+
+    /**
+     * Debits the carrier's float. With striped wallets the stripe is chosen by the
+     * recharge ID's hash, so concurrent events of one carrier lock different rows;
+     * if that stripe cannot cover the amount the richest stripe is tried, and last
+     * the unallocated balance still on the balance_wallets row. Package-private so
+     * topup-benchmarks can run it against in-memory repositories.
+     */
+    Uni<Boolean> debit(Integer operatorId, UUID requestId, BigDecimal amount) {
+        if (!walletConfig.striped()) {
+            return balanceWalletRepository.debitIfSufficient(operatorId, amount);
+        }
+        int stripeNo = Math.floorMod(requestId.hashCode(), walletConfig.stripes());
+        return balanceWalletStripeRepository.debitIfSufficient(operatorId, stripeNo, amount)
+                .chain(debited -> debited
+                        ? Uni.createFrom().item(true)
+                        : balanceWalletStripeRepository.debitRichestIfSufficient(operatorId, amount))
+                .chain(debited -> debited
+                        ? Uni.createFrom().item(true)
+                        : balanceWalletRepository.debitIfSufficient(operatorId, amount));
+    }
+
+    /**
+     * Sets the final status unless the request already has one. Zero rows updated
+     * means a redelivered event: the transaction is failed so its debit rolls back.
+     */
+    private Uni<Integer> updateRechargeStatus(UUID requestId, String status) {
         LOG.debugf("Updating recharge request %s to status %s", requestId, status);
-        return rechargeRequestRepository.update("status = ?1, updatedAt = ?2 where rechargeId = ?3",
-                status, LocalDateTime.now(), requestId)
-                .onItem().invoke(count -> LOG.debugf("Updated %d rows for recharge request %s", count, requestId));
+        return rechargeRequestRepository.update("status = ?1, updatedAt = ?2 where rechargeId = ?3 and status not in ?4",
+                status, LocalDateTime.now(), requestId, RechargeRequestRepository.TERMINAL_STATUSES)
+                .onItem().invoke(count -> LOG.debugf("Updated %d rows for recharge request %s", count, requestId))
+                .onItem().transformToUni(count -> count == 0
+                        ? Uni.createFrom().failure(new DuplicateEventException(requestId))
+                        : Uni.createFrom().item(count));
     }
 
-    private Uni<ProcessAudit> createAudit(String requestId, String details) {
+    /**
+     * Builds the audit of an outcome and hands it to the sink inside the transaction
+     * (written there only in SYNC mode); callers pass it to
+     * {@link AuditSink#writeAfterCommit(List)} once committed.
+     */
+    private Uni<ProcessAudit> createAudit(UUID requestId, String details) {
         LOG.debugf("Creating audit for %s: %s", requestId, details);
         ProcessAudit audit = new ProcessAudit();
         audit.rechargeId = requestId;
         audit.errorDetails = details;
-        return processAuditRepository.persist(audit)
-                .onItem().invoke(a -> LOG.debugf("Audit created for %s", requestId));
+        return auditSink.writeInTransaction(List.of(audit))
+                .replaceWith(audit);
+    }
+
+    private record Outcome(String status, ProcessAudit audit) {
     }
 
 }
@@ -0,0 +1,91 @@
+package pe.com.topup.worker;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.providers.locals.LocalContextMetadata;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import pe.com.topup.retry.RetryPublisher;
+
+/**
+ * Consumes the retry tiers written by {@link RetryPublisher}. Each record waits
+ * until its not-before time and then runs through
+ * {@link TopupProcessor#handle(TopupCommand, int)} with the attempt from its
+ * headers, so a new failure moves it to the next tier or to the dead-letter topic.
+ * <p>
+ * Every record of a tier has the same delay, so records become due in offset
+ * order and waiting for the head of the partition never delays a record that is
+ * already due. The main topic is not affected by any of these waits.
+ * </p>
+ */
+@ApplicationScoped
+public class TopupRetryProcessor {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(TopupRetryProcessor.class);
+
+    private final TopupProcessor singleProcessor;
+    private final Vertx vertx;
+
+    @Inject
+    public TopupRetryProcessor(TopupProcessor singleProcessor, Vertx vertx) {
+        this.singleProcessor = singleProcessor;
+        this.vertx = vertx;
+    }
+
+    @Incoming("topup-retry-1")
+    public Uni<Void> retryTier1(Message<SpecificRecord> message) {
+        return retry(message);
+    }
+
+    @Incoming("topup-retry-2")
+    public Uni<Void> retryTier2(Message<SpecificRecord> message) {
+        return retry(message);
+    }
+
+    @Incoming("topup-retry-3")
+    public Uni<Void> retryTier3(Message<SpecificRecord> message) {
+        return retry(message);
+    }
+
+    private Uni<Void> retry(Message<SpecificRecord> message) {
+        IncomingKafkaRecordMetadata<?, ?> metadata = message.getMetadata(IncomingKafkaRecordMetadata.class)
+                .orElse(null);
+        Headers headers = metadata != null ? metadata.getHeaders() : new RecordHeaders();
+        TopupCommand command = TopupCommand.from(metadata != null ? (String) metadata.getKey() : null,
+                message.getPayload(), headers);
+        if (command == null) {
+            return Uni.createFrom().completionStage(message.ack());
+        }
+        int attempt = RetryPublisher.attempt(headers);
+        long waitMillis = RetryPublisher.notBefore(headers) - System.currentTimeMillis();
+        Context context = message.getMetadata(LocalContextMetadata.class)
+                .map(LocalContextMetadata::context)
+                .orElse(null);
+
+        LOG.infof("Retrying RequestId: %s, attempt %d, due in %d ms", command.rechargeId(), attempt,
+                Math.max(0, waitMillis));
+        Uni<Void> due = waitMillis > 0
+                ? Uni.createFrom().emitter(emitter -> vertx.setTimer(waitMillis, id -> emitter.complete(null)))
+                : Uni.createFrom().voidItem();
+        return due
+                .chain(() -> {
+                    Uni<Void> work = Uni.createFrom().deferred(() -> singleProcessor.handle(command, attempt));
+                    if (context != null) {
+                        // Mismo contexto del mensaje que en el flujo principal: la sesión reactiva vive ahí
+                        work = work.runSubscriptionOn(task -> context.runOnContext(v -> task.run()));
+                    }
+                    return work;
+                })
+                .onFailure().invoke(t -> LOG.errorf(t, "Error retrying RequestId: %s", command.rechargeId()))
+                .onFailure().recoverWithNull()
+                .chain(() -> Uni.createFrom().completionStage(message.ack()));
+    }
+}
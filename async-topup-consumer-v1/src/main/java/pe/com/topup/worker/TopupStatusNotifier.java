@@ -0,0 +1,43 @@
+package pe.com.topup.worker;
+
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+
+/**
+ * Publishes the final status of a recharge once its transaction has committed,
+ * so the sync API can answer status lookups and push completions without
+ * querying recharge_requests.
+ * <p>
+ * Notifications are best-effort: a lost one only means the API falls back to
+ * reading the table.
+ * </p>
+ */
+@ApplicationScoped
+public class TopupStatusNotifier {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(TopupStatusNotifier.class);
+
+    @Inject
+    @Channel("topup-status")
+    @OnOverflow(value = OnOverflow.Strategy.BUFFER, bufferSize = 4096)
+    MutinyEmitter<String> emitter;
+
+    public void notify(String requestId, String status) {
+        Message<String> message = Message.of(status)
+                .addMetadata(OutgoingKafkaRecordMetadata.<String>builder().withKey(requestId).build());
+        try {
+            emitter.sendMessage(message).subscribe().with(
+                    ok -> LOG.debugf("Status %s published for RequestId: %s", status, requestId),
+                    t -> LOG.warnf("Could not publish status %s for RequestId: %s: %s", status, requestId,
+                            t.getMessage()));
+        } catch (RuntimeException e) {
+            // Buffer overflow or channel not ready: never fail the processing flow for a notification
+            LOG.warnf("Could not publish status %s for RequestId: %s: %s", status, requestId, e.getMessage());
+        }
+    }
+}
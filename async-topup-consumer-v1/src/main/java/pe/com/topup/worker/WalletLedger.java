@@ -0,0 +1,365 @@
+package pe.com.topup.worker;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import pe.com.topup.config.LedgerConfig;
+import pe.com.topup.config.WalletConfig;
+import pe.com.topup.dedupe.ProcessedEventFilter;
+import pe.com.topup.entity.ProcessAudit;
+import pe.com.topup.observability.TopupMetrics;
+import pe.com.topup.repository.WalletJournalRepository;
+import pe.com.topup.repository.WalletJournalRepository.DurableBalance;
+import pe.com.topup.repository.WalletJournalRepository.JournalDebit;
+
+/**
+ * In-memory reservation ledger for carrier balances (profile "ledger").
+ * <p>
+ * With the carrier as partition key every carrier is consumed by a single
+ * partition, so this instance is the only writer of the carriers it sees. Each
+ * debit is decided against {@code durable - reserved} in memory and reserved
+ * there, with no SQL on the decision path. Decided events are flushed in batches
+ * (every flush-interval or flush-threshold events) to the wallet_journal table
+ * together with their statuses and audits; only then are their offsets acked and
+ * their statuses published. Every checkpoint-interval the journal is folded into
+ * balance_wallets, which also picks up funds loaded there in the meantime.
+ * </p>
+ * <p>
+ * A carrier's balance is rebuilt on first use, after a restart or after a
+ * rebalance, from the last checkpointed balance minus the journal rows not yet
+ * applied. On partition revocation and on shutdown everything is flushed and
+ * checkpointed before the balances are dropped.
+ * </p>
+ */
+@ApplicationScoped
+public class WalletLedger {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(WalletLedger.class);
+
+    private static final long BACKPRESSURE_PAUSE_MILLIS = 5;
+
+    /**
+     * Balance of one carrier owned by this instance. Guarded by the ledger's monitor.
+     */
+    private static final class CarrierBalance {
+        final Integer operatorId;
+        BigDecimal durable;
+        BigDecimal reserved = BigDecimal.ZERO;
+
+        CarrierBalance(Integer operatorId, BigDecimal durable) {
+            this.operatorId = operatorId;
+            this.durable = durable;
+        }
+    }
+
+    /**
+     * A decided event waiting for the next flush.
+     */
+    private record Entry(TopupCommand command, CarrierBalance balance, BigDecimal debit, String status,
+            String details, Message<?> message, long startNanos) {
+
+        UUID rechargeId() {
+            return command.rechargeId();
+        }
+    }
+
+    private final Map<String, CarrierBalance> balances = new ConcurrentHashMap<>();
+    private final List<Entry> pending = new ArrayList<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile long lastCheckpoint = System.nanoTime();
+
+    @Inject
+    WalletJournalRepository journalRepository;
+
+    @Inject
+    TopupStatusNotifier statusNotifier;
+
+    @Inject
+    ProcessedEventFilter eventFilter;
+
+    @Inject
+    TopupMetrics metrics;
+
+    @Inject
+    LedgerConfig config;
+
+    @Inject
+    WalletConfig walletConfig;
+
+    @Inject
+    Vertx vertx;
+
+    void onStart(@Observes StartupEvent event) {
+        if (config.enabled()) {
+            if (walletConfig.striped()) {
+                // El ledger debita balance_wallets; el rebalanceo de franjas le quitaría el saldo
+                throw new IllegalStateException("The ledger profile cannot be combined with topup.wallet.stripes > 1");
+            }
+            vertx.setPeriodic(Math.max(1, config.flushInterval().toMillis()), id -> flushInBackground());
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (config.enabled()) {
+            drain();
+        }
+    }
+
+    /**
+     * Decides a top-up in memory and queues it for the next flush. The message is
+     * acked once the flush holding its outcome has committed.
+     *
+     * @param command The top-up.
+     * @param message The Kafka message it came from.
+     * @return A Uni that completes once the decision is taken; it only waits for
+     *         the database when the carrier's balance is not loaded yet, or for
+     *         a flush when max-pending events are already waiting for one.
+     */
+    public Uni<Void> submit(TopupCommand command, Message<?> message) {
+        if (isFull()) {
+            // Journal caído o lento: se espera al flush en lugar de crecer sin límite
+            LOG.debugf("Ledger reached %d pending events, waiting for a flush", config.maxPending());
+            return pause().chain(() -> submit(command, message));
+        }
+        String carrier = command.carrier().toLowerCase(Locale.ROOT);
+        CarrierBalance balance = balances.get(carrier);
+        if (balance != null) {
+            decide(command, message, balance);
+            return Uni.createFrom().voidItem();
+        }
+        return journalRepository.loadBalance(carrier)
+                .invoke(loaded -> {
+                    CarrierBalance current = null;
+                    if (loaded != null) {
+                        LOG.infof("Ledger loaded for carrier %s: operatorId=%d balance=%s",
+                                carrier, loaded.operatorId(), loaded.balance());
+                        current = balances.computeIfAbsent(carrier, c -> toBalance(loaded));
+                    }
+                    decide(command, message, current);
+                })
+                .replaceWithVoid();
+    }
+
+    private void decide(TopupCommand command, Message<?> message, CarrierBalance balance) {
+        long startNanos = System.nanoTime();
+        boolean flushNow;
+        synchronized (this) {
+            Entry entry;
+            if (balance == null) {
+                LOG.warnf("Operator not found for carrier: %s", command.carrier());
+                entry = new Entry(command, null, null, "FAILED",
+                        "Operador no encontrado: " + command.carrier(), message, startNanos);
+            } else if (balance.durable.subtract(balance.reserved).compareTo(command.amount()) >= 0) {
+                balance.reserved = balance.reserved.add(command.amount());
+                entry = new Entry(command, balance, command.amount(), "COMPLETED",
+                        "Proceso exitoso", message, startNanos);
+            } else {
+                LOG.warnf("Insufficient balance for RequestId: %s. Carrier: %s, Required: %s",
+                        command.rechargeId(), command.carrier(), command.amount());
+                entry = new Entry(command, balance, null, "FAILED", "Saldo insuficiente", message, startNanos);
+            }
+            pending.add(entry);
+            flushNow = pending.size() >= config.flushThreshold();
+        }
+        if (flushNow) {
+            flushInBackground();
+        }
+    }
+
+    private synchronized boolean isFull() {
+        return pending.size() >= config.maxPending();
+    }
+
+    private Uni<Void> pause() {
+        return Uni.createFrom().emitter(emitter -> vertx.setTimer(BACKPRESSURE_PAUSE_MILLIS,
+                id -> emitter.complete(null)));
+    }
+
+    private void flushInBackground() {
+        boolean checkpointDue = System.nanoTime() - lastCheckpoint >= config.checkpointInterval().toNanos();
+        flush(checkpointDue).subscribe().with(
+                ran -> {
+                },
+                t -> LOG.errorf(t, "Ledger flush failed"));
+    }
+
+    /**
+     * Flushes the pending entries and, if requested, checkpoints the journal.
+     * Never runs concurrently with itself.
+     *
+     * @param checkpoint Whether to fold the journal into balance_wallets afterwards.
+     * @return true if this call ran the flush, false if another one was in progress.
+     */
+    private Uni<Boolean> flush(boolean checkpoint) {
+        if (!flushing.compareAndSet(false, true)) {
+            return Uni.createFrom().item(false);
+        }
+        int queued;
+        synchronized (this) {
+            queued = pending.size();
+        }
+        return appendPending(queued)
+                .chain(() -> checkpoint ? checkpoint() : Uni.createFrom().voidItem())
+                .eventually(() -> flushing.set(false))
+                .replaceWith(true);
+    }
+
+    /**
+     * Journals the first {@code remaining} pending entries in order, in batches
+     * of at most flush-threshold. A failed batch goes back to the head of the
+     * queue and ends the flush.
+     */
+    private Uni<Void> appendPending(int remaining) {
+        List<Entry> batch;
+        synchronized (this) {
+            int size = Math.min(Math.min(remaining, config.flushThreshold()), pending.size());
+            List<Entry> head = pending.subList(0, size);
+            batch = new ArrayList<>(head);
+            head.clear();
+        }
+        if (batch.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return append(batch).chain(() -> appendPending(remaining - batch.size()));
+    }
+
+    private Uni<Void> append(List<Entry> batch) {
+        List<JournalDebit> debits = new ArrayList<>();
+        List<UUID> completed = new ArrayList<>();
+        List<UUID> failed = new ArrayList<>();
+        List<ProcessAudit> audits = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            if (entry.debit() != null) {
+                debits.add(new JournalDebit(entry.balance().operatorId, entry.rechargeId(), entry.debit()));
+            }
+            ("COMPLETED".equals(entry.status()) ? completed : failed).add(entry.rechargeId());
+            ProcessAudit audit = new ProcessAudit();
+            audit.rechargeId = entry.rechargeId();
+            audit.errorDetails = entry.details();
+            audits.add(audit);
+        }
+        return journalRepository.append(debits, completed, failed, audits)
+                .invoke(() -> {
+                    synchronized (this) {
+                        // La reserva pasa a ser saldo durable: ya está en el journal
+                        for (Entry entry : batch) {
+                            if (entry.debit() != null) {
+                                entry.balance().durable = entry.balance().durable.subtract(entry.debit());
+                                entry.balance().reserved = entry.balance().reserved.subtract(entry.debit());
+                            }
+                        }
+                    }
+                    for (Entry entry : batch) {
+                        statusNotifier.notify(entry.rechargeId().toString(), entry.status());
+                        metrics.finished(entry.command(), entry.status(), entry.startNanos());
+                        eventFilter.markProcessed(entry.rechargeId());
+                        entry.message().ack();
+                    }
+                    LOG.debugf("Ledger flush: %d events, %d debits journaled", batch.size(), debits.size());
+                })
+                .onFailure().invoke(t -> {
+                    // Las decisiones siguen reservadas: se reintentan en el próximo flush, en el mismo orden
+                    synchronized (this) {
+                        pending.addAll(0, batch);
+                    }
+                });
+    }
+
+    private Uni<Void> checkpoint() {
+        List<Integer> operatorIds = new ArrayList<>();
+        for (CarrierBalance balance : balances.values()) {
+            operatorIds.add(balance.operatorId);
+        }
+        return journalRepository.checkpoint(operatorIds)
+                .invoke(checkpointed -> {
+                    lastCheckpoint = System.nanoTime();
+                    synchronized (this) {
+                        // Sin flush en curso todo lo journaled ya está aplicado: el saldo de la tabla es el durable
+                        for (CarrierBalance balance : balances.values()) {
+                            BigDecimal current = checkpointed.get(balance.operatorId);
+                            if (current != null) {
+                                balance.durable = current;
+                            }
+                        }
+                    }
+                })
+                .replaceWithVoid();
+    }
+
+    /**
+     * Flushes and checkpoints everything, then forgets the loaded balances so the
+     * next owner of these carriers (this or another instance) rebuilds them from
+     * the database. If the timeout expires first, the balances with reservations
+     * still pending are kept until a later drain. Blocks the calling thread: used
+     * on partition revocation and on shutdown, never on an event loop.
+     */
+    public void drain() {
+        Duration timeout = config.drainTimeout();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            try {
+                Boolean ran = flush(true).await().atMost(timeout);
+                if (ran && isIdle()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Ledger drain flush failed");
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        forgetIdleBalances();
+    }
+
+    private synchronized boolean isIdle() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Drops every balance no pending entry reserves against. The others stay
+     * loaded: the database does not reflect their reservations yet, so a balance
+     * rebuilt from it would allow debits past what is left.
+     */
+    private synchronized void forgetIdleBalances() {
+        Set<CarrierBalance> reserved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entry entry : pending) {
+            if (entry.debit() != null) {
+                reserved.add(entry.balance());
+            }
+        }
+        balances.values().removeIf(balance -> !reserved.contains(balance));
+        if (!pending.isEmpty()) {
+            LOG.warnf("Ledger drain timed out with %d events pending; keeping %d carrier balances until they"
+                    + " are flushed", pending.size(), balances.size());
+        }
+    }
+
+    private static CarrierBalance toBalance(DurableBalance loaded) {
+        return new CarrierBalance(loaded.operatorId(), loaded.balance());
+    }
+}
@@ -0,0 +1,113 @@
+package pe.com.topup.worker;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pe.com.topup.config.WalletConfig;
+import pe.com.topup.entity.BalanceWallet;
+import pe.com.topup.entity.BalanceWalletStripe;
+import pe.com.topup.repository.BalanceWalletRepository;
+import pe.com.topup.repository.BalanceWalletStripeRepository;
+
+/**
+ * Background rebalancer for striped wallets (topup.wallet.stripes > 1).
+ * <p>
+ * balance_wallets.current_balance holds the unallocated float: new funds are
+ * still loaded there and it is the debit path's last fallback. Periodically this
+ * task moves that balance into the stripes and evens them out, so a debit rarely
+ * finds its hashed stripe exhausted. Stripes are created on the first run.
+ * The candidates are found with an unlocked query; only those wallets and their
+ * stripes are locked, for the duration of one short transaction.
+ * </p>
+ */
+@ApplicationScoped
+public class WalletStripeRebalancer {
+
+    private static final org.jboss.logging.Logger LOG = org.jboss.logging.Logger.getLogger(WalletStripeRebalancer.class);
+
+    @Inject
+    BalanceWalletRepository balanceWalletRepository;
+
+    @Inject
+    BalanceWalletStripeRepository balanceWalletStripeRepository;
+
+    @Inject
+    WalletConfig walletConfig;
+
+    @Scheduled(every = "{topup.wallet.rebalance-interval}", delayed = "5s",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> rebalance() {
+        if (!walletConfig.striped()) {
+            return Uni.createFrom().voidItem();
+        }
+        int stripes = walletConfig.stripes();
+        return Panache.withTransaction(() -> balanceWalletStripeRepository.findUnbalancedOperatorIds(stripes)
+                .chain(operatorIds -> {
+                    if (operatorIds.isEmpty()) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    return balanceWalletRepository.lockByOperatorIds(operatorIds)
+                            .chain(wallets -> balanceWalletStripeRepository.lockByOperatorIds(operatorIds)
+                                    .chain(existing -> redistribute(wallets, existing, stripes)));
+                }))
+                .onFailure().invoke(t -> LOG.errorf(t, "Wallet stripe rebalance failed"));
+    }
+
+    private Uni<Void> redistribute(List<BalanceWallet> wallets, List<BalanceWalletStripe> existing, int stripes) {
+        Map<Integer, List<BalanceWalletStripe>> stripesByOperator = new HashMap<>();
+        for (BalanceWalletStripe stripe : existing) {
+            stripesByOperator.computeIfAbsent(stripe.operatorId, id -> new ArrayList<>()).add(stripe);
+        }
+
+        List<BalanceWalletStripe> created = new ArrayList<>();
+        for (BalanceWallet wallet : wallets) {
+            BalanceWalletStripe[] targets = new BalanceWalletStripe[stripes];
+            BigDecimal total = wallet.currentBalance;
+            for (BalanceWalletStripe stripe : stripesByOperator.getOrDefault(wallet.operatorId, List.of())) {
+                total = total.add(stripe.balance);
+                if (stripe.stripeNo < stripes) {
+                    targets[stripe.stripeNo] = stripe;
+                } else {
+                    // Stripe left over from a larger topup.wallet.stripes: drained into the others
+                    stripe.balance = BigDecimal.ZERO;
+                }
+            }
+            if (total.signum() < 0) {
+                LOG.warnf("Skipping rebalance of operator %d: negative total %s", wallet.operatorId, total);
+                continue;
+            }
+
+            // Reparto al céntimo; el residuo de la división queda en la franja 0
+            BigDecimal share = total.divide(BigDecimal.valueOf(stripes), 2, RoundingMode.DOWN);
+            BigDecimal remainder = total.subtract(share.multiply(BigDecimal.valueOf(stripes)));
+            for (int stripeNo = 0; stripeNo < stripes; stripeNo++) {
+                BalanceWalletStripe stripe = targets[stripeNo];
+                if (stripe == null) {
+                    stripe = new BalanceWalletStripe();
+                    stripe.operatorId = wallet.operatorId;
+                    stripe.stripeNo = stripeNo;
+                    created.add(stripe);
+                }
+                stripe.balance = stripeNo == 0 ? share.add(remainder) : share;
+            }
+            wallet.currentBalance = BigDecimal.ZERO.setScale(2);
+            LOG.infof("Rebalanced operator %d: %s across %d stripes", wallet.operatorId, total, stripes);
+        }
+
+        // Las filas existentes se escriben en el flush del commit; las nuevas se insertan aquí
+        return Multi.createFrom().iterable(created)
+                .onItem().transformToUniAndConcatenate(balanceWalletStripeRepository::persist)
+                .collect().asList()
+                .replaceWithVoid();
+    }
+}
@@ -0,0 +1,68 @@
+package pe.com.topup.dedupe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void sizesBitsAndHashesForTheTargetRate() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        // m = -n ln p / (ln 2)^2 = 9586 bits, rounded up to whole words; k = m/n ln 2
+        assertEquals(9_600, filter.bitCount());
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void keepsAtLeastOneWordForTinyFilters() {
+        BloomFilter filter = new BloomFilter(1, 0.5);
+
+        assertEquals(64, filter.bitCount());
+        assertTrue(filter.hashCount() >= 1);
+    }
+
+    @Test
+    void neverReportsAnAddedIdAsAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<UUID> added = ids(new Random(1), 10_000);
+        added.forEach(filter::add);
+
+        for (UUID id : added) {
+            assertTrue(filter.mightContain(id), id::toString);
+        }
+    }
+
+    @Test
+    void staysNearTheTargetFalsePositiveRateAtCapacity() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        ids(new Random(2), 10_000).forEach(filter::add);
+
+        long falsePositives = ids(new Random(3), 100_000).stream().filter(filter::mightContain).count();
+
+        // 1% de 100k = 1000; margen amplio para no depender de la semilla
+        assertTrue(falsePositives < 2_000, () -> falsePositives + " false positives");
+    }
+
+    @Test
+    void startsEmpty() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain(UUID.randomUUID()));
+    }
+
+    static List<UUID> ids(Random random, int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return ids;
+    }
+}
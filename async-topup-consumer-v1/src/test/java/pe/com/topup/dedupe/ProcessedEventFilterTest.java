@@ -0,0 +1,87 @@
+package pe.com.topup.dedupe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import pe.com.topup.config.DedupeConfig;
+import pe.com.topup.dedupe.ProcessedEventFilter.Verdict;
+
+class ProcessedEventFilterTest {
+
+    private static final int EXPECTED_IDS = 1_000;
+
+    private final ProcessedEventFilter filter = new ProcessedEventFilter(config(1), null);
+
+    @Test
+    void answersProcessedForRecentIdsAndNewForUnseenOnes() {
+        UUID done = UUID.randomUUID();
+        filter.markProcessed(done);
+
+        assertEquals(Verdict.PROCESSED, filter.check(done));
+        assertEquals(Verdict.NEW, filter.check(UUID.randomUUID()));
+    }
+
+    @Test
+    void reportsIdsEvictedFromTheLruAsPossibleDuplicates() {
+        UUID first = UUID.randomUUID();
+        filter.markProcessed(first);
+        filter.markProcessed(UUID.randomUUID());
+
+        assertEquals(Verdict.POSSIBLE_DUPLICATE, filter.check(first));
+    }
+
+    @Test
+    void keepsTheFullGenerationAsPreviousAfterOneRotation() {
+        List<UUID> firstGeneration = BloomFilterTest.ids(new Random(1), EXPECTED_IDS);
+        firstGeneration.forEach(filter::markProcessed);
+        // La generación llena pasó a ser la anterior; la nueva empieza vacía
+        filter.markProcessed(UUID.randomUUID());
+
+        for (UUID id : firstGeneration.subList(0, EXPECTED_IDS - 1)) {
+            assertEquals(Verdict.POSSIBLE_DUPLICATE, filter.check(id), id::toString);
+        }
+    }
+
+    @Test
+    void forgetsAGenerationAfterTwoRotations() {
+        List<UUID> firstGeneration = BloomFilterTest.ids(new Random(1), EXPECTED_IDS);
+        firstGeneration.forEach(filter::markProcessed);
+        BloomFilterTest.ids(new Random(2), EXPECTED_IDS).forEach(filter::markProcessed);
+
+        long stillFlagged = firstGeneration.stream()
+                .filter(id -> filter.check(id) != Verdict.NEW)
+                .count();
+
+        // Solo quedan los falsos positivos de las dos generaciones vigentes (~2%)
+        assertTrue(stillFlagged < EXPECTED_IDS / 10, () -> stillFlagged + " IDs still flagged");
+    }
+
+    private static DedupeConfig config(int recentCapacity) {
+        return new DedupeConfig() {
+            @Override
+            public int recentCapacity() {
+                return recentCapacity;
+            }
+
+            @Override
+            public int expectedIds() {
+                return EXPECTED_IDS;
+            }
+
+            @Override
+            public double falsePositiveRate() {
+                return 0.01;
+            }
+
+            @Override
+            public Duration seedWindow() {
+                return Duration.ofMinutes(15);
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package pe.com.topup.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class KeyOrderedExecutorTest {
+
+    private final List<UniEmitter<? super Void>> pending = new ArrayList<>();
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    void runsTasksWithTheSameKeyOneAtATimeInSubmissionOrder() {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(1, 10);
+
+        executor.submit("A", task("A1")).await().indefinitely();
+        executor.submit("A", task("A2")).await().indefinitely();
+        assertEquals(List.of("A1"), started);
+
+        complete(0);
+        assertEquals(List.of("A1", "A2"), started);
+    }
+
+    @Test
+    void runsTasksOnDifferentLanesConcurrently() {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(2, 10);
+        String[] keys = keysOnDifferentLanes(2);
+
+        executor.submit(keys[0], task("first")).await().indefinitely();
+        executor.submit(keys[1], task("second")).await().indefinitely();
+
+        assertEquals(List.of("first", "second"), started);
+    }
+
+    @Test
+    void holdsSubmitUntilATaskFinishesOnceMaxInFlightIsReached() {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(4, 2);
+        executor.submit("A", task("A1")).await().indefinitely();
+        executor.submit("B", task("B1")).await().indefinitely();
+
+        AtomicBoolean accepted = new AtomicBoolean();
+        executor.submit("C", task("C1")).subscribe().with(v -> accepted.set(true));
+        assertFalse(accepted.get());
+        assertFalse(started.contains("C1"));
+
+        complete(0);
+        assertTrue(accepted.get());
+        assertTrue(started.contains("C1"));
+    }
+
+    @Test
+    void drainsLongRunsOfSynchronousTasksWithoutRecursing() {
+        int tasks = 100_000;
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(1, tasks + 1);
+        AtomicInteger ran = new AtomicInteger();
+        executor.submit("A", task("blocker")).await().indefinitely();
+        for (int i = 0; i < tasks; i++) {
+            executor.submit("A", () -> {
+                ran.incrementAndGet();
+                return Uni.createFrom().voidItem();
+            }).await().indefinitely();
+        }
+
+        complete(0);
+
+        assertEquals(tasks, ran.get());
+    }
+
+    @Test
+    void keepsTheLaneRunningAfterAFailedTask() {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(1, 10);
+        executor.submit("A", () -> {
+            throw new IllegalStateException("boom");
+        }).await().indefinitely();
+        executor.submit("A", task("A2")).await().indefinitely();
+
+        assertEquals(List.of("A2"), started);
+    }
+
+    private java.util.function.Supplier<Uni<Void>> task(String name) {
+        return () -> Uni.createFrom().emitter(emitter -> {
+            started.add(name);
+            pending.add(emitter);
+        });
+    }
+
+    private void complete(int index) {
+        pending.get(index).complete(null);
+    }
+
+    private static String[] keysOnDifferentLanes(int lanes) {
+        String[] keys = new String[lanes];
+        for (int i = 0, found = 0; found < lanes; i++) {
+            String key = "key-" + i;
+            int lane = Math.floorMod(key.hashCode(), lanes);
+            if (keys[lane] == null) {
+                keys[lane] = key;
+                found++;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,114 @@
+package pe.com.topup.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.smallrye.mutiny.Uni;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pe.com.topup.audit.AuditSink;
+import pe.com.topup.config.WalletConfig;
+import pe.com.topup.entity.BalanceWallet;
+import pe.com.topup.entity.ProcessAudit;
+import pe.com.topup.observability.TopupMetrics;
+import pe.com.topup.repository.BalanceWalletRepository;
+import pe.com.topup.repository.RechargeRequestRepository;
+
+class TopupBatchProcessorTest {
+
+    private static final int OPERATOR_ID = 1;
+
+    private final List<BigDecimal> debits = new ArrayList<>();
+    private final List<UUID> completed = new ArrayList<>();
+    private final List<ProcessAudit> audits = new ArrayList<>();
+    private final List<String> outcomes = new ArrayList<>();
+    private final TopupBatchProcessor processor = new TopupBatchProcessor();
+
+    @BeforeEach
+    void setUp() {
+        processor.balanceWalletRepository = new BalanceWalletRepository() {
+            @Override
+            public Uni<List<BalanceWallet>> lockByOperatorNames(Collection<String> lowerCaseOperatorNames) {
+                BalanceWallet wallet = new BalanceWallet();
+                wallet.operatorId = OPERATOR_ID;
+                wallet.operatorName = "MOVISTAR";
+                wallet.currentBalance = new BigDecimal("100.00");
+                return Uni.createFrom().item(List.of(wallet));
+            }
+
+            @Override
+            public Uni<Integer> update(String query, Object... params) {
+                debits.add((BigDecimal) params[0]);
+                return Uni.createFrom().item(1);
+            }
+        };
+        processor.rechargeRequestRepository = new RechargeRequestRepository() {
+            @Override
+            public Uni<Set<UUID>> lockAndFindTerminal(Collection<UUID> rechargeIds) {
+                return Uni.createFrom().item(Set.of());
+            }
+
+            @Override
+            public Uni<Integer> updateStatus(List<UUID> rechargeIds, String status) {
+                if ("COMPLETED".equals(status)) {
+                    completed.addAll(rechargeIds);
+                }
+                return Uni.createFrom().item(rechargeIds.size());
+            }
+        };
+        processor.auditSink = new AuditSink() {
+            @Override
+            public Uni<Void> writeInTransaction(List<ProcessAudit> written) {
+                audits.addAll(written);
+                return Uni.createFrom().voidItem();
+            }
+
+            @Override
+            public Uni<Void> writeAfterCommit(List<ProcessAudit> written) {
+                return Uni.createFrom().voidItem();
+            }
+        };
+        processor.walletConfig = new WalletConfig() {
+            @Override
+            public int stripes() {
+                return 1;
+            }
+
+            @Override
+            public Duration rebalanceInterval() {
+                return Duration.ofSeconds(5);
+            }
+        };
+        processor.metrics = new TopupMetrics(null) {
+            @Override
+            public void outcome(TopupCommand command, String outcome) {
+                outcomes.add(outcome);
+            }
+        };
+    }
+
+    @Test
+    void debitsARechargeRepeatedInThePollOnlyOnce() {
+        UUID repeated = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+
+        List<?> decided = processor.apply(List.of(command(repeated, "10.00"), command(other, "5.00"),
+                command(repeated, "10.00"))).await().indefinitely();
+
+        assertEquals(2, decided.size());
+        assertEquals(List.of(new BigDecimal("15.00")), debits);
+        assertEquals(List.of(repeated, other), completed);
+        assertEquals(2, audits.size());
+        assertEquals(List.of("DUPLICATE"), outcomes);
+    }
+
+    private static TopupCommand command(UUID rechargeId, String amount) {
+        return new TopupCommand(rechargeId, "999888777", new BigDecimal(amount), "MOVISTAR", "MOVISTAR", 0, null);
+    }
+}
@@ -0,0 +1,57 @@
+package pe.com.topup.application.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configuración del archivador de solicitudes terminadas.
+ * <p>
+ * Se mapea desde el prefijo "topup.archiver".
+ * </p>
+ */
+@ConfigMapping(prefix = "topup.archiver")
+public interface ArchiverConfig {
+
+    /**
+     * Si el archivador se ejecuta. Requiere las tablas de historial de la
+     * migración V025.
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Antigüedad mínima (desde created_at) de una solicitud 'COMPLETED' o
+     * 'FAILED' para moverla al historial. Debe superar la retención de los
+     * tópicos: el consumer reconoce los duplicados por su estado en
+     * recharge_requests.
+     */
+    @WithDefault("30d")
+    Duration minAge();
+
+    /**
+     * Solicitudes movidas por transacción.
+     */
+    @WithDefault("500")
+    int batchSize();
+
+    /**
+     * Pausa entre lotes, para no competir con el dispatcher y el consumer.
+     */
+    @WithDefault("200ms")
+    Duration pause();
+
+    /**
+     * Frecuencia de las ejecuciones. Una ejecución mueve lotes hasta que no
+     * quedan solicitudes con la antigüedad mínima.
+     */
+    @WithDefault("1m")
+    Duration interval();
+
+    /**
+     * Particiones mensuales creadas por adelantado en las tablas de historial.
+     */
+    @WithDefault("3")
+    int partitionsAhead();
+}
@@ -0,0 +1,24 @@
+package pe.com.topup.application.config;
+
+/**
+ * Forma en que el dispatcher encuentra las solicitudes nuevas.
+ */
+public enum DispatchMode {
+
+    /**
+     * Reclama páginas de registros 'PENDING' de recharge_requests
+     * ({@link pe.com.topup.application.service.AdaptiveDispatchScheduler}).
+     * Admite varias réplicas del producer.
+     */
+    POLLING,
+
+    /**
+     * Lee los INSERT de recharge_requests del binlog de MySQL/MariaDB y publica
+     * cada solicitud apenas se confirma su transacción
+     * ({@link pe.com.topup.application.service.BinlogDispatcherService}). Sin
+     * consulta de polling y con la marca 'SENT_TO_KAFKA' opcional. Una sola
+     * instancia del producer por base de datos: cada réplica publicaría todos
+     * los inserts.
+     */
+    BINLOG
+}
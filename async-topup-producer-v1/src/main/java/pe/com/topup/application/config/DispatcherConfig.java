@@ -0,0 +1,170 @@
+package pe.com.topup.application.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configuración del dispatcher de solicitudes pendientes.
+ * <p>
+ * Se mapea desde el prefijo "topup.dispatcher".
+ * </p>
+ */
+@ConfigMapping(prefix = "topup.dispatcher")
+public interface DispatcherConfig {
+
+    /**
+     * Cómo se encuentran las solicitudes nuevas: polling de la tabla o binlog.
+     */
+    @WithDefault("POLLING")
+    DispatchMode mode();
+
+    /**
+     * Cantidad máxima de solicitudes reclamadas y enviadas por página.
+     */
+    @WithDefault("500")
+    int pageSize();
+
+    /**
+     * Cantidad máxima de envíos a Kafka pendientes de confirmación dentro de una
+     * página. Con 1 los envíos son estrictamente secuenciales.
+     */
+    @WithDefault("64")
+    int maxInFlight();
+
+    /**
+     * Tiempo durante el cual una página reclamada pertenece a esta instancia.
+     * Debe ser mayor que lo que tarda en enviarse una página a Kafka.
+     */
+    @WithDefault("60s")
+    Duration leaseDuration();
+
+    /**
+     * Estrategia de clave de los registros de Kafka (define la partición).
+     */
+    @WithDefault("CARRIER")
+    PartitionKeyStrategy partitionKey();
+
+    /**
+     * Versión del esquema Avro de los eventos publicados. Pasar a V2 solo cuando
+     * todos los consumers acepten ambas versiones.
+     */
+    @WithDefault("V1")
+    EventVersion eventVersion();
+
+    /**
+     * Espera antes del primer ciclo tras el arranque.
+     */
+    @WithDefault("5s")
+    Duration initialDelay();
+
+    /**
+     * Espera tras un ciclo que encontró trabajo sin llenar la página.
+     * Tras una página llena el siguiente ciclo empieza de inmediato.
+     */
+    @WithDefault("100ms")
+    Duration minInterval();
+
+    /**
+     * Espera máxima entre ciclos cuando la tabla está ociosa; la espera se
+     * duplica desde {@link #minInterval()} en cada ciclo vacío hasta este valor.
+     */
+    @WithDefault("10s")
+    Duration maxInterval();
+
+    /**
+     * Frecuencia mínima entre lecturas del tamaño del backlog para métricas.
+     */
+    @WithDefault("5s")
+    Duration backlogRefreshInterval();
+
+    /**
+     * Frecuencia con la que el reaper devuelve a 'PENDING' los reclamos vencidos.
+     */
+    @WithDefault("30s")
+    Duration reaperInterval();
+
+    /**
+     * Conexión de replicación del modo {@link DispatchMode#BINLOG}.
+     */
+    Binlog binlog();
+
+    /**
+     * Configuración del modo binlog ("topup.dispatcher.binlog").
+     */
+    interface Binlog {
+
+        /**
+         * Host de MySQL/MariaDB; el mismo servidor que usa el datasource.
+         */
+        @WithDefault("localhost")
+        String host();
+
+        /**
+         * Puerto de MySQL/MariaDB.
+         */
+        @WithDefault("3307")
+        int port();
+
+        /**
+         * Usuario con permisos REPLICATION SLAVE y REPLICATION CLIENT.
+         */
+        @WithDefault("root")
+        String username();
+
+        /**
+         * Contraseña del usuario de replicación.
+         */
+        String password();
+
+        /**
+         * Base de datos de recharge_requests.
+         */
+        @WithDefault("phone_recharge_db")
+        String database();
+
+        /**
+         * server_id con el que el producer se registra como réplica; debe ser
+         * distinto del de cualquier otra réplica del servidor.
+         */
+        @WithDefault("5401")
+        long serverId();
+
+        /**
+         * Nombre de la fila de dispatcher_binlog_checkpoints de esta instancia.
+         */
+        @WithDefault("async-topup-producer-v1")
+        String checkpointName();
+
+        /**
+         * Frecuencia con la que se guarda la posición del binlog ya confirmada por
+         * Kafka (y se marcan las solicitudes como 'SENT_TO_KAFKA').
+         */
+        @WithDefault("1s")
+        Duration checkpointInterval();
+
+        /**
+         * Si se marcan como 'SENT_TO_KAFKA' las solicitudes publicadas. Sin la marca
+         * quedan en 'PENDING' hasta que el consumer escribe el estado final.
+         */
+        @WithDefault("true")
+        boolean writeBack();
+
+        /**
+         * Frecuencia del barrido que publica por reclamo las solicitudes que el
+         * binlog dejó en 'PENDING' (filas no publicables o envíos con error no
+         * recuperable). Requiere 'write-back'.
+         */
+        @WithDefault("1m")
+        Duration sweepInterval();
+
+        /**
+         * Antigüedad mínima (desde created_at) de una solicitud 'PENDING' para que
+         * el barrido la reclame. Debe superar el tiempo normal entre el insert y
+         * el write-back.
+         */
+        @WithDefault("1m")
+        Duration sweepMinAge();
+    }
+}
@@ -0,0 +1,73 @@
+package pe.com.topup.application.config;
+
+import org.apache.avro.specific.SpecificRecord;
+import pe.com.topup.domain.entity.TopupRequestEntity;
+import pe.com.topup.domain.repository.RechargeIds;
+import pe.com.topup.model.Carrier;
+import pe.com.topup.model.RechargeId;
+import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.model.TopUpEventV2;
+
+import java.time.Instant;
+
+/**
+ * Versión del esquema Avro con la que el dispatcher publica las solicitudes.
+ * <p>
+ * Ambas versiones conviven en el mismo tópico: v1 se registra con el subject
+ * por tópico ("topup-topic-value") y v2 con el subject por nombre de record, y
+ * el consumer acepta las dos. Así se migra primero el consumer y después el
+ * producer, sin vaciar el tópico.
+ * </p>
+ */
+public enum EventVersion {
+
+    /**
+     * {@link TopUpEvent}: todos los campos como strings opcionales.
+     */
+    V1 {
+        @Override
+        public SpecificRecord toEvent(TopupRequestEntity entity, long createdAt) {
+            return TopUpEvent.newBuilder()
+                    .setRequestId(entity.rechargeId.toString())
+                    .setPhoneNumber(entity.phoneNumber)
+                    .setAmount(entity.amount != null ? entity.amount.toString() : null)
+                    .setCarrier(entity.carrier)
+                    .build();
+        }
+    },
+
+    /**
+     * {@link TopUpEventV2}: ID de 16 bytes, monto en céntimos, operador como enum y
+     * fecha de creación en el payload.
+     */
+    V2 {
+        @Override
+        public SpecificRecord toEvent(TopupRequestEntity entity, long createdAt) {
+            return TopUpEventV2.newBuilder()
+                    .setRequestId(new RechargeId(RechargeIds.toBytes(entity.rechargeId)))
+                    .setPhoneNumber(entity.phoneNumber)
+                    // Céntimos: la columna es DECIMAL(10,2), así que el valor es exacto
+                    .setAmountCents(entity.amount.movePointRight(2).longValueExact())
+                    .setCarrier(carrierOf(entity.carrier))
+                    .setCreatedAt(Instant.ofEpochMilli(createdAt))
+                    .build();
+        }
+    };
+
+    /**
+     * Construye el evento Avro de una solicitud.
+     *
+     * @param entity    Solicitud a enviar.
+     * @param createdAt Fecha de creación de la solicitud (epoch millis).
+     * @return El evento en esta versión del esquema.
+     */
+    public abstract SpecificRecord toEvent(TopupRequestEntity entity, long createdAt);
+
+    private static Carrier carrierOf(String carrier) {
+        try {
+            return carrier != null ? Carrier.valueOf(carrier.toUpperCase()) : Carrier.UNKNOWN;
+        } catch (IllegalArgumentException e) {
+            return Carrier.UNKNOWN;
+        }
+    }
+}
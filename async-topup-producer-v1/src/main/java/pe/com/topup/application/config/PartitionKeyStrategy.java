@@ -0,0 +1,55 @@
+package pe.com.topup.application.config;
+
+import pe.com.topup.domain.entity.TopupRequestEntity;
+
+/**
+ * Estrategia para elegir la clave (key) de cada registro de Kafka.
+ * <p>
+ * Kafka asigna la partición con un hash de la clave, por lo que todos los
+ * eventos con la misma clave van a la misma partición, los procesa un único
+ * hilo del consumer y conservan su orden relativo.
+ * </p>
+ */
+public enum PartitionKeyStrategy {
+
+    /**
+     * Todas las recargas de un operador van a la misma partición: los débitos de
+     * una misma fila de balance_wallets no compiten entre instancias del consumer.
+     * El paralelismo queda limitado a la cantidad de operadores.
+     */
+    CARRIER {
+        @Override
+        public String keyFor(TopupRequestEntity entity) {
+            return entity.carrier;
+        }
+    },
+
+    /**
+     * Todas las recargas de un número van a la misma partición y se procesan en
+     * el orden en que fueron enviadas.
+     */
+    PHONE_NUMBER {
+        @Override
+        public String keyFor(TopupRequestEntity entity) {
+            return entity.phoneNumber;
+        }
+    },
+
+    /**
+     * Reparte los eventos uniformemente (hash del rechargeId), sin afinidad.
+     */
+    RECHARGE_ID {
+        @Override
+        public String keyFor(TopupRequestEntity entity) {
+            return entity.rechargeId.toString();
+        }
+    };
+
+    /**
+     * Calcula la clave del registro de Kafka para una solicitud.
+     *
+     * @param entity Solicitud a enviar.
+     * @return La clave del registro.
+     */
+    public abstract String keyFor(TopupRequestEntity entity);
+}
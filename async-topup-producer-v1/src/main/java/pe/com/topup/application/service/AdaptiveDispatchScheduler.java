@@ -0,0 +1,151 @@
+package pe.com.topup.application.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import pe.com.topup.application.config.DispatchMode;
+import pe.com.topup.application.config.DispatcherConfig;
+import pe.com.topup.domain.repository.TopupRequestRepository;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Planificador adaptativo de los ciclos de {@link DispatcherService}.
+ * <p>
+ * Reemplaza al polling fijo cada 10 segundos:
+ * 1. Si el ciclo reclamó una página llena, el siguiente empieza de inmediato.
+ * 2. Si encontró trabajo sin llenar la página, espera 'min-interval'.
+ * 3. Si no encontró nada, duplica la espera hasta 'max-interval'.
+ * 4. Una señal de {@link #wake()} (por ejemplo, un insert del sync API)
+ * adelanta el siguiente ciclo y vuelve la espera al mínimo.
+ * </p>
+ * <p>
+ * Nunca hay dos ciclos en ejecución a la vez en la misma instancia.
+ * </p>
+ */
+@ApplicationScoped
+public class AdaptiveDispatchScheduler {
+
+    private static final Logger LOG = Logger.getLogger(AdaptiveDispatchScheduler.class.getName());
+
+    private static final long NO_TIMER = -1;
+
+    private final DispatcherService dispatcher;
+    private final TopupRequestRepository repository;
+    private final DispatcherConfig config;
+    private final Vertx vertx;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long backlogRefreshNanos;
+
+    private final AtomicLong timerId = new AtomicLong(NO_TIMER);
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private final AtomicLong intervalMillis = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+    private volatile long lastBacklogRefresh;
+
+    @Inject
+    public AdaptiveDispatchScheduler(DispatcherService dispatcher, TopupRequestRepository repository,
+            DispatcherConfig config, Vertx vertx, MeterRegistry registry) {
+        this.dispatcher = dispatcher;
+        this.repository = repository;
+        this.config = config;
+        this.vertx = vertx;
+        this.minIntervalMillis = Math.max(1, config.minInterval().toMillis());
+        this.maxIntervalMillis = Math.max(minIntervalMillis, config.maxInterval().toMillis());
+        this.backlogRefreshNanos = config.backlogRefreshInterval().toNanos();
+        this.lastBacklogRefresh = System.nanoTime() - backlogRefreshNanos;
+        this.intervalMillis.set(minIntervalMillis);
+
+        Gauge.builder("topup.dispatcher.interval", intervalMillis, AtomicLong::get)
+                .description("Espera actual entre ciclos del dispatcher en milisegundos")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("topup.dispatcher.backlog", backlog, AtomicLong::get)
+                .description("Solicitudes PENDING o DISPATCHING en la última lectura")
+                .register(registry);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (config.mode() == DispatchMode.BINLOG) {
+            // Las solicitudes nuevas llegan por BinlogDispatcherService; wake() queda sin efecto
+            return;
+        }
+        schedule(Math.max(1, config.initialDelay().toMillis()));
+    }
+
+    /**
+     * Adelanta el siguiente ciclo. Si hay un ciclo en ejecución, el siguiente
+     * empieza apenas termine.
+     */
+    public void wake() {
+        wakeRequested.set(true);
+        long id = timerId.getAndSet(NO_TIMER);
+        if (id != NO_TIMER && vertx.cancelTimer(id)) {
+            intervalMillis.set(minIntervalMillis);
+            vertx.runOnContext(v -> runCycle());
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        long id = vertx.setTimer(delayMillis, fired -> {
+            timerId.compareAndSet(fired, NO_TIMER);
+            runCycle();
+        });
+        timerId.set(id);
+    }
+
+    private void runCycle() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        wakeRequested.set(false);
+        dispatcher.processPendingRequests().subscribe().with(
+                claimed -> {
+                    running.set(false);
+                    refreshBacklog();
+                    scheduleNext(claimed);
+                },
+                failure -> {
+                    running.set(false);
+                    LOG.severe("Error en el ciclo del dispatcher: " + failure.getMessage());
+                    scheduleNext(0);
+                });
+    }
+
+    private void scheduleNext(int claimed) {
+        long next;
+        if (wakeRequested.get() || claimed >= config.pageSize()) {
+            next = 0;
+            intervalMillis.set(minIntervalMillis);
+        } else if (claimed > 0) {
+            next = minIntervalMillis;
+            intervalMillis.set(minIntervalMillis);
+        } else {
+            next = intervalMillis.updateAndGet(current -> Math.min(maxIntervalMillis, current * 2));
+        }
+        if (next == 0) {
+            vertx.runOnContext(v -> runCycle());
+        } else {
+            schedule(next);
+        }
+    }
+
+    private void refreshBacklog() {
+        long now = System.nanoTime();
+        if (now - lastBacklogRefresh < backlogRefreshNanos) {
+            return;
+        }
+        lastBacklogRefresh = now;
+        repository.countBacklog().subscribe().with(
+                backlog::set,
+                failure -> LOG.warning("No se pudo leer el tamaño del backlog: " + failure.getMessage()));
+    }
+}
@@ -0,0 +1,503 @@
+package pe.com.topup.application.service;
+
+import com.github.shyiko.mysql.binlog.BinaryLogClient;
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.QueryEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import pe.com.topup.application.config.DispatchMode;
+import pe.com.topup.application.config.DispatcherConfig;
+import pe.com.topup.domain.entity.TopupRequestEntity;
+import pe.com.topup.domain.repository.BinlogCheckpointRepository;
+import pe.com.topup.domain.repository.BinlogCheckpointRepository.Position;
+import pe.com.topup.domain.repository.RechargeIds;
+import pe.com.topup.domain.repository.TopupRequestRepository;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Dispatcher en modo binlog ('topup.dispatcher.mode=BINLOG').
+ * <p>
+ * En lugar de consultar recharge_requests, el producer se registra como réplica
+ * de MySQL/MariaDB y lee del binlog (formato ROW) los inserts de la tabla:
+ * cada fila nueva en 'PENDING' se publica en Kafka apenas su transacción se
+ * escribe en el binlog, sin reclamos ni SELECT ... FOR UPDATE.
+ * </p>
+ * <p>
+ * El flujo es el siguiente:
+ * 1. Al iniciar, retoma la lectura desde la posición guardada en
+ * dispatcher_binlog_checkpoints. Si no hay ninguna, empieza al final del
+ * binlog y publica lo que ya estaba en 'PENDING' con el ciclo de polling.
+ * 2. Cada insert se transforma en evento y se envía con hasta
+ * 'max-in-flight' envíos esperando confirmación; un envío fallido se
+ * reintenta hasta que el broker lo confirma, salvo que Kafka lo rechace con
+ * un error no recuperable (registro demasiado grande, serialización): ese se
+ * reporta y la fila queda en 'PENDING'.
+ * 3. Cada 'checkpoint-interval' se guarda la posición del último commit cuyas
+ * filas fueron todas confirmadas y, si 'write-back' está activo, se marcan
+ * esas solicitudes como 'SENT_TO_KAFKA' con un UPDATE por página.
+ * 4. Cada 'sweep-interval' las filas que siguen en 'PENDING' con más de
+ * 'sweep-min-age' (no publicables o rechazadas por Kafka) se publican por el
+ * camino de reclamo del modo polling.
+ * </p>
+ * <p>
+ * La entrega es al menos una vez: después de un reinicio se vuelven a
+ * publicar las filas posteriores al último checkpoint, y el consumer las
+ * descarta por ID. Solo debe haber una instancia por base de datos en este
+ * modo.
+ * </p>
+ */
+@ApplicationScoped
+public class BinlogDispatcherService {
+
+    private static final Logger LOG = Logger.getLogger(BinlogDispatcherService.class.getName());
+
+    private static final String TABLE = "recharge_requests";
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Páginas máximas por barrido: una fila que falla siempre vuelve a 'PENDING'
+     * y sería reclamada otra vez en el mismo barrido.
+     */
+    private static final int SWEEP_MAX_PAGES = 10;
+
+    private final DispatcherService dispatcher;
+    private final TopupRequestRepository repository;
+    private final BinlogCheckpointRepository checkpoints;
+    private final DispatcherConfig config;
+    private final Vertx vertx;
+
+    /**
+     * IDs de tabla (TABLE_MAP) que corresponden a recharge_requests. Solo lo usa
+     * el hilo del binlog.
+     */
+    private final Set<Long> tableIds = new HashSet<>();
+
+    /**
+     * Transacciones con filas enviadas, en orden de commit. El checkpoint avanza
+     * hasta la última de la cabeza cuyas filas están todas confirmadas.
+     */
+    private final ArrayDeque<Transaction> transactions = new ArrayDeque<>();
+
+    /**
+     * IDs confirmados por el broker pendientes de marcar como 'SENT_TO_KAFKA'.
+     */
+    private final ConcurrentLinkedQueue<UUID> acknowledged = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+
+    private final AtomicBoolean sweepRunning = new AtomicBoolean();
+
+    private final Counter rejectedSends;
+
+    private Semaphore inFlight;
+    private BinaryLogClient client;
+    private volatile List<String> columns;
+    private int utcOffsetSeconds;
+    private Transaction open;
+    private Position committed;
+    private Position saved;
+    private long checkpointTimer = -1;
+    private long sweepTimer = -1;
+
+    @Inject
+    public BinlogDispatcherService(DispatcherService dispatcher, TopupRequestRepository repository,
+            BinlogCheckpointRepository checkpoints, DispatcherConfig config, Vertx vertx, MeterRegistry registry) {
+        this.dispatcher = dispatcher;
+        this.repository = repository;
+        this.checkpoints = checkpoints;
+        this.config = config;
+        this.vertx = vertx;
+        this.rejectedSends = Counter.builder("topup.dispatcher.binlog.rejected")
+                .description("Envíos del binlog rechazados por Kafka con un error no recuperable")
+                .register(registry);
+    }
+
+    void onStart(@Observes StartupEvent event) throws IOException {
+        if (config.mode() != DispatchMode.BINLOG) {
+            return;
+        }
+        DispatcherConfig.Binlog binlog = config.binlog();
+        inFlight = new Semaphore(config.maxInFlight());
+        columns = repository.findColumnNames().await().indefinitely();
+        utcOffsetSeconds = repository.findUtcOffsetSeconds().await().indefinitely();
+        saved = checkpoints.find(binlog.checkpointName()).await().indefinitely();
+
+        client = new BinaryLogClient(binlog.host(), binlog.port(), binlog.database(), binlog.username(),
+                binlog.password());
+        client.setServerId(binlog.serverId());
+        if (saved != null) {
+            client.setBinlogFilename(saved.file());
+            client.setBinlogPosition(saved.position());
+        }
+        // UUID y VARCHAR como bytes; DATETIME como microsegundos (sin zona, se corrige con utcOffsetSeconds)
+        EventDeserializer deserializer = new EventDeserializer();
+        deserializer.setCompatibilityMode(EventDeserializer.CompatibilityMode.DATE_AND_TIME_AS_LONG_MICRO,
+                EventDeserializer.CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY);
+        client.setEventDeserializer(deserializer);
+        client.registerEventListener(this::onEvent);
+        client.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+            @Override
+            public void onCommunicationFailure(BinaryLogClient failed, Exception ex) {
+                LOG.severe("Binlog: error de comunicación: " + ex.getMessage());
+            }
+
+            @Override
+            public void onEventDeserializationFailure(BinaryLogClient failed, Exception ex) {
+                LOG.severe("Binlog: evento ilegible: " + ex.getMessage());
+            }
+        });
+
+        try {
+            client.connect(CONNECT_TIMEOUT_MILLIS);
+        } catch (TimeoutException e) {
+            throw new IOException("No se pudo conectar al binlog de " + binlog.host() + ":" + binlog.port(), e);
+        }
+        LOG.info("Binlog: leyendo desde " + client.getBinlogFilename() + ":" + client.getBinlogPosition()
+                + (saved != null ? " (checkpoint)" : " (sin checkpoint)") + ".");
+
+        checkpointTimer = vertx.setPeriodic(Math.max(1, binlog.checkpointInterval().toMillis()),
+                id -> checkpoint().subscribe().with(
+                        ignored -> {
+                        },
+                        failure -> LOG.severe("Binlog: error guardando el checkpoint: " + failure.getMessage())));
+
+        if (binlog.writeBack()) {
+            sweepTimer = vertx.setPeriodic(Math.max(1, binlog.sweepInterval().toMillis()), id -> sweep());
+        } else {
+            // Sin la marca, lo publicado por el binlog sigue en 'PENDING' y el barrido lo republicaría
+            LOG.warning("Binlog: sin write-back no hay barrido de solicitudes PENDING.");
+        }
+
+        if (saved == null) {
+            // Lo insertado antes de conectarse no está en la parte del binlog que se lee
+            catchUp().subscribe().with(
+                    ignored -> LOG.info("Binlog: solicitudes PENDING previas publicadas."),
+                    failure -> LOG.severe("Binlog: error publicando las solicitudes previas: "
+                            + failure.getMessage()));
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (client == null) {
+            return;
+        }
+        vertx.cancelTimer(checkpointTimer);
+        vertx.cancelTimer(sweepTimer);
+        try {
+            client.disconnect();
+            // Se espera a los envíos en curso para guardar el checkpoint más reciente posible
+            if (inFlight.tryAcquire(config.maxInFlight(), 10, TimeUnit.SECONDS)) {
+                inFlight.release(config.maxInFlight());
+            }
+            checkpoint().await().atMost(Duration.ofSeconds(10));
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("Binlog: error al detener el dispatcher: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Uni<Void> catchUp() {
+        return dispatcher.processPendingRequests()
+                .chain(claimed -> claimed >= config.pageSize() ? catchUp() : Uni.createFrom().voidItem());
+    }
+
+    private void sweep() {
+        if (!sweepRunning.compareAndSet(false, true)) {
+            return;
+        }
+        sweepPages(0, 0).subscribe().with(
+                swept -> {
+                    sweepRunning.set(false);
+                    if (swept > 0) {
+                        LOG.warning("Binlog: barrido: " + swept
+                                + " solicitudes PENDING que el binlog no publicó, reclamadas para envío.");
+                    }
+                },
+                failure -> {
+                    sweepRunning.set(false);
+                    LOG.severe("Binlog: error en el barrido de solicitudes PENDING: " + failure.getMessage());
+                });
+    }
+
+    private Uni<Integer> sweepPages(int pages, int swept) {
+        return dispatcher.processStalePendingRequests(config.binlog().sweepMinAge())
+                .chain(claimed -> claimed >= config.pageSize() && pages + 1 < SWEEP_MAX_PAGES
+                        ? sweepPages(pages + 1, swept + claimed)
+                        : Uni.createFrom().item(swept + claimed));
+    }
+
+    /**
+     * Procesa un evento del binlog. Se ejecuta en el hilo del cliente de
+     * replicación, uno a la vez y en orden.
+     */
+    private void onEvent(Event event) {
+        EventHeaderV4 header = event.getHeader();
+        EventType type = header.getEventType();
+        switch (type) {
+            case TABLE_MAP -> {
+                TableMapEventData data = event.getData();
+                if (TABLE.equals(data.getTable()) && config.binlog().database().equals(data.getDatabase())) {
+                    tableIds.add(data.getTableId());
+                } else {
+                    tableIds.remove(data.getTableId());
+                }
+            }
+            case WRITE_ROWS, EXT_WRITE_ROWS -> {
+                WriteRowsEventData data = event.getData();
+                if (tableIds.contains(data.getTableId())) {
+                    onInsert(data);
+                }
+            }
+            case XID -> onCommit(header);
+            case QUERY -> {
+                QueryEventData data = event.getData();
+                String sql = data.getSql().trim().toUpperCase(Locale.ROOT);
+                if (sql.equals("COMMIT")) {
+                    onCommit(header);
+                } else if (sql.startsWith("ALTER TABLE") && sql.contains(TABLE.toUpperCase(Locale.ROOT))) {
+                    // Las filas siguientes traen las columnas nuevas
+                    columns = repository.findColumnNames().await().indefinitely();
+                    LOG.info("Binlog: columnas de " + TABLE + " recargadas: " + columns);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void onInsert(WriteRowsEventData data) {
+        BitSet included = data.getIncludedColumns();
+        Row row = new Row(columns, included);
+        for (Serializable[] values : data.getRows()) {
+            TopupRequestEntity entity;
+            long createdAt;
+            SpecificRecord event;
+            try {
+                entity = row.toEntity(values);
+                if (!"PENDING".equals(entity.status)) {
+                    continue;
+                }
+                Serializable created = row.value(values, "created_at");
+                createdAt = created != null
+                        ? (Long) created / 1_000 - utcOffsetSeconds * 1_000L
+                        : System.currentTimeMillis();
+                event = config.eventVersion().toEvent(entity, createdAt);
+            } catch (RuntimeException ex) {
+                // Fila que no cabe en el esquema: queda en 'PENDING' y no detiene el resto del binlog
+                LOG.severe("Binlog: fila de " + TABLE + " no publicable: " + ex.getMessage());
+                continue;
+            }
+            send(entity, event, createdAt);
+        }
+    }
+
+    private void send(TopupRequestEntity entity, SpecificRecord event, long createdAt) {
+        // Contrapresión: el binlog no avanza mientras haya 'max-in-flight' envíos sin confirmar
+        inFlight.acquireUninterruptibly();
+        Transaction transaction = openTransaction();
+        transaction.pending.incrementAndGet();
+        long queuedNanos = Math.max(0, System.currentTimeMillis() - createdAt) * 1_000_000;
+        Uni.createFrom().deferred(() -> dispatcher.publish(entity, event, createdAt, queuedNanos))
+                .onFailure(BinlogDispatcherService::isRetriable)
+                .invoke(ex -> LOG.warning("Binlog: reintentando el envío del ID " + entity.rechargeId + ": "
+                        + ex.getMessage()))
+                .onFailure(BinlogDispatcherService::isRetriable).retry()
+                .withBackOff(Duration.ofMillis(100), Duration.ofSeconds(10)).indefinitely()
+                .subscribe().with(
+                        ignored -> {
+                            acknowledged.add(entity.rechargeId);
+                            transaction.pending.decrementAndGet();
+                            inFlight.release();
+                        },
+                        failure -> {
+                            // Fallaría igual en cada reintento: la fila queda en 'PENDING' para el barrido
+                            LOG.severe("Binlog: Kafka rechazó el ID " + entity.rechargeId + ": " + failure);
+                            rejectedSends.increment();
+                            transaction.pending.decrementAndGet();
+                            inFlight.release();
+                        });
+    }
+
+    /**
+     * Un error de Kafka que no es {@link RetriableException} (registro demasiado
+     * grande, serialización, autorización) se repetiría en cada reintento. El
+     * resto (timeouts, broker no disponible) se reintenta.
+     */
+    private static boolean isRetriable(Throwable failure) {
+        boolean kafka = false;
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+            kafka |= cause instanceof KafkaException;
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return !kafka;
+    }
+
+    private synchronized Transaction openTransaction() {
+        if (open == null) {
+            open = new Transaction();
+            transactions.addLast(open);
+        }
+        return open;
+    }
+
+    private synchronized void onCommit(EventHeaderV4 header) {
+        Position position = new Position(client.getBinlogFilename(), header.getNextPosition());
+        if (open != null) {
+            open.position = position;
+            open = null;
+        } else if (transactions.isEmpty()) {
+            // Transacción sin inserts en recharge_requests y nada pendiente antes
+            committed = position;
+        } else {
+            Transaction last = transactions.peekLast();
+            if (last.empty) {
+                last.position = position;
+            } else {
+                Transaction marker = new Transaction();
+                marker.position = position;
+                marker.empty = true;
+                transactions.addLast(marker);
+            }
+        }
+    }
+
+    private synchronized Position advance() {
+        Transaction head = transactions.peekFirst();
+        while (head != null && head.position != null && head.pending.get() == 0) {
+            committed = head.position;
+            transactions.pollFirst();
+            head = transactions.peekFirst();
+        }
+        return committed;
+    }
+
+    /**
+     * Marca las solicitudes confirmadas y guarda la posición alcanzada. Nunca
+     * hay dos ejecuciones a la vez.
+     */
+    private Uni<Void> checkpoint() {
+        if (!checkpointRunning.compareAndSet(false, true)) {
+            return Uni.createFrom().voidItem();
+        }
+        // La posición se toma antes de marcar: todo lo que cubre ya está en 'acknowledged'
+        Position position = advance();
+        List<UUID> ids = new ArrayList<>();
+        for (UUID id = acknowledged.poll(); id != null; id = acknowledged.poll()) {
+            ids.add(id);
+        }
+        Uni<Void> marked = config.binlog().writeBack() ? markSent(ids, 0) : Uni.createFrom().voidItem();
+        return marked
+                .chain(() -> position == null || position.equals(saved)
+                        ? Uni.createFrom().voidItem()
+                        : checkpoints.save(config.binlog().checkpointName(), position)
+                                .invoke(() -> saved = position))
+                // Ante un fallo la posición no se guarda y los IDs vuelven a la cola para el siguiente intento
+                .onFailure().invoke(() -> acknowledged.addAll(ids))
+                .eventually(() -> checkpointRunning.set(false));
+    }
+
+    private Uni<Void> markSent(List<UUID> ids, int from) {
+        if (from >= ids.size()) {
+            return Uni.createFrom().voidItem();
+        }
+        int to = Math.min(ids.size(), from + config.pageSize());
+        return repository.markSentFromPending(ids.subList(from, to))
+                .invoke(updated -> LOG.fine("Binlog: " + updated + " solicitudes marcadas como SENT_TO_KAFKA."))
+                .chain(updated -> markSent(ids, to));
+    }
+
+    /**
+     * Filas enviadas de una transacción y posición de su commit (null mientras
+     * no se ha leído el commit). Las marcadas como vacías representan commits
+     * sin inserts que esperan detrás de una transacción con envíos en curso.
+     */
+    private static final class Transaction {
+        final AtomicInteger pending = new AtomicInteger();
+        volatile Position position;
+        boolean empty;
+    }
+
+    /**
+     * Lectura de los valores de una fila del binlog por nombre de columna.
+     * <p>
+     * El evento solo trae las columnas marcadas en includedColumns, en el orden
+     * de la tabla.
+     * </p>
+     */
+    private static final class Row {
+        private final List<String> names = new ArrayList<>();
+
+        Row(List<String> columns, BitSet included) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (included.get(i)) {
+                    names.add(columns.get(i));
+                }
+            }
+        }
+
+        Serializable value(Serializable[] values, String column) {
+            int index = names.indexOf(column);
+            return index >= 0 && index < values.length ? values[index] : null;
+        }
+
+        String text(Serializable[] values, String column) {
+            Serializable value = value(values, column);
+            return value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : (String) value;
+        }
+
+        TopupRequestEntity toEntity(Serializable[] values) {
+            TopupRequestEntity entity = new TopupRequestEntity();
+            // MySQL quita del binlog los ceros finales de BINARY(16)
+            entity.rechargeId = RechargeIds.fromBytes(Arrays.copyOf((byte[]) value(values, "recharge_id"), 16));
+            entity.phoneNumber = text(values, "phone_number");
+            entity.amount = (BigDecimal) value(values, "amount");
+            entity.carrier = text(values, "carrier");
+            entity.status = text(values, "status");
+            entity.traceParent = text(values, "trace_parent");
+            return entity;
+        }
+    }
+}
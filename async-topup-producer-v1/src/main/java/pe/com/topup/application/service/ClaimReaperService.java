@@ -0,0 +1,44 @@
+package pe.com.topup.application.service;
+
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import pe.com.topup.domain.repository.TopupRequestRepository;
+
+import java.util.logging.Logger;
+
+/**
+ * Servicio que recupera los reclamos vencidos del dispatcher.
+ * <p>
+ * Si una instancia del producer se detiene después de reclamar una página y
+ * antes de terminarla, sus registros quedan en 'DISPATCHING'. Una vez vencido
+ * el lease, esta tarea los devuelve a 'PENDING' para que cualquier réplica los
+ * vuelva a reclamar.
+ * </p>
+ */
+@ApplicationScoped
+public class ClaimReaperService {
+
+    private static final Logger LOG = Logger.getLogger(ClaimReaperService.class.getName());
+
+    @Inject
+    TopupRequestRepository repository;
+
+    /**
+     * Tarea programada que libera los reclamos con lease vencido.
+     *
+     * @return Un {@link Uni} que representa la completitud de la tarea.
+     */
+    @Scheduled(every = "{topup.dispatcher.reaper-interval}", delayed = "30s",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> reapExpiredClaims() {
+        return repository.reapExpiredClaims()
+                .invoke(reaped -> {
+                    if (reaped > 0) {
+                        LOG.warning("Reaper: " + reaped + " solicitudes con lease vencido devueltas a PENDING.");
+                    }
+                })
+                .replaceWithVoid();
+    }
+}
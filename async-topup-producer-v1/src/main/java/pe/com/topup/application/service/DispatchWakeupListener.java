@@ -0,0 +1,32 @@
+package pe.com.topup.application.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+/**
+ * Escucha las señales de "nuevo insert" publicadas por sync-topup-api-v1 y
+ * adelanta el siguiente ciclo del dispatcher.
+ * <p>
+ * La señal no lleva datos: solo indica que probablemente hay registros
+ * 'PENDING'. Si se pierde, el registro se envía igual en el siguiente ciclo
+ * programado.
+ * </p>
+ */
+@ApplicationScoped
+public class DispatchWakeupListener {
+
+    @Inject
+    AdaptiveDispatchScheduler scheduler;
+
+    /**
+     * Paso 1: Recibe la señal desde el tópico de wakeup.
+     * Paso 2: Despierta al planificador.
+     *
+     * @param signal Contenido de la señal (se ignora).
+     */
+    @Incoming("dispatch-wakeup")
+    public void onWakeup(String signal) {
+        scheduler.wake();
+    }
+}
@@ -1,17 +1,37 @@
 package pe.com.topup.application.service;
 
-import io.quarkus.scheduler.Scheduled;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
 import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.TracingMetadata;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.Multi;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
 
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import pe.com.topup.application.config.DispatcherConfig;
+import pe.com.topup.domain.entity.TopupRequestEntity;
 import pe.com.topup.domain.repository.TopupRequestRepository;
 import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.model.TopUpEventV2;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.UUID;
 import java.util.logging.Logger;
 
 /**
@@ -23,95 +43,276 @@ import java.util.logging.Logger;
  * y envía los registros pendientes al sistema de mensajería para su
  * procesamiento asíncrono.
  * </p>
+ * <p>
+ * El trabajo se hace en páginas acotadas que cada instancia reclama de forma
+ * atómica, por lo que pueden ejecutarse varias réplicas del producer a la vez
+ * y la memoria usada no depende del tamaño del backlog.
+ * </p>
  */
 @ApplicationScoped
 public class DispatcherService {
 
         private static final Logger LOG = Logger.getLogger(DispatcherService.class.getName());
 
+        /**
+         * Header con la fecha de creación de la solicitud (epoch millis), para medir
+         * la latencia de punta a punta en el consumer.
+         */
+        static final String CREATED_AT_HEADER = "x-topup-created-at";
+
+        private static final TextMapGetter<String> TRACE_PARENT_GETTER = new TextMapGetter<>() {
+                @Override
+                public Iterable<String> keys(String carrier) {
+                        return List.of("traceparent");
+                }
+
+                @Override
+                public String get(String carrier, String key) {
+                        return "traceparent".equals(key) ? carrier : null;
+                }
+        };
+
         @Inject
         TopupRequestRepository repository;
 
+        @Inject
+        DispatcherConfig config;
+
         @Inject
         @Channel("topup-requests")
         MutinyEmitter<TopUpEvent> emitter;
 
         /**
-         * Tarea programada que se ejecuta cada segundo para procesar solicitudes
-         * pendientes.
+         * Mismo tópico que "topup-requests", pero con subject por nombre de record
+         * para que v1 y v2 convivan en el registry.
+         */
+        @Inject
+        @Channel("topup-requests-v2")
+        MutinyEmitter<TopUpEventV2> emitterV2;
+
+        @Inject
+        MeterRegistry registry;
+
+        private Timer enqueueToPublish;
+        private DistributionSummary pageSizes;
+        private Timer sendAcknowledged;
+        private Timer sendFailed;
+
+        @PostConstruct
+        void init() {
+                enqueueToPublish = Timer.builder("topup.dispatcher.enqueue.to.publish")
+                                .description("Tiempo desde la inserción de la solicitud hasta la confirmación de Kafka")
+                                .publishPercentiles(0.5, 0.99)
+                                .publishPercentileHistogram()
+                                .register(registry);
+                pageSizes = DistributionSummary.builder("topup.dispatcher.page.size")
+                                .description("Solicitudes reclamadas por página")
+                                .publishPercentileHistogram()
+                                .register(registry);
+                sendAcknowledged = sendTimer("acknowledged");
+                sendFailed = sendTimer("failed");
+        }
+
+        private Timer sendTimer(String outcome) {
+                return Timer.builder("topup.dispatcher.send")
+                                .description("Tiempo desde el envío de un evento hasta la respuesta del broker")
+                                .tag("outcome", outcome)
+                                .publishPercentileHistogram()
+                                .register(registry);
+        }
+
+        /**
+         * Procesa una página de solicitudes pendientes. Lo invoca
+         * {@link AdaptiveDispatchScheduler}, que decide cuándo ejecutar el siguiente ciclo.
          * <p>
          * El flujo reactivo es el siguiente:
-         * 1. Consulta la base de datos buscando registros en estado 'PENDING'.
-         * 2. Transforma cada entidad en un evento {@link TopUpEvent}.
-         * 3. Envía el evento a Kafka de forma asíncrona.
-         * 4. Si el envío es exitoso, actualiza el estado en base de datos a
-         * 'SENT_TO_KAFKA'.
-         * 5. Si ocurre un error en el envío, el registro permanece en 'PENDING' para
-         * reintento.
+         * 1. Reclama una página de registros 'PENDING' (pasan a 'DISPATCHING' con un
+         * token y un lease propios de esta instancia).
+         * 2. Transforma cada entidad en un evento {@link TopUpEvent} o
+         * {@link TopUpEventV2}, según 'event-version'.
+         * 3. Envía los eventos a Kafka de forma asíncrona, con hasta
+         * 'max-in-flight' envíos simultáneos esperando confirmación.
+         * 4. Actualiza a 'SENT_TO_KAFKA' todos los IDs confirmados de la página con
+         * un único UPDATE.
+         * 5. Los registros de la página que no pudieron enviarse vuelven a 'PENDING'
+         * para reintento.
          * </p>
          *
-         * @return Un {@link Uni} que representa la completitud del ciclo de
-         *         procesamiento.
+         * @return Un {@link Uni} con la cantidad de registros reclamados (0 si no
+         *         había pendientes).
          */
-        @Scheduled(every = "10s", delayed = "5s")
-        @WithTransaction
-        public Uni<Void> processPendingRequests() {
-                LOG.info("Paso 1: Inicio del ciclo de escaneo (Polling) de solicitudes pendientes.");
-
-                return repository.findPendingRequests()
-                                .onItem().transformToMulti(list -> {
-                                        if (list.isEmpty()) {
-                                                return Multi.createFrom().empty();
-                                        }
-                                        LOG.info("Paso 2: Se encontraron " + list.size()
-                                                        + " solicitudes pendientes. IDs: "
-                                                        + list.stream().map(e -> e.rechargeId).toList());
-                                        return Multi.createFrom().iterable(list);
+        public Uni<Integer> processPendingRequests() {
+                return process(claimToken -> repository.claimPending(claimToken, config.pageSize(),
+                                config.leaseDuration()));
+        }
+
+        /**
+         * Igual que {@link #processPendingRequests()}, pero solo reclama las
+         * solicitudes creadas hace más de 'minAge'. Lo usa el barrido de
+         * {@link BinlogDispatcherService} para las filas que el binlog no publicó.
+         *
+         * @param minAge Antigüedad mínima desde created_at.
+         * @return Un {@link Uni} con la cantidad de registros reclamados (0 si no
+         *         había pendientes con esa antigüedad).
+         */
+        public Uni<Integer> processStalePendingRequests(Duration minAge) {
+                return process(claimToken -> repository.claimStalePending(claimToken, config.pageSize(),
+                                config.leaseDuration(), minAge));
+        }
+
+        private Uni<Integer> process(Function<String, Uni<List<TopupRequestEntity>>> claim) {
+                return Uni.createFrom().deferred(() -> {
+                        LOG.fine("Paso 1: Inicio del ciclo de escaneo (Polling) de solicitudes pendientes.");
+                        Timer.Sample cycle = Timer.start(registry);
+                        String claimToken = UUID.randomUUID().toString();
+                        return claim.apply(claimToken)
+                                        .chain(page -> {
+                                                if (page.isEmpty()) {
+                                                        return Uni.createFrom().item(0);
+                                                }
+                                                pageSizes.record(page.size());
+                                                LOG.info("Paso 2: Se reclamaron " + page.size()
+                                                                + " solicitudes pendientes (token " + claimToken
+                                                                + "). IDs: "
+                                                                + page.stream().map(e -> e.rechargeId).toList());
+                                                return dispatchPage(claimToken, page).replaceWith(page.size());
+                                        })
+                                        // Duración del ciclo completo: reclamo, envíos y actualización de estados
+                                        .onItemOrFailure().invoke((claimed, failure) -> cycle.stop(Timer
+                                                        .builder("topup.dispatcher.cycle")
+                                                        .description("Duración de un ciclo del dispatcher")
+                                                        .tag("result", failure != null ? "error"
+                                                                        : claimed > 0 ? "dispatched" : "idle")
+                                                        .publishPercentileHistogram()
+                                                        .register(registry)));
+                });
+        }
+
+        private Uni<Void> dispatchPage(String claimToken, List<TopupRequestEntity> page) {
+                long claimedAt = System.nanoTime();
+                return Multi.createFrom().iterable(page)
+                                // Hasta maxInFlight envíos simultáneos esperando confirmación del broker.
+                                .onItem().transformToUni(entity -> send(entity, claimedAt)).merge(config.maxInFlight())
+                                .filter(Objects::nonNull)
+                                .collect().asList()
+                                .chain(acknowledged -> {
+                                        // Paso 6: Un único UPDATE ... IN (...) para todos los IDs confirmados.
+                                        return repository.markSent(acknowledged, claimToken)
+                                                        .invoke(updated -> LOG.info(
+                                                                        "Paso 6: Estado en DB actualizado a SENT_TO_KAFKA para "
+                                                                                        + updated + " de " + page.size()
+                                                                                        + " solicitudes (token "
+                                                                                        + claimToken + ")."));
                                 })
-                                .onItem().transformToUniAndConcatenate(entity -> {
-                                        LOG.info("Paso 3: Procesando ID " + entity.rechargeId
-                                                        + ". Transformando a evento Avro. Datos: "
-                                                        + entity.toString());
-
-                                        // Paso 3: Transformación a objeto Avro generado.
-                                        TopUpEvent event = TopUpEvent.newBuilder()
-                                                        .setRequestId(entity.rechargeId)
-                                                        .setPhoneNumber(entity.phoneNumber)
-                                                        .setAmount(entity.amount != null ? entity.amount.toString()
-                                                                        : null)
-                                                        .setCarrier(entity.carrier)
-                                                        .build();
-
-                                        LOG.info("Paso 4: Evento Avro creado. Payload: " + event.toString()
-                                                        + ". Enviando a Kafka...");
-                                        // Paso 4: Publicación del evento en el broker de Kafka.
-                                        return emitter.send(event)
-                                                        .onItem()
-                                                        .invoke(() -> LOG
-                                                                        .info("Paso 5: Evento enviado exitosamente a Kafka para ID: "
-                                                                                        + entity.rechargeId))
-                                                        .onItem().transformToUni(v -> {
-                                                                // Paso 5: Actualización final del estado en la base de
-                                                                // datos para confirmar el
-                                                                // envío.
-                                                                return repository.update(
-                                                                                "status = 'SENT_TO_KAFKA' where rechargeId = ?1",
-                                                                                entity.rechargeId)
-                                                                                .onItem().invoke(() -> LOG.info(
-                                                                                                "Paso 6: Estado en DB actualizado a SENT_TO_KAFKA para ID: "
-                                                                                                                + entity.rechargeId));
-                                                        })
-                                                        .onFailure()
-                                                        .invoke(ex -> LOG
-                                                                        .severe("Error en el flujo para ID "
-                                                                                        + entity.rechargeId + ": "
-                                                                                        + ex.getMessage()))
-                                                        // Robustez: Si falla, recuperamos con null para no romper el
-                                                        // flujo de otros
-                                                        // items
-                                                        .onFailure().recoverWithNull();
+                                .onFailure()
+                                .invoke(ex -> LOG.severe("Error actualizando la página " + claimToken + ": "
+                                                + ex.getMessage()))
+                                .onFailure().recoverWithItem(0)
+                                // Paso 7: Lo que quedó en 'DISPATCHING' con este token vuelve a 'PENDING'.
+                                .chain(sent -> repository.releaseClaim(claimToken))
+                                .invoke(released -> {
+                                        if (released > 0) {
+                                                LOG.warning("Paso 7: " + released
+                                                                + " solicitudes devueltas a PENDING (token "
+                                                                + claimToken + ").");
+                                        }
                                 })
-                                .collect().asList()
                                 .replaceWithVoid();
         }
+
+        /**
+         * Envía una solicitud a Kafka.
+         *
+         * @param entity    Solicitud reclamada.
+         * @param claimedAt {@link System#nanoTime()} del reclamo de la página.
+         * @return Un {@link Uni} con el ID si el broker confirmó el envío, o null si falló.
+         */
+        private Uni<UUID> send(TopupRequestEntity entity, long claimedAt) {
+                LOG.fine("Paso 3: Procesando ID " + entity.rechargeId
+                                + ". Transformando a evento Avro. Datos: " + entity);
+
+                // Paso 3: Transformación a objeto Avro generado, en la versión configurada.
+                long sentAt = System.nanoTime();
+                long queuedNanos = entity.queuedMicros * 1_000 + (sentAt - claimedAt);
+                long createdAt = System.currentTimeMillis() - queuedNanos / 1_000_000;
+                SpecificRecord event;
+                try {
+                        event = config.eventVersion().toEvent(entity, createdAt);
+                } catch (RuntimeException ex) {
+                        // Datos que no caben en el esquema (p. ej. monto con más de 2 decimales o nulo):
+                        // se trata como un envío fallido y el registro vuelve a 'PENDING'.
+                        LOG.severe("Error transformando el ID " + entity.rechargeId + ": " + ex.getMessage());
+                        return Uni.createFrom().nullItem();
+                }
+
+                return publish(entity, event, createdAt, queuedNanos)
+                                .replaceWith(entity.rechargeId)
+                                .onFailure()
+                                .invoke(ex -> LOG.severe("Error en el flujo para ID " + entity.rechargeId + ": "
+                                                + ex.getMessage()))
+                                // Robustez: Si falla, recuperamos con null para no romper el flujo de otros
+                                // items; el registro vuelve a 'PENDING' al cerrar la página.
+                                .onFailure().recoverWithNull();
+        }
+
+        /**
+         * Publica el evento de una solicitud y registra las métricas del envío. Lo
+         * usan el ciclo de polling y {@link BinlogDispatcherService}.
+         *
+         * @param entity      Solicitud a enviar (clave, traza).
+         * @param event       Evento Avro ya construido.
+         * @param createdAt   Fecha de creación de la solicitud (epoch millis).
+         * @param queuedNanos Tiempo que la solicitud llevaba creada al momento del envío.
+         * @return Un {@link Uni} que completa cuando el broker confirma el envío, o
+         *         falla si el envío falló.
+         */
+        Uni<Void> publish(TopupRequestEntity entity, SpecificRecord event, long createdAt, long queuedNanos) {
+                // Paso 4: Publicación del evento en el broker de Kafka, con la clave que
+                // define su partición. La fecha de creación viaja en un header (v2 también
+                // la lleva en el payload) y la traza del sync API continúa: el connector
+                // inyecta el traceparent del envío.
+                long sentAt = System.nanoTime();
+                RecordHeaders headers = new RecordHeaders();
+                headers.add(CREATED_AT_HEADER, Long.toString(createdAt).getBytes(StandardCharsets.UTF_8));
+                Message<SpecificRecord> message = Message.of(event)
+                                .addMetadata(OutgoingKafkaRecordMetadata.<String>builder()
+                                                .withKey(config.partitionKey().keyFor(entity))
+                                                .withHeaders(headers)
+                                                .build())
+                                .addMetadata(TracingMetadata.withCurrent(parentContext(entity.traceParent)));
+                return emit(message)
+                                .onItem()
+                                .invoke(() -> {
+                                        LOG.fine("Paso 5: Evento enviado exitosamente a Kafka para ID: "
+                                                        + entity.rechargeId);
+                                        long now = System.nanoTime();
+                                        sendAcknowledged.record(now - sentAt, TimeUnit.NANOSECONDS);
+                                        enqueueToPublish.record(queuedNanos + (now - sentAt), TimeUnit.NANOSECONDS);
+                                })
+                                .onFailure()
+                                .invoke(ex -> sendFailed.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS));
+        }
+
+        @SuppressWarnings("unchecked")
+        private Uni<Void> emit(Message<SpecificRecord> message) {
+                if (message.getPayload() instanceof TopUpEventV2) {
+                        return emitterV2.sendMessage((Message<TopUpEventV2>) (Message<?>) message);
+                }
+                return emitter.sendMessage((Message<TopUpEvent>) (Message<?>) message);
+        }
+
+        /**
+         * Reconstruye el contexto de traza guardado por el sync API.
+         *
+         * @param traceParent Valor W3C traceparent (puede ser null).
+         * @return Contexto cuyo span padre es el de la petición HTTP original, o el
+         *         contexto actual si la solicitud no trae traza.
+         */
+        private static Context parentContext(String traceParent) {
+                if (traceParent == null) {
+                        return Context.current();
+                }
+                return W3CTraceContextPropagator.getInstance().extract(Context.root(), traceParent,
+                                TRACE_PARENT_GETTER);
+        }
 }
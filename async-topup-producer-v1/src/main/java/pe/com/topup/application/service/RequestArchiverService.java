@@ -0,0 +1,135 @@
+package pe.com.topup.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import pe.com.topup.application.config.ArchiverConfig;
+import pe.com.topup.domain.repository.RequestArchiveRepository;
+import pe.com.topup.domain.repository.RequestArchiveRepository.Batch;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Archivador de solicitudes terminadas (ciclo de vida caliente/frío).
+ * <p>
+ * recharge_requests y process_audits solo guardan lo vivo: las solicitudes
+ * 'COMPLETED' o 'FAILED' con más de 'min-age' se mueven, con sus auditorías,
+ * a las tablas de historial particionadas por mes. Así el reclamo del
+ * dispatcher y las consultas del consumer recorren una tabla de tamaño
+ * estable aunque el historial crezca.
+ * </p>
+ * <p>
+ * Cada ejecución:
+ * 1. Crea las particiones mensuales que falten en el historial.
+ * 2. Mueve lotes de 'batch-size' solicitudes, cada uno en su transacción y
+ * con una pausa de 'pause' entre lotes, hasta que no queda ninguna con la
+ * antigüedad mínima.
+ * 3. Registra las filas movidas y la tasa (filas por segundo) de la ejecución.
+ * </p>
+ */
+@ApplicationScoped
+public class RequestArchiverService {
+
+    private static final Logger LOG = Logger.getLogger(RequestArchiverService.class.getName());
+
+    private final RequestArchiveRepository repository;
+    private final ArchiverConfig config;
+    private final Counter requestsMoved;
+    private final Counter auditsMoved;
+    private final AtomicLong rowsPerSecond = new AtomicLong();
+
+    @Inject
+    public RequestArchiverService(RequestArchiveRepository repository, ArchiverConfig config,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.config = config;
+        this.requestsMoved = rowsCounter(registry, "recharge_requests");
+        this.auditsMoved = rowsCounter(registry, "process_audits");
+        Gauge.builder("topup.archiver.rows.per.second", rowsPerSecond, AtomicLong::get)
+                .description("Filas movidas al historial por segundo en la última ejecución")
+                .register(registry);
+    }
+
+    private static Counter rowsCounter(MeterRegistry registry, String table) {
+        return Counter.builder("topup.archiver.rows")
+                .description("Filas movidas de las tablas vivas al historial")
+                .tag("table", table)
+                .register(registry);
+    }
+
+    /**
+     * Tarea programada que mueve al historial las solicitudes terminadas.
+     *
+     * @return Un {@link Uni} que representa la completitud de la tarea.
+     */
+    @Scheduled(every = "{topup.archiver.interval}", delayed = "60s",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> archive() {
+        if (!config.enabled()) {
+            return Uni.createFrom().voidItem();
+        }
+        long start = System.nanoTime();
+        return ensurePartitions()
+                .chain(() -> moveAll(0, 0))
+                .invoke(moved -> {
+                    long requests = moved[0];
+                    long audits = moved[1];
+                    double seconds = Math.max(1e-3, (System.nanoTime() - start) / 1e9);
+                    rowsPerSecond.set(Math.round((requests + audits) / seconds));
+                    if (requests > 0) {
+                        LOG.info(String.format("Archiver: %d solicitudes y %d auditorías movidas al historial"
+                                + " en %.1f s (%d filas/s).", requests, audits, seconds, rowsPerSecond.get()));
+                    }
+                })
+                .onFailure()
+                .invoke(ex -> LOG.severe("Archiver: error moviendo solicitudes al historial: " + ex.getMessage()))
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> ensurePartitions() {
+        // Lo que se archive en esta ejecución tiene al menos 'min-age'; lo anterior cae en la primera partición
+        YearMonth now = YearMonth.now();
+        YearMonth from = YearMonth.from(LocalDate.now().minusDays(config.minAge().toDays()));
+        YearMonth until = now.plusMonths(Math.max(1, config.partitionsAhead()));
+        return Multi.createFrom().iterable(RequestArchiveRepository.HISTORY_TABLES)
+                .onItem().transformToUniAndConcatenate(table -> repository.ensureMonthlyPartitions(table, from, until)
+                        .invoke(created -> {
+                            if (created > 0) {
+                                LOG.info("Archiver: " + created + " particiones nuevas en " + table + ".");
+                            }
+                        }))
+                .collect().last()
+                .replaceWithVoid();
+    }
+
+    private Uni<long[]> moveAll(long requests, long audits) {
+        return repository.moveBatch(config.minAge(), config.batchSize())
+                .chain(batch -> {
+                    record(batch);
+                    long[] moved = { requests + batch.requests(), audits + batch.audits() };
+                    if (batch.requests() < config.batchSize()) {
+                        return Uni.createFrom().item(moved);
+                    }
+                    if (config.pause().isZero()) {
+                        return moveAll(moved[0], moved[1]);
+                    }
+                    // Pausa entre lotes: los locks del lote ya se liberaron con el commit
+                    return Uni.createFrom().voidItem()
+                            .onItem().delayIt().by(config.pause())
+                            .chain(() -> moveAll(moved[0], moved[1]));
+                });
+    }
+
+    private void record(Batch batch) {
+        requestsMoved.increment(batch.requests());
+        auditsMoved.increment(batch.audits());
+    }
+}
@@ -4,8 +4,12 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Entidad JPA que representa una solicitud de recarga en la base de datos.
@@ -21,12 +25,14 @@ public class TopupRequestEntity {
     /**
      * Identificador único de la recarga.
      * <p>
-     * Se define como clave primaria y tiene una longitud de 36 caracteres (UUID).
+     * Se define como clave primaria. Es un UUID versión 7 (ordenado por tiempo)
+     * almacenado en formato binario compacto (BINARY(16)).
      * </p>
      */
     @Id
-    @Column(name = "recharge_id", length = 36)
-    public String rechargeId;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "recharge_id", length = 16)
+    public UUID rechargeId;
 
     /**
      * Número de teléfono beneficiario de la recarga.
@@ -57,7 +63,7 @@ public class TopupRequestEntity {
     public String carrier;
 
     /**
-     * Estado actual de la solicitud (e.g., PENDING, SENT_TO_KAFKA).
+     * Estado actual de la solicitud (e.g., PENDING, DISPATCHING, SENT_TO_KAFKA).
      * <p>
      * Controla el flujo de procesamiento de la recarga.
      * </p>
@@ -65,6 +71,44 @@ public class TopupRequestEntity {
     @Column(name = "status", length = 20)
     public String status;
 
+    /**
+     * Token de la página del dispatcher que reclamó el registro.
+     * <p>
+     * Solo tiene valor mientras el estado es 'DISPATCHING'.
+     * </p>
+     */
+    @Column(name = "claim_token", length = 36)
+    public String claimToken;
+
+    /**
+     * Vencimiento del lease del reclamo.
+     * <p>
+     * Pasada esta fecha, el reaper devuelve el registro a 'PENDING'.
+     * </p>
+     */
+    @Column(name = "claim_expires_at")
+    public LocalDateTime claimExpiresAt;
+
+    /**
+     * Contexto de traza W3C (traceparent) de la petición HTTP que creó el registro.
+     * <p>
+     * Lo guarda el sync API; el dispatcher lo usa como padre del envío a Kafka
+     * para que la recarga se pueda seguir de punta a punta.
+     * </p>
+     */
+    @Column(name = "trace_parent", length = 55)
+    public String traceParent;
+
+    /**
+     * Microsegundos que el registro llevaba en la tabla cuando fue reclamado,
+     * medidos con el reloj de la base de datos.
+     * <p>
+     * Solo se llena al reclamar; no se persiste.
+     * </p>
+     */
+    @Transient
+    public long queuedMicros;
+
     /**
      * Fecha y hora de creación del registro.
      * <p>
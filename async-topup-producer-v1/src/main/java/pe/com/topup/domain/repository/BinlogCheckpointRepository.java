@@ -0,0 +1,79 @@
+package pe.com.topup.domain.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Iterator;
+
+/**
+ * Repositorio de la posición del binlog ya publicada por el dispatcher en modo
+ * binlog (tabla dispatcher_binlog_checkpoints).
+ * <p>
+ * Cada fila guarda, para un nombre de dispatcher, el archivo y la posición
+ * del binlog hasta donde todas las solicitudes insertadas fueron confirmadas
+ * por Kafka. Al reiniciar se retoma la lectura desde ahí.
+ * </p>
+ */
+@ApplicationScoped
+public class BinlogCheckpointRepository {
+
+    private static final String FIND_SQL = "SELECT binlog_file, binlog_position"
+            + " FROM dispatcher_binlog_checkpoints WHERE checkpoint_name = ?";
+
+    private static final String SAVE_SQL = "INSERT INTO dispatcher_binlog_checkpoints"
+            + " (checkpoint_name, binlog_file, binlog_position) VALUES (?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE binlog_file = VALUES(binlog_file),"
+            + " binlog_position = VALUES(binlog_position)";
+
+    /**
+     * Posición en el binlog: archivo y offset del siguiente evento a leer.
+     *
+     * @param file     Nombre del archivo de binlog.
+     * @param position Offset dentro del archivo.
+     */
+    public record Position(String file, long position) {
+    }
+
+    private final Pool pool;
+
+    @Inject
+    public BinlogCheckpointRepository(Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Lee la última posición guardada.
+     *
+     * @param checkpointName Nombre del dispatcher.
+     * @return Un {@link Uni} con la posición, o null si nunca se guardó una.
+     */
+    public Uni<Position> find(String checkpointName) {
+        return pool.preparedQuery(FIND_SQL)
+                .execute(Tuple.of(checkpointName))
+                .map(rows -> {
+                    Iterator<Row> iterator = rows.iterator();
+                    if (!iterator.hasNext()) {
+                        return null;
+                    }
+                    Row row = iterator.next();
+                    return new Position(row.getString("binlog_file"), row.getLong("binlog_position"));
+                });
+    }
+
+    /**
+     * Guarda (o reemplaza) la posición publicada.
+     *
+     * @param checkpointName Nombre del dispatcher.
+     * @param position       Posición hasta donde todo fue confirmado por Kafka.
+     * @return Un {@link Uni} que completa cuando la posición quedó guardada.
+     */
+    public Uni<Void> save(String checkpointName, Position position) {
+        return pool.preparedQuery(SAVE_SQL)
+                .execute(Tuple.of(checkpointName, position.file(), position.position()))
+                .replaceWithVoid();
+    }
+}
@@ -0,0 +1,38 @@
+package pe.com.topup.domain.repository;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversiones entre el ID de una recarga y su forma de 16 bytes big-endian,
+ * la que guardan las columnas BINARY(16) y viaja en los eventos v2.
+ */
+public final class RechargeIds {
+
+    private RechargeIds() {
+    }
+
+    /**
+     * Convierte un ID a sus 16 bytes.
+     *
+     * @param id El ID.
+     * @return Los 16 bytes del ID.
+     */
+    public static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Convierte 16 bytes al ID que representan.
+     *
+     * @param bytes Los 16 bytes del ID.
+     * @return El ID.
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
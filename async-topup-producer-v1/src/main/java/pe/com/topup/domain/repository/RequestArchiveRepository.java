@@ -0,0 +1,167 @@
+package pe.com.topup.domain.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.SqlResult;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Repositorio del ciclo de vida caliente/frío de las solicitudes.
+ * <p>
+ * Mueve las solicitudes terminadas ('COMPLETED' o 'FAILED') y sus auditorías
+ * de recharge_requests y process_audits a recharge_requests_history y
+ * process_audits_history, por lotes y cada lote en una transacción. Las
+ * tablas de historial están particionadas por mes; las particiones se crean
+ * por adelantado partiendo la partición p_future.
+ * </p>
+ */
+@ApplicationScoped
+public class RequestArchiveRepository {
+
+    /**
+     * Tablas de historial, particionadas por mes (pYYYYMM + p_future).
+     */
+    public static final List<String> HISTORY_TABLES = List.of("recharge_requests_history",
+            "process_audits_history");
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String FUTURE_PARTITION = "p_future";
+
+    // Sin ORDER BY: el rango de idx_status_created se lee solo hasta completar el lote
+    private static final String SELECT_BATCH_SQL = "SELECT recharge_id FROM recharge_requests"
+            + " WHERE status IN ('COMPLETED', 'FAILED') AND created_at < DATE_SUB(NOW(6), INTERVAL ? SECOND)"
+            + " LIMIT ? FOR UPDATE";
+
+    private static final String COPY_AUDITS_PREFIX = "INSERT INTO process_audits_history"
+            + " (audit_id, recharge_id, completion_date, error_details)"
+            + " SELECT audit_id, recharge_id, COALESCE(completion_date, NOW()), error_details"
+            + " FROM process_audits WHERE recharge_id IN ";
+
+    private static final String DELETE_AUDITS_PREFIX = "DELETE FROM process_audits WHERE recharge_id IN ";
+
+    private static final String COPY_REQUESTS_PREFIX = "INSERT INTO recharge_requests_history"
+            + " (recharge_id, phone_number, amount, carrier, status, created_at, updated_at, trace_parent)"
+            + " SELECT recharge_id, phone_number, amount, carrier, status, COALESCE(created_at, updated_at, NOW(6)),"
+            + " updated_at, trace_parent FROM recharge_requests WHERE recharge_id IN ";
+
+    private static final String DELETE_REQUESTS_PREFIX = "DELETE FROM recharge_requests WHERE recharge_id IN ";
+
+    private static final String PARTITIONS_SQL = "SELECT PARTITION_NAME AS partition_name"
+            + " FROM information_schema.PARTITIONS"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+
+    /**
+     * Resultado de un lote.
+     *
+     * @param requests Solicitudes movidas al historial.
+     * @param audits   Auditorías movidas al historial.
+     */
+    public record Batch(int requests, int audits) {
+    }
+
+    private final Pool pool;
+
+    @Inject
+    public RequestArchiveRepository(Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Mueve al historial un lote de solicitudes terminadas y sus auditorías.
+     * <p>
+     * Las filas elegidas quedan bloqueadas (SELECT ... FOR UPDATE) hasta el
+     * commit, así que dos archivadores en paralelo no copian la misma fila.
+     * </p>
+     *
+     * @param minAge    Antigüedad mínima desde created_at.
+     * @param batchSize Máximo de solicitudes del lote.
+     * @return Un {@link Uni} con lo movido (0 solicitudes si no quedaba nada).
+     */
+    public Uni<Batch> moveBatch(Duration minAge, int batchSize) {
+        return pool.withTransaction(connection -> connection.preparedQuery(SELECT_BATCH_SQL)
+                .execute(Tuple.of(minAge.toSeconds(), batchSize))
+                .chain(rows -> {
+                    if (rows.size() == 0) {
+                        return Uni.createFrom().item(new Batch(0, 0));
+                    }
+                    Tuple ids = Tuple.tuple();
+                    for (Row row : rows) {
+                        ids.addBuffer(row.getBuffer("recharge_id"));
+                    }
+                    String in = placeholders(rows.size());
+                    // Auditorías primero: process_audits referencia recharge_requests
+                    return update(connection, COPY_AUDITS_PREFIX + in, ids)
+                            .chain(audits -> update(connection, DELETE_AUDITS_PREFIX + in, ids)
+                                    .chain(() -> update(connection, COPY_REQUESTS_PREFIX + in, ids))
+                                    .chain(requests -> update(connection, DELETE_REQUESTS_PREFIX + in, ids)
+                                            .replaceWith(new Batch(requests, audits))));
+                }));
+    }
+
+    /**
+     * Crea las particiones mensuales que falten en una tabla de historial, desde
+     * el mes siguiente a la última existente (o desde {@code from} si aún no hay
+     * ninguna) hasta {@code until}, partiendo p_future.
+     *
+     * @param table Tabla de historial.
+     * @param from  Primer mes si la tabla solo tiene p_future; las filas
+     *              anteriores caen en su partición.
+     * @param until Último mes que debe tener partición propia.
+     * @return Un {@link Uni} con la cantidad de particiones creadas.
+     */
+    public Uni<Integer> ensureMonthlyPartitions(String table, YearMonth from, YearMonth until) {
+        return pool.preparedQuery(PARTITIONS_SQL)
+                .execute(Tuple.of(table))
+                .chain(rows -> {
+                    YearMonth last = null;
+                    for (Row row : rows) {
+                        String name = row.getString("partition_name");
+                        if (!FUTURE_PARTITION.equals(name)) {
+                            YearMonth month = YearMonth.parse(name, PARTITION_NAME);
+                            last = last == null || month.isAfter(last) ? month : last;
+                        }
+                    }
+                    YearMonth next = last != null ? last.plusMonths(1) : from;
+                    if (next.isAfter(until)) {
+                        return Uni.createFrom().item(0);
+                    }
+                    // Solo se reorganiza p_future, que está vacía mientras haya particiones por adelantado
+                    StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table)
+                            .append(" REORGANIZE PARTITION ").append(FUTURE_PARTITION).append(" INTO (");
+                    int created = 0;
+                    for (YearMonth month = next; !month.isAfter(until); month = month.plusMonths(1)) {
+                        sql.append("PARTITION ").append(PARTITION_NAME.format(month))
+                                .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1))
+                                .append("'), ");
+                        created++;
+                    }
+                    sql.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+                    int count = created;
+                    return pool.query(sql.toString()).execute().replaceWith(count);
+                });
+    }
+
+    private static Uni<Integer> update(SqlConnection connection, String sql, Tuple params) {
+        return connection.preparedQuery(sql)
+                .execute(params)
+                .map(SqlResult::rowCount);
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder in = new StringBuilder(count * 3 + 2).append('(');
+        for (int i = 0; i < count; i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+        return in.append(')').toString();
+    }
+}
@@ -2,8 +2,18 @@ package pe.com.topup.domain.repository;
 
 import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlResult;
+import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import pe.com.topup.domain.entity.TopupRequestEntity;
 
 /**
@@ -13,22 +23,255 @@ import pe.com.topup.domain.entity.TopupRequestEntity;
  * reactivas
  * utilizando el patrón Repository de Panache.
  * </p>
+ * <p>
+ * Las operaciones de reclamo (claim) usan SQL nativo sobre el {@link Pool}
+ * reactivo: cada réplica del producer reclama una página de registros
+ * 'PENDING' con un token propio y un lease con vencimiento calculado con el
+ * reloj de la base de datos, de modo que varias instancias se reparten el
+ * backlog sin enviar el mismo registro dos veces.
+ * </p>
  */
 @ApplicationScoped
-public class TopupRequestRepository implements PanacheRepositoryBase<TopupRequestEntity, String> {
+public class TopupRequestRepository implements PanacheRepositoryBase<TopupRequestEntity, UUID> {
+
+    /**
+     * Estado intermedio de un registro reclamado por una instancia del producer.
+     */
+    public static final String STATUS_DISPATCHING = "DISPATCHING";
+
+    private static final String CLAIM_SQL = "UPDATE recharge_requests"
+            + " SET status = 'DISPATCHING', claim_token = ?,"
+            + " claim_expires_at = DATE_ADD(NOW(6), INTERVAL ? MICROSECOND)"
+            + " WHERE status = 'PENDING'"
+            + " ORDER BY created_at"
+            + " LIMIT ?";
+
+    private static final String CLAIM_STALE_SQL = "UPDATE recharge_requests"
+            + " SET status = 'DISPATCHING', claim_token = ?,"
+            + " claim_expires_at = DATE_ADD(NOW(6), INTERVAL ? MICROSECOND)"
+            + " WHERE status = 'PENDING' AND created_at < DATE_SUB(NOW(6), INTERVAL ? MICROSECOND)"
+            + " ORDER BY created_at"
+            + " LIMIT ?";
+
+    private static final String FIND_CLAIMED_SQL = "SELECT recharge_id, phone_number, amount, carrier, status,"
+            + " trace_parent,"
+            + " TIMESTAMPDIFF(MICROSECOND, created_at, NOW(6)) AS queued_micros"
+            + " FROM recharge_requests"
+            + " WHERE status = 'DISPATCHING' AND claim_token = ?";
+
+    private static final String MARK_SENT_PREFIX = "UPDATE recharge_requests"
+            + " SET status = 'SENT_TO_KAFKA', claim_token = NULL, claim_expires_at = NULL"
+            + " WHERE status = 'DISPATCHING' AND claim_token = ? AND recharge_id IN (";
+
+    private static final String MARK_SENT_PENDING_PREFIX = "UPDATE recharge_requests"
+            + " SET status = 'SENT_TO_KAFKA'"
+            + " WHERE status = 'PENDING' AND recharge_id IN (";
+
+    private static final String COLUMNS_SQL = "SELECT COLUMN_NAME AS column_name FROM information_schema.COLUMNS"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'recharge_requests'"
+            + " ORDER BY ORDINAL_POSITION";
+
+    private static final String UTC_OFFSET_SQL = "SELECT TIME_TO_SEC(TIMEDIFF(NOW(), UTC_TIMESTAMP())) AS utc_offset";
+
+    private static final String RELEASE_SQL = "UPDATE recharge_requests"
+            + " SET status = 'PENDING', claim_token = NULL, claim_expires_at = NULL"
+            + " WHERE status = 'DISPATCHING' AND claim_token = ?";
+
+    private static final String BACKLOG_SQL = "SELECT COUNT(*) AS backlog FROM recharge_requests"
+            + " WHERE status IN ('PENDING', 'DISPATCHING')";
+
+    private static final String REAP_SQL = "UPDATE recharge_requests"
+            + " SET status = 'PENDING', claim_token = NULL, claim_expires_at = NULL"
+            + " WHERE status = 'DISPATCHING' AND claim_expires_at < NOW(6)";
+
+    private final Pool pool;
+
+    @Inject
+    public TopupRequestRepository(Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reclama de forma atómica hasta {@code limit} solicitudes 'PENDING' (las más
+     * antiguas primero) y las devuelve.
+     * <p>
+     * Paso 1: Un único UPDATE ... ORDER BY ... LIMIT pasa los registros a
+     * 'DISPATCHING' con el token de esta página. Dos réplicas concurrentes nunca
+     * reclaman la misma fila: la segunda vuelve a evaluar 'status' tras el
+     * bloqueo de la primera y la salta.
+     * Paso 2: Lee los registros reclamados con ese token.
+     * </p>
+     *
+     * @param claimToken Token único de la página.
+     * @param limit      Cantidad máxima de registros a reclamar.
+     * @param lease      Duración del lease.
+     * @return Un {@link Uni} con los registros reclamados (vacío si no hay pendientes).
+     */
+    public Uni<List<TopupRequestEntity>> claimPending(String claimToken, int limit, Duration lease) {
+        return claim(CLAIM_SQL, Tuple.of(claimToken, lease.toNanos() / 1_000, limit), claimToken);
+    }
+
+    /**
+     * Igual que {@link #claimPending(String, int, Duration)}, pero solo reclama
+     * las solicitudes creadas hace más de 'minAge'. Lo usa el barrido del modo
+     * binlog para no competir con los envíos que el binlog tiene en curso.
+     *
+     * @param claimToken Token único de la página.
+     * @param limit      Cantidad máxima de registros a reclamar.
+     * @param lease      Duración del lease.
+     * @param minAge     Antigüedad mínima desde created_at.
+     * @return Un {@link Uni} con los registros reclamados (vacío si no hay pendientes).
+     */
+    public Uni<List<TopupRequestEntity>> claimStalePending(String claimToken, int limit, Duration lease,
+            Duration minAge) {
+        return claim(CLAIM_STALE_SQL,
+                Tuple.of(claimToken, lease.toNanos() / 1_000, minAge.toNanos() / 1_000, limit), claimToken);
+    }
+
+    private Uni<List<TopupRequestEntity>> claim(String sql, Tuple params, String claimToken) {
+        return pool.preparedQuery(sql)
+                .execute(params)
+                .chain(claimed -> claimed.rowCount() == 0
+                        ? Uni.createFrom().item(List.<TopupRequestEntity>of())
+                        : pool.preparedQuery(FIND_CLAIMED_SQL)
+                                .execute(Tuple.of(claimToken))
+                                .map(TopupRequestRepository::toEntities));
+    }
+
+    /**
+     * Marca como enviadas a Kafka las solicitudes confirmadas de una página, con
+     * un único UPDATE ... WHERE recharge_id IN (...).
+     * <p>
+     * Solo actualiza los registros que siguen reclamados con el mismo token, para
+     * no pisar el estado final que el consumer ya pudo haber escrito.
+     * </p>
+     *
+     * @param rechargeIds IDs de las solicitudes confirmadas por el broker.
+     * @param claimToken  Token de la página que las reclamó.
+     * @return Un {@link Uni} con la cantidad de filas actualizadas.
+     */
+    public Uni<Integer> markSent(List<UUID> rechargeIds, String claimToken) {
+        if (rechargeIds.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        StringBuilder sql = new StringBuilder(MARK_SENT_PREFIX.length() + rechargeIds.size() * 3)
+                .append(MARK_SENT_PREFIX);
+        Tuple params = Tuple.of(claimToken);
+        for (int i = 0; i < rechargeIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            params.addBuffer(Buffer.buffer(RechargeIds.toBytes(rechargeIds.get(i))));
+        }
+        sql.append(')');
+        return pool.preparedQuery(sql.toString())
+                .execute(params)
+                .map(SqlResult::rowCount);
+    }
 
     /**
-     * Busca todas las solicitudes de recarga que se encuentran en estado 'PENDING'.
+     * Marca como enviadas a Kafka solicitudes publicadas sin reclamo (modo
+     * binlog), con un único UPDATE ... WHERE recharge_id IN (...).
      * <p>
-     * Paso 1: Realiza una consulta a la base de datos filtrando por el campo
-     * 'status'.
-     * Paso 2: Retorna una lista reactiva (Uni) con los resultados encontrados.
+     * Solo pasa las que siguen en 'PENDING': si el consumer ya escribió el
+     * estado final, no se pisa.
      * </p>
      *
-     * @return Un {@link Uni} que emite una lista de {@link TopupRequestEntity} con
-     *         estado 'PENDING'.
+     * @param rechargeIds IDs de las solicitudes confirmadas por el broker.
+     * @return Un {@link Uni} con la cantidad de filas actualizadas.
      */
-    public Uni<List<TopupRequestEntity>> findPendingRequests() {
-        return list("status", "PENDING");
+    public Uni<Integer> markSentFromPending(List<UUID> rechargeIds) {
+        if (rechargeIds.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        StringBuilder sql = new StringBuilder(MARK_SENT_PENDING_PREFIX.length() + rechargeIds.size() * 3)
+                .append(MARK_SENT_PENDING_PREFIX);
+        Tuple params = Tuple.tuple();
+        for (int i = 0; i < rechargeIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            params.addBuffer(Buffer.buffer(RechargeIds.toBytes(rechargeIds.get(i))));
+        }
+        sql.append(')');
+        return pool.preparedQuery(sql.toString())
+                .execute(params)
+                .map(SqlResult::rowCount);
+    }
+
+    /**
+     * Columnas de recharge_requests en el orden de la tabla, que es el orden de
+     * los valores en los eventos de filas del binlog.
+     *
+     * @return Un {@link Uni} con los nombres de las columnas.
+     */
+    public Uni<List<String>> findColumnNames() {
+        return pool.query(COLUMNS_SQL)
+                .execute()
+                .map(rows -> {
+                    List<String> columns = new ArrayList<>(rows.size());
+                    rows.forEach(row -> columns.add(row.getString("column_name")));
+                    return columns;
+                });
+    }
+
+    /**
+     * Diferencia entre la hora local de la base de datos (con la que se llenan
+     * las columnas DATETIME) y UTC.
+     *
+     * @return Un {@link Uni} con el desfase en segundos.
+     */
+    public Uni<Integer> findUtcOffsetSeconds() {
+        return pool.query(UTC_OFFSET_SQL)
+                .execute()
+                .map(rows -> rows.iterator().next().getInteger("utc_offset"));
+    }
+
+    /**
+     * Devuelve a 'PENDING' los registros de una página que no pudieron enviarse.
+     *
+     * @param claimToken Token de la página.
+     * @return Un {@link Uni} con la cantidad de filas liberadas.
+     */
+    public Uni<Integer> releaseClaim(String claimToken) {
+        return pool.preparedQuery(RELEASE_SQL)
+                .execute(Tuple.of(claimToken))
+                .map(SqlResult::rowCount);
+    }
+
+    /**
+     * Devuelve a 'PENDING' los registros cuyo lease venció (por ejemplo, porque
+     * la instancia que los reclamó se detuvo a mitad de una página).
+     *
+     * @return Un {@link Uni} con la cantidad de filas recuperadas.
+     */
+    public Uni<Integer> reapExpiredClaims() {
+        return pool.query(REAP_SQL)
+                .execute()
+                .map(SqlResult::rowCount);
+    }
+
+    /**
+     * Cuenta las solicitudes aún no enviadas a Kafka ('PENDING' o 'DISPATCHING').
+     *
+     * @return Un {@link Uni} con el tamaño del backlog.
+     */
+    public Uni<Long> countBacklog() {
+        return pool.query(BACKLOG_SQL)
+                .execute()
+                .map(rows -> rows.iterator().next().getLong("backlog"));
+    }
+
+    private static List<TopupRequestEntity> toEntities(RowSet<Row> rows) {
+        List<TopupRequestEntity> entities = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            TopupRequestEntity entity = new TopupRequestEntity();
+            entity.rechargeId = RechargeIds.fromBytes(row.getBuffer("recharge_id").getBytes());
+            entity.phoneNumber = row.getString("phone_number");
+            entity.amount = row.getBigDecimal("amount");
+            entity.carrier = row.getString("carrier");
+            entity.status = row.getString("status");
+            entity.traceParent = row.getString("trace_parent");
+            Long queuedMicros = row.getLong("queued_micros");
+            entity.queuedMicros = queuedMicros != null ? queuedMicros : 0;
+            entities.add(entity);
+        }
+        return entities;
     }
 }
@@ -0,0 +1,154 @@
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import pe.com.topup.model.Carrier;
+import pe.com.topup.model.RechargeId;
+import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.model.TopUpEventV2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Microbenchmark: TopUpEvent (v1) vs TopUpEventV2.
+ * <p>
+ * Mide el tamaño serializado (payload Avro binario, sin los 5 bytes del
+ * framing del schema registry, que son iguales en ambas versiones) y el costo
+ * de serializar y deserializar un evento, incluyendo lo que hacen el
+ * dispatcher y el consumer alrededor: UUID y BigDecimal a String y de vuelta
+ * en v1, bytes del ID y céntimos a BigDecimal en v2.
+ * </p>
+ * <p>
+ * Lo ejecuta files/benchmark/avro-event-size.sh con el classpath de
+ * topup-event-schema, una JVM por versión ("v1" o "v2" como argumento): en la
+ * misma JVM la segunda versión medida hereda perfiles del JIT de la primera y
+ * sale penalizada.
+ * </p>
+ */
+public class AvroEventBenchmark {
+
+    private static final int EVENTS = 1_024;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 500;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws IOException {
+        TopUpEvent[] v1 = new TopUpEvent[EVENTS];
+        TopUpEventV2[] v2 = new TopUpEventV2[EVENTS];
+        Carrier[] carriers = { Carrier.MOVISTAR, Carrier.CLARO, Carrier.ENTEL };
+        for (int i = 0; i < EVENTS; i++) {
+            UUID id = new UUID(System.currentTimeMillis() << 16 | 0x7000 | i, 0x8000000000000000L | i);
+            String phone = "9" + String.format("%08d", i);
+            BigDecimal amount = BigDecimal.valueOf(500 + i * 25L, 2);
+            Carrier carrier = carriers[i % carriers.length];
+            v1[i] = TopUpEvent.newBuilder()
+                    .setRequestId(id.toString())
+                    .setPhoneNumber(phone)
+                    .setAmount(amount.toString())
+                    .setCarrier(carrier.name())
+                    .build();
+            v2[i] = TopUpEventV2.newBuilder()
+                    .setRequestId(new RechargeId(ByteBuffer.allocate(16)
+                            .putLong(id.getMostSignificantBits())
+                            .putLong(id.getLeastSignificantBits())
+                            .array()))
+                    .setPhoneNumber(phone)
+                    .setAmountCents(amount.movePointRight(2).longValueExact())
+                    .setCarrier(carrier)
+                    .setCreatedAt(Instant.ofEpochMilli(System.currentTimeMillis()))
+                    .build();
+        }
+
+        // Deserializar incluye lo que TopupCommand hace después con cada versión
+        if ("v1".equals(args[0])) {
+            report("v1", new Codec<>(TopUpEvent.class), v1, event -> {
+                sink = UUID.fromString(event.getRequestId());
+                sink = new BigDecimal(event.getAmount());
+            });
+        } else {
+            report("v2", new Codec<>(TopUpEventV2.class), v2, event -> {
+                ByteBuffer id = ByteBuffer.wrap(event.getRequestId().bytes());
+                sink = new UUID(id.getLong(), id.getLong());
+                sink = BigDecimal.valueOf(event.getAmountCents(), 2);
+            });
+        }
+    }
+
+    private static <T extends SpecificRecord> void report(String name, Codec<T> codec, T[] events,
+            java.util.function.Consumer<T> consume) throws IOException {
+        byte[][] encoded = new byte[events.length][];
+        long totalBytes = 0;
+        for (int i = 0; i < events.length; i++) {
+            encoded[i] = codec.encode(events[i]);
+            totalBytes += encoded[i].length;
+        }
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            encodeAll(codec, events);
+            decodeAll(codec, encoded, consume);
+        }
+        long serStart = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            encodeAll(codec, events);
+        }
+        long serNanos = System.nanoTime() - serStart;
+        long deStart = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            decodeAll(codec, encoded, consume);
+        }
+        long deNanos = System.nanoTime() - deStart;
+        long operations = (long) MEASURED_ROUNDS * events.length;
+        System.out.printf("%-8s %12.1f %14.1f %14.1f%n", name, (double) totalBytes / events.length,
+                (double) serNanos / operations, (double) deNanos / operations);
+    }
+
+    private static <T extends SpecificRecord> void encodeAll(Codec<T> codec, T[] events) throws IOException {
+        for (T event : events) {
+            sink = codec.encode(event);
+        }
+    }
+
+    private static <T extends SpecificRecord> void decodeAll(Codec<T> codec, byte[][] encoded,
+            java.util.function.Consumer<T> consume) throws IOException {
+        for (byte[] bytes : encoded) {
+            consume.accept(codec.decode(bytes));
+        }
+    }
+
+    /**
+     * Writer/reader reutilizables, como los que mantiene KafkaAvroSerializer por esquema.
+     */
+    private static final class Codec<T extends SpecificRecord> {
+        private final SpecificDatumWriter<T> writer;
+        private final SpecificDatumReader<T> reader;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        private BinaryEncoder encoder;
+        private BinaryDecoder decoder;
+
+        Codec(Class<T> type) {
+            this.writer = new SpecificDatumWriter<>(type);
+            this.reader = new SpecificDatumReader<>(type);
+        }
+
+        byte[] encode(T event) throws IOException {
+            out.reset();
+            encoder = EncoderFactory.get().binaryEncoder(out, encoder);
+            writer.write(event, encoder);
+            encoder.flush();
+            return out.toByteArray();
+        }
+
+        T decode(byte[] bytes) throws IOException {
+            decoder = DecoderFactory.get().binaryDecoder(bytes, decoder);
+            return reader.read(null, decoder);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# =====================================================================
+# Microbenchmark: tamaño y costo de ser/de de TopUpEvent v1 vs TopUpEventV2
+#
+# Compila topup-event-schema, arma su classpath y ejecuta
+# AvroEventBenchmark.java (launcher de un solo archivo, Java 21) en una JVM
+# por versión. Reporta, por evento: bytes del payload Avro, ns para
+# serializar y ns para deserializar (incluye pasar el ID y el monto a
+# UUID/BigDecimal, como hace el consumer).
+#
+# Referencia (JDK 21, 1024 eventos): v1 64.6 bytes, v2 35.7 bytes
+# (-45%); ser/de ~250/~370 ns en ambas versiones.
+#
+# Uso (desde la raíz del repositorio):
+#   ./files/benchmark/avro-event-size.sh
+#
+# Variables: JAVA_OPTS (vacío) para fijar heap/GC al comparar corridas.
+# =====================================================================
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+SCHEMA_POM="$ROOT/topup-event-schema/pom.xml"
+CP_FILE="$(mktemp)"
+trap 'rm -f "$CP_FILE"' EXIT
+
+mvn -q -f "$SCHEMA_POM" install -DskipTests
+mvn -q -f "$SCHEMA_POM" dependency:build-classpath -Dmdep.outputFile="$CP_FILE"
+
+CLASSPATH="$ROOT/topup-event-schema/target/classes:$(cat "$CP_FILE")"
+printf "%-8s %12s %14s %14s\n" "schema" "bytes/evento" "ser ns/evento" "de ns/evento"
+for version in v1 v2; do
+  # shellcheck disable=SC2086
+  java ${JAVA_OPTS:-} -cp "$CLASSPATH" "$ROOT/files/benchmark/AvroEventBenchmark.java" "$version"
+done
@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# =====================================================================
+# Benchmark: throughput del dispatcher (async-topup-producer-v1)
+#
+# Inserta N solicitudes PENDING y mide cuánto tarda el producer en dejarlas
+# todas en SENT_TO_KAFKA (o en un estado posterior si el consumer está activo).
+#
+# Uso:
+#   1. Levantar el producer con la configuración a comparar, por ejemplo:
+#        TOPUP_DISPATCHER_MAX_IN_FLIGHT=1  (envío secuencial, un ack por fila)
+#        TOPUP_DISPATCHER_MAX_IN_FLIGHT=64 (envío en paralelo)
+#   2. ./files/benchmark/dispatcher-throughput.sh 20000
+#   3. Repetir con la otra configuración y comparar "registros/s".
+#
+# Variables: DB_CONTAINER (mariadb10432), DB_USER (root), DB_PASSWORD
+# (123456789), DB_NAME (phone_recharge_db), POLL_INTERVAL (1).
+# =====================================================================
+set -euo pipefail
+
+ROWS="${1:-10000}"
+DB_CONTAINER="${DB_CONTAINER:-mariadb10432}"
+DB_USER="${DB_USER:-root}"
+DB_PASSWORD="${DB_PASSWORD:-123456789}"
+DB_NAME="${DB_NAME:-phone_recharge_db}"
+POLL_INTERVAL="${POLL_INTERVAL:-1}"
+RUN_TAG="bench-$(date +%s)"
+
+sql() {
+  docker exec -i "$DB_CONTAINER" mysql -N -B -u "$DB_USER" -p"$DB_PASSWORD" "$DB_NAME" -e "$1"
+}
+
+echo "Insertando $ROWS solicitudes PENDING (carrier=$RUN_TAG)..."
+sql "INSERT INTO recharge_requests (recharge_id, phone_number, amount, carrier, status)
+     WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < $ROWS)
+     SELECT UNHEX(REPLACE(UUID(), '-', '')), LPAD(n, 9, '9'), 1.00, '$RUN_TAG', 'PENDING' FROM seq;" \
+  2>/dev/null || {
+  # MariaDB < 10.2.2 o cte_max_recursion_depth bajo: inserción por bloques
+  i=0
+  while [ "$i" -lt "$ROWS" ]; do
+    values=""
+    for _ in $(seq 1 1000); do
+      [ "$i" -ge "$ROWS" ] && break
+      values+="${values:+,}(UNHEX(REPLACE(UUID(), '-', '')), '$(printf '%09d' "$i")', 1.00, '$RUN_TAG', 'PENDING')"
+      i=$((i + 1))
+    done
+    sql "INSERT INTO recharge_requests (recharge_id, phone_number, amount, carrier, status) VALUES $values;"
+  done
+}
+
+start=$(date +%s.%N)
+while true; do
+  pending=$(sql "SELECT COUNT(*) FROM recharge_requests WHERE carrier = '$RUN_TAG' AND status IN ('PENDING', 'DISPATCHING');")
+  [ "$pending" -eq 0 ] && break
+  echo "  pendientes: $pending"
+  sleep "$POLL_INTERVAL"
+done
+end=$(date +%s.%N)
+
+# El primer registro puede esperar hasta un intervalo de @Scheduled (10s); se
+# mide desde que el primero sale de PENDING para no contar esa espera.
+first=$(sql "SELECT UNIX_TIMESTAMP(MIN(updated_at)) FROM recharge_requests WHERE carrier = '$RUN_TAG';")
+last=$(sql "SELECT UNIX_TIMESTAMP(MAX(updated_at)) FROM recharge_requests WHERE carrier = '$RUN_TAG' AND status = 'SENT_TO_KAFKA';")
+
+awk -v rows="$ROWS" -v s="$start" -v e="$end" -v f="$first" -v l="$last" 'BEGIN {
+  wall = e - s
+  busy = (l != "" && l != "NULL" && l > f) ? l - f : wall
+  printf "Filas: %d\nTiempo total (incluye espera del scheduler): %.2fs\nTiempo de despacho: %.2fs\nRegistros/s: %.0f\n", rows, wall, busy, rows / busy
+}'
+
+echo "Limpieza: DELETE FROM recharge_requests WHERE carrier = '$RUN_TAG';"
@@ -0,0 +1,133 @@
+-- =====================================================================
+-- Benchmark: PK VARCHAR(36) con UUID v4 aleatorio vs BINARY(16) con UUID v7
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- Inserta N filas una a una (autocommit, como el POST /v1/topups sin
+-- group commit) en dos pares de tablas padre/hija con la misma forma que
+-- recharge_requests / process_audits, y reporta tiempo y tamaño en disco.
+--
+-- Uso (en una base de datos de pruebas, NO en phone_recharge_db):
+--   mysql -u root -p bench_db < files/benchmark/recharge-id-benchmark.sql
+--   mysql -u root -p bench_db -e "CALL bench_recharge_ids(200000);"
+-- =====================================================================
+
+DROP TABLE IF EXISTS bench_audit_v4;
+DROP TABLE IF EXISTS bench_request_v4;
+DROP TABLE IF EXISTS bench_audit_v7;
+DROP TABLE IF EXISTS bench_request_v7;
+
+CREATE TABLE bench_request_v4 (
+    recharge_id VARCHAR(36) PRIMARY KEY,
+    phone_number VARCHAR(15) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    status VARCHAR(20) DEFAULT 'PENDING',
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    KEY idx_status_created (status, created_at)
+);
+
+CREATE TABLE bench_audit_v4 (
+    audit_id INT AUTO_INCREMENT PRIMARY KEY,
+    recharge_id VARCHAR(36),
+    error_details TEXT,
+    CONSTRAINT fk_bench_v4 FOREIGN KEY (recharge_id) REFERENCES bench_request_v4(recharge_id)
+);
+
+CREATE TABLE bench_request_v7 (
+    recharge_id BINARY(16) PRIMARY KEY,
+    phone_number VARCHAR(15) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    status VARCHAR(20) DEFAULT 'PENDING',
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    KEY idx_status_created (status, created_at)
+);
+
+CREATE TABLE bench_audit_v7 (
+    audit_id INT AUTO_INCREMENT PRIMARY KEY,
+    recharge_id BINARY(16),
+    error_details TEXT,
+    CONSTRAINT fk_bench_v7 FOREIGN KEY (recharge_id) REFERENCES bench_request_v7(recharge_id)
+);
+
+DROP FUNCTION IF EXISTS bench_uuid_v7;
+DROP PROCEDURE IF EXISTS bench_recharge_ids;
+
+DELIMITER //
+
+-- UUID v7 en BINARY(16): 48 bits de milisegundos + secuencia de 12 bits + 62 bits aleatorios.
+-- Equivalente a RechargeIdGenerator del sync API.
+CREATE FUNCTION bench_uuid_v7(p_millis BIGINT, p_seq INT) RETURNS BINARY(16) NOT DETERMINISTIC
+BEGIN
+    RETURN UNHEX(CONCAT(
+        LPAD(HEX(p_millis), 12, '0'),
+        '7', LPAD(HEX(p_seq & 4095), 3, '0'),
+        HEX(8 + FLOOR(RAND() * 4)), LPAD(HEX(FLOOR(RAND() * 4096)), 3, '0'),
+        LPAD(HEX(FLOOR(RAND() * 281474976710656)), 12, '0')));
+END //
+
+CREATE PROCEDURE bench_recharge_ids(IN p_rows INT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE v_id4 VARCHAR(36);
+    DECLARE v_id7 BINARY(16);
+    DECLARE v_last_millis BIGINT DEFAULT 0;
+    DECLARE v_millis BIGINT;
+    DECLARE v_seq INT DEFAULT 0;
+    DECLARE t_start DATETIME(6);
+    DECLARE v4_micros BIGINT;
+    DECLARE v7_micros BIGINT;
+
+    -- VARCHAR(36) + UUID v4 aleatorio
+    SET t_start = NOW(6);
+    SET i = 0;
+    WHILE i < p_rows DO
+        SET v_id4 = LOWER(CONCAT(
+            LPAD(HEX(FLOOR(RAND() * 4294967296)), 8, '0'), '-',
+            LPAD(HEX(FLOOR(RAND() * 65536)), 4, '0'), '-',
+            '4', LPAD(HEX(FLOOR(RAND() * 4096)), 3, '0'), '-',
+            HEX(8 + FLOOR(RAND() * 4)), LPAD(HEX(FLOOR(RAND() * 4096)), 3, '0'), '-',
+            LPAD(HEX(FLOOR(RAND() * 281474976710656)), 12, '0')));
+        INSERT INTO bench_request_v4 (recharge_id, phone_number, amount) VALUES (v_id4, '987654321', 20.00);
+        INSERT INTO bench_audit_v4 (recharge_id, error_details) VALUES (v_id4, 'bench');
+        SET i = i + 1;
+    END WHILE;
+    SET v4_micros = TIMESTAMPDIFF(MICROSECOND, t_start, NOW(6));
+
+    -- BINARY(16) + UUID v7 monotónico
+    SET t_start = NOW(6);
+    SET i = 0;
+    WHILE i < p_rows DO
+        SET v_millis = FLOOR(UNIX_TIMESTAMP(NOW(6)) * 1000);
+        IF v_millis > v_last_millis THEN
+            SET v_last_millis = v_millis, v_seq = 0;
+        ELSE
+            SET v_seq = v_seq + 1;
+            IF v_seq > 4095 THEN
+                SET v_last_millis = v_last_millis + 1, v_seq = 0;
+            END IF;
+        END IF;
+        SET v_id7 = bench_uuid_v7(v_last_millis, v_seq);
+        INSERT INTO bench_request_v7 (recharge_id, phone_number, amount) VALUES (v_id7, '987654321', 20.00);
+        INSERT INTO bench_audit_v7 (recharge_id, error_details) VALUES (v_id7, 'bench');
+        SET i = i + 1;
+    END WHILE;
+    SET v7_micros = TIMESTAMPDIFF(MICROSECOND, t_start, NOW(6));
+
+    ANALYZE TABLE bench_request_v4, bench_audit_v4, bench_request_v7, bench_audit_v7;
+
+    SELECT 'VARCHAR(36) / UUID v4' AS variante, p_rows AS filas, v4_micros AS micros,
+           ROUND(p_rows / (v4_micros / 1000000), 0) AS filas_por_segundo
+    UNION ALL
+    SELECT 'BINARY(16) / UUID v7', p_rows, v7_micros,
+           ROUND(p_rows / (v7_micros / 1000000), 0);
+
+    SELECT TABLE_NAME AS tabla,
+           DATA_LENGTH AS bytes_datos,
+           INDEX_LENGTH AS bytes_indices,
+           DATA_LENGTH + INDEX_LENGTH AS bytes_total
+    FROM information_schema.TABLES
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME IN ('bench_request_v4', 'bench_audit_v4', 'bench_request_v7', 'bench_audit_v7')
+    ORDER BY TABLE_NAME;
+END //
+
+DELIMITER ;
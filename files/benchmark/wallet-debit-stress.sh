@@ -0,0 +1,111 @@
+#!/usr/bin/env bash
+# =====================================================================
+# Stress test: débito de wallet "leer y luego actualizar" vs UPDATE condicional
+# Compatible con MariaDB 10.4+ y MySQL 8.0+
+#
+# Lanza P clientes concurrentes que intentan K débitos cada uno contra la
+# misma wallet, primero con el patrón anterior del consumer (SELECT del saldo,
+# comparación y UPDATE aparte) y luego con el UPDATE condicional actual
+# (... WHERE operator_id = ? AND current_balance >= ?). Para cada variante
+# reporta débitos aceptados, saldo final, si hubo sobregiro y débitos/s.
+#
+# Uso (en una base de datos de pruebas, NO en phone_recharge_db):
+#   ./files/benchmark/wallet-debit-stress.sh [P=16] [K=500]
+#
+# Variables: DB_CONTAINER (mariadb10432), DB_USER (root), DB_PASSWORD
+# (123456789), DB_NAME (bench_db).
+# =====================================================================
+set -euo pipefail
+
+CLIENTS="${1:-16}"
+DEBITS="${2:-500}"
+DB_CONTAINER="${DB_CONTAINER:-mariadb10432}"
+DB_USER="${DB_USER:-root}"
+DB_PASSWORD="${DB_PASSWORD:-123456789}"
+DB_NAME="${DB_NAME:-bench_db}"
+AMOUNT="1.00"
+# Saldo para la mitad de los intentos: la otra mitad debe terminar en FAILED
+INITIAL_BALANCE=$(( CLIENTS * DEBITS / 2 ))
+
+sql() {
+  docker exec -i "$DB_CONTAINER" mysql -N -B -u "$DB_USER" -p"$DB_PASSWORD" "$DB_NAME" "$@"
+}
+
+sql <<'SQL'
+DROP TABLE IF EXISTS bench_wallet;
+DROP TABLE IF EXISTS bench_debit_results;
+CREATE TABLE bench_wallet (
+    operator_id INT PRIMARY KEY,
+    current_balance DECIMAL(15,2) NOT NULL
+);
+CREATE TABLE bench_debit_results (
+    variant VARCHAR(20) NOT NULL,
+    accepted INT NOT NULL
+);
+
+DROP PROCEDURE IF EXISTS bench_debit_read_then_update;
+DROP PROCEDURE IF EXISTS bench_debit_conditional;
+
+DELIMITER //
+
+-- Patrón anterior: dos sentencias, la decisión se toma con un saldo que puede estar viejo
+CREATE PROCEDURE bench_debit_read_then_update(IN p_amount DECIMAL(15,2), IN p_iterations INT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE v_balance DECIMAL(15,2);
+    DECLARE v_accepted INT DEFAULT 0;
+    WHILE i < p_iterations DO
+        SELECT current_balance INTO v_balance FROM bench_wallet WHERE operator_id = 1;
+        IF v_balance >= p_amount THEN
+            UPDATE bench_wallet SET current_balance = current_balance - p_amount WHERE operator_id = 1;
+            SET v_accepted = v_accepted + 1;
+        END IF;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_debit_results VALUES ('read_then_update', v_accepted);
+END //
+
+-- Patrón actual: una sola sentencia, ROW_COUNT() decide COMPLETED / FAILED
+CREATE PROCEDURE bench_debit_conditional(IN p_amount DECIMAL(15,2), IN p_iterations INT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE v_accepted INT DEFAULT 0;
+    WHILE i < p_iterations DO
+        UPDATE bench_wallet SET current_balance = current_balance - p_amount
+        WHERE operator_id = 1 AND current_balance >= p_amount;
+        IF ROW_COUNT() = 1 THEN
+            SET v_accepted = v_accepted + 1;
+        END IF;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_debit_results VALUES ('conditional', v_accepted);
+END //
+
+DELIMITER ;
+SQL
+
+run_variant() {
+  local variant="$1" procedure="$2"
+  sql -e "DELETE FROM bench_wallet; INSERT INTO bench_wallet VALUES (1, $INITIAL_BALANCE);"
+  local start end
+  start=$(date +%s.%N)
+  for _ in $(seq 1 "$CLIENTS"); do
+    sql -e "CALL $procedure($AMOUNT, $DEBITS);" &
+  done
+  wait
+  end=$(date +%s.%N)
+
+  local accepted balance
+  accepted=$(sql -e "SELECT COALESCE(SUM(accepted), 0) FROM bench_debit_results WHERE variant = '$variant';")
+  balance=$(sql -e "SELECT current_balance FROM bench_wallet WHERE operator_id = 1;")
+  awk -v v="$variant" -v a="$accepted" -v b="$balance" -v init="$INITIAL_BALANCE" -v amt="$AMOUNT" \
+      -v s="$start" -v e="$end" -v total=$(( CLIENTS * DEBITS )) 'BEGIN {
+    expected = init - a * amt
+    printf "%-17s aceptados=%-6d saldo_final=%-9s sobregiro=%-3s inconsistente=%-3s intentos/s=%.0f\n",
+      v, a, b, (b < 0 || a * amt > init) ? "SI" : "NO", (b != expected) ? "SI" : "NO", total / (e - s)
+  }'
+}
+
+echo "Clientes=$CLIENTS, débitos por cliente=$DEBITS, saldo inicial=$INITIAL_BALANCE"
+run_variant read_then_update bench_debit_read_then_update
+run_variant conditional bench_debit_conditional
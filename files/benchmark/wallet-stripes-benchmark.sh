@@ -0,0 +1,118 @@
+#!/usr/bin/env bash
+# =====================================================================
+# Benchmark: throughput de débitos de un operador según la cantidad de franjas
+# Compatible con MariaDB 10.4+ y MySQL 8.0+
+#
+# Reproduce el camino del consumer con TOPUP_WALLET_STRIPES = N: cada débito
+# es una transacción con el UPDATE condicional sobre la franja elegida por
+# hash (con fallback a la franja más rica) más el INSERT de auditoría, así el
+# row lock se mantiene hasta el COMMIT como en el consumer. P clientes
+# concurrentes hacen K débitos cada uno contra el MISMO operador, para
+# N = 1 2 4 8 16 (o la lista indicada). Reporta débitos/s, aceptados y si el
+# saldo total se conservó.
+#
+# Uso (en una base de datos de pruebas, NO en phone_recharge_db):
+#   ./files/benchmark/wallet-stripes-benchmark.sh [P=16] [K=500] ["1 2 4 8 16"]
+#
+# Variables: DB_CONTAINER (mariadb10432), DB_USER (root), DB_PASSWORD
+# (123456789), DB_NAME (bench_db).
+# =====================================================================
+set -euo pipefail
+
+CLIENTS="${1:-16}"
+DEBITS="${2:-500}"
+STRIPE_COUNTS="${3:-1 2 4 8 16}"
+DB_CONTAINER="${DB_CONTAINER:-mariadb10432}"
+DB_USER="${DB_USER:-root}"
+DB_PASSWORD="${DB_PASSWORD:-123456789}"
+DB_NAME="${DB_NAME:-bench_db}"
+AMOUNT="1.00"
+# Saldo de sobra: se mide contención, no saldo insuficiente
+INITIAL_BALANCE=$(( CLIENTS * DEBITS * 2 ))
+
+sql() {
+  docker exec -i "$DB_CONTAINER" mysql -N -B -u "$DB_USER" -p"$DB_PASSWORD" "$DB_NAME" "$@"
+}
+
+sql <<'SQL'
+DROP TABLE IF EXISTS bench_stripes;
+DROP TABLE IF EXISTS bench_stripe_audits;
+DROP TABLE IF EXISTS bench_stripe_results;
+CREATE TABLE bench_stripes (
+    operator_id INT NOT NULL,
+    stripe_no INT NOT NULL,
+    balance DECIMAL(15,2) NOT NULL,
+    PRIMARY KEY (operator_id, stripe_no)
+);
+CREATE TABLE bench_stripe_audits (
+    audit_id INT AUTO_INCREMENT PRIMARY KEY,
+    stripe_no INT NOT NULL
+);
+CREATE TABLE bench_stripe_results (
+    accepted INT NOT NULL
+);
+
+DROP PROCEDURE IF EXISTS bench_stripe_debit;
+
+DELIMITER //
+
+CREATE PROCEDURE bench_stripe_debit(IN p_amount DECIMAL(15,2), IN p_iterations INT, IN p_stripes INT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE v_stripe INT;
+    DECLARE v_accepted INT DEFAULT 0;
+    WHILE i < p_iterations DO
+        -- Equivalente a floorMod(rechargeId.hashCode(), N) con IDs aleatorios
+        SET v_stripe = FLOOR(RAND() * p_stripes);
+        START TRANSACTION;
+        UPDATE bench_stripes SET balance = balance - p_amount
+        WHERE operator_id = 1 AND stripe_no = v_stripe AND balance >= p_amount;
+        IF ROW_COUNT() = 0 THEN
+            UPDATE bench_stripes SET balance = balance - p_amount
+            WHERE operator_id = 1 AND balance >= p_amount
+            ORDER BY balance DESC LIMIT 1;
+        END IF;
+        IF ROW_COUNT() = 1 THEN
+            SET v_accepted = v_accepted + 1;
+        END IF;
+        INSERT INTO bench_stripe_audits (stripe_no) VALUES (v_stripe);
+        COMMIT;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_stripe_results VALUES (v_accepted);
+END //
+
+DELIMITER ;
+SQL
+
+run_stripes() {
+  local stripes="$1"
+  # Mismo reparto que WalletStripeRebalancer: partes iguales, residuo en la franja 0
+  sql -e "DELETE FROM bench_stripes; DELETE FROM bench_stripe_results; TRUNCATE bench_stripe_audits;"
+  sql -e "INSERT INTO bench_stripes
+          SELECT 1, seq, TRUNCATE($INITIAL_BALANCE / $stripes, 2)
+                 + IF(seq = 0, $INITIAL_BALANCE - TRUNCATE($INITIAL_BALANCE / $stripes, 2) * $stripes, 0)
+          FROM (SELECT @n := @n + 1 AS seq FROM information_schema.columns, (SELECT @n := -1) init
+                LIMIT $stripes) s;"
+  local start end
+  start=$(date +%s.%N)
+  for _ in $(seq 1 "$CLIENTS"); do
+    sql -e "CALL bench_stripe_debit($AMOUNT, $DEBITS, $stripes);" &
+  done
+  wait
+  end=$(date +%s.%N)
+
+  local accepted total
+  accepted=$(sql -e "SELECT COALESCE(SUM(accepted), 0) FROM bench_stripe_results;")
+  total=$(sql -e "SELECT SUM(balance) FROM bench_stripes WHERE operator_id = 1;")
+  awk -v n="$stripes" -v a="$accepted" -v t="$total" -v init="$INITIAL_BALANCE" -v amt="$AMOUNT" \
+      -v s="$start" -v e="$end" 'BEGIN {
+    printf "franjas=%-3d aceptados=%-7d saldo_total=%-11s conservado=%-3s débitos/s=%.0f\n",
+      n, a, t, (t == init - a * amt) ? "SI" : "NO", a / (e - s)
+  }'
+}
+
+echo "Clientes=$CLIENTS, débitos por cliente=$DEBITS, saldo inicial=$INITIAL_BALANCE"
+for stripes in $STRIPE_COUNTS; do
+  run_stripes "$stripes"
+done
@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de lazo abierto para POST /v1/topups.
+ * <p>
+ * Envía solicitudes a una tasa fija (o con llegadas de Poisson de la misma
+ * tasa media) sin esperar las respuestas: si el API se atrasa, las
+ * solicitudes se siguen enviando y la latencia se mide desde el instante en
+ * que cada una debía salir, no desde que salió. Así un API saturado se ve
+ * como latencia creciente y no como una tasa menor (omisión coordinada).
+ * </p>
+ * <p>
+ * Operador y monto se eligen por pesos ("MOVISTAR:50,CLARO:30,ENTEL:20",
+ * "10:40,20:60"); el teléfono es aleatorio, así que el rate limit por número
+ * del API no interviene salvo que se active.
+ * </p>
+ * <p>
+ * Lo ejecuta files/loadtest/run-loadtest.sh (launcher de un solo archivo,
+ * Java 21, sin dependencias). Uso directo:
+ * </p>
+ * <pre>
+ * java files/loadtest/LoadGenerator.java --url http://localhost:8084/v1/topups \
+ *     --rate 200 --duration 60 [--carriers MOVISTAR:50,CLARO:30,ENTEL:20] \
+ *     [--amounts 5:30,10:30,20:25,50:15] [--arrivals uniform|poisson] \
+ *     [--max-outstanding 20000] [--summary-file resultado.properties]
+ * </pre>
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI url = URI.create(required(options, "url"));
+        double rate = Double.parseDouble(required(options, "rate"));
+        long durationSeconds = Long.parseLong(required(options, "duration"));
+        Weighted carriers = Weighted.parse(options.getOrDefault("carriers", "MOVISTAR:50,CLARO:30,ENTEL:20"));
+        Weighted amounts = Weighted.parse(options.getOrDefault("amounts", "5:30,10:30,20:25,50:15"));
+        boolean poisson = "poisson".equals(options.getOrDefault("arrivals", "uniform"));
+        int maxOutstanding = Integer.parseInt(options.getOrDefault("max-outstanding", "20000"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long planned = (long) Math.ceil(rate * durationSeconds);
+        // Con llegadas de Poisson se envían algo más o algo menos que las previstas
+        long[] latencies = new long[(int) Math.min(planned + planned / 5 + 1_024, Integer.MAX_VALUE - 8)];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger outstanding = new AtomicInteger();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        SplittableRandom random = new SplittableRandom(42);
+
+        System.out.printf("Enviando %.0f solicitudes/s durante %ds (%s, llegadas %s) a %s%n",
+                rate, durationSeconds, carriers, poisson ? "poisson" : "uniformes", url);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        double intervalNanos = 1e9 / rate;
+        double offset = 0;
+        long sent = 0;
+        long maxLagNanos = 0;
+        while (true) {
+            long intended = start + (long) offset;
+            if (intended >= end) {
+                break;
+            }
+            long now = System.nanoTime();
+            if (intended > now) {
+                LockSupport.parkNanos(intended - now);
+            } else {
+                maxLagNanos = Math.max(maxLagNanos, now - intended);
+            }
+            offset += poisson ? -Math.log(1 - random.nextDouble()) * intervalNanos : intervalNanos;
+
+            // El cliente también tiene un límite: por encima se cuenta como no enviado en vez de agotar la memoria
+            if (outstanding.get() >= maxOutstanding) {
+                skipped.increment();
+                continue;
+            }
+            String body = "{\"phoneNumber\":\"9" + String.format("%08d", random.nextInt(100_000_000))
+                    + "\",\"amount\":" + amounts.pick(random)
+                    + ",\"carrier\":\"" + carriers.pick(random) + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(url)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            outstanding.incrementAndGet();
+            sent++;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - intended;
+                        int slot = recorded.getAndIncrement();
+                        if (slot < latencies.length) {
+                            latencies[slot] = latency;
+                        }
+                        if (failure != null) {
+                            errors.increment();
+                        } else {
+                            statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                        }
+                        outstanding.decrementAndGet();
+                    });
+        }
+        long sendNanos = System.nanoTime() - start;
+        // Respuestas pendientes: hasta el timeout de las solicitudes
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(35);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+
+        int count = Math.min(recorded.get(), latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long accepted = statuses.getOrDefault(202, new LongAdder()).sum();
+
+        Map<String, String> summary = new LinkedHashMap<>();
+        summary.put("planned", Long.toString(planned));
+        summary.put("sent", Long.toString(sent));
+        summary.put("accepted", Long.toString(accepted));
+        summary.put("errors", Long.toString(errors.sum()));
+        summary.put("skipped", Long.toString(skipped.sum()));
+        summary.put("rate", String.format("%.1f", sent / (sendNanos / 1e9)));
+        summary.put("api_p50_ms", millis(percentile(sorted, 0.50)));
+        summary.put("api_p99_ms", millis(percentile(sorted, 0.99)));
+        summary.put("api_p999_ms", millis(percentile(sorted, 0.999)));
+        summary.put("api_max_ms", millis(count > 0 ? sorted[count - 1] : 0));
+        summary.put("pacer_max_lag_ms", millis(maxLagNanos));
+
+        System.out.printf("Enviadas: %d de %d (%s/s), 202: %d, otros códigos: %s, errores: %d, no enviadas: %d%n",
+                sent, planned, summary.get("rate"), accepted, otherStatuses(statuses), errors.sum(), skipped.sum());
+        System.out.printf("Latencia API (desde el envío previsto): p50 %s ms, p99 %s ms, p999 %s ms, max %s ms%n",
+                summary.get("api_p50_ms"), summary.get("api_p99_ms"), summary.get("api_p999_ms"),
+                summary.get("api_max_ms"));
+        if (maxLagNanos > TimeUnit.MILLISECONDS.toNanos(10)) {
+            System.out.printf("Aviso: el generador se atrasó hasta %s ms; la máquina de carga está saturada%n",
+                    summary.get("pacer_max_lag_ms"));
+        }
+
+        String summaryFile = options.get("summary-file");
+        if (summaryFile != null) {
+            List<String> lines = new ArrayList<>();
+            summary.forEach((key, value) -> lines.add(key + "=" + value));
+            try {
+                Files.write(Path.of(summaryFile), lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    private static String otherStatuses(Map<Integer, LongAdder> statuses) {
+        StringBuilder text = new StringBuilder();
+        statuses.forEach((code, total) -> {
+            if (code != 202) {
+                text.append(text.length() > 0 ? ", " : "").append(code).append('=').append(total.sum());
+            }
+        });
+        return text.length() > 0 ? text.toString() : "-";
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Opción inválida: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String required(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Falta la opción --" + name);
+        }
+        return value;
+    }
+
+    /**
+     * Valores elegidos al azar según su peso ("valor:peso,...").
+     */
+    private record Weighted(String[] values, int[] cumulative, String text) {
+
+        static Weighted parse(String text) {
+            String[] entries = text.split(",");
+            String[] values = new String[entries.length];
+            int[] cumulative = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                String[] parts = entries[i].trim().split(":");
+                values[i] = parts[0];
+                total += parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+                cumulative[i] = total;
+            }
+            return new Weighted(values, cumulative, text);
+        }
+
+        String pick(SplittableRandom random) {
+            int point = random.nextInt(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (point < cumulative[i]) {
+                    return values[i];
+                }
+            }
+            return values[values.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
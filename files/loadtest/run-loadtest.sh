@@ -0,0 +1,338 @@
+#!/usr/bin/env bash
+# =====================================================================
+# Prueba de carga de punta a punta, en una sola máquina y sin red externa
+#
+# Levanta una infraestructura propia y desechable, arranca los tres
+# servicios contra ella y les aplica carga de lazo abierto:
+#
+#   sync API -> recharge_requests -> dispatcher (producer) -> Kafka
+#            -> consumer -> balance_wallets
+#
+#   - MariaDB en un contenedor nuevo, con las tablas de files/script.sql y
+#     una wallet por operador con INITIAL_BALANCE.
+#   - Kafka de un solo nodo en modo KRaft: la distribución local de
+#     KAFKA_HOME si está definida, o un contenedor de KAFKA_IMAGE.
+#   - Schema registry: ninguno. Producer y consumer usan un registry
+#     mock:// y resuelven TopUpEvent/TopUpEventV2 con IDs fijados
+#     (TOPUP_SCHEMA_PINNED_IDS), así que no hay llamadas al registry y los
+#     dos JVMs coinciden en los IDs sin compartir estado.
+#
+# Las imágenes se usan con --pull never: deben estar ya en la máquina
+# (docker pull una vez, con red). El build de Maven corre en modo offline.
+#
+# Al final reporta:
+#   - Tasa enviada, respuestas 202 y latencia del API (p50/p99/p999).
+#   - Throughput del pipeline y latencia de punta a punta por solicitud
+#     (created_at -> updated_at del estado final, p50/p99/p999).
+#   - Backlog (PENDING/DISPATCHING y SENT_TO_KAFKA) muestreado durante la
+#     carga: pico, valor al terminar y crecimiento por segundo; y el
+#     tiempo de drenado.
+#   - Consistencia de las wallets: sin sobregiro y, por operador, saldo
+#     inicial - saldo final = suma de las solicitudes COMPLETED.
+# Sale con código 1 si alguna verificación de consistencia falla.
+#
+# Uso (desde la raíz del repositorio):
+#   ./files/loadtest/run-loadtest.sh [RATE=200] [DURATION=60]
+#
+# Variables:
+#   CARRIER_MIX (MOVISTAR:50,CLARO:30,ENTEL:20), AMOUNT_MIX
+#   (5:30,10:30,20:25,50:15), ARRIVALS (uniform | poisson),
+#   INITIAL_BALANCE (100000.00 por operador), PARTITIONS (6),
+#   DRAIN_TIMEOUT (120 s), SAMPLE_INTERVAL (1 s), SKIP_BUILD (0),
+#   KEEP (0; 1 deja la infraestructura y los servicios corriendo),
+#   DB_IMAGE (mariadb:10.4.32), KAFKA_IMAGE (apache/kafka:3.9.1),
+#   KAFKA_HOME, LT_DB_PORT (3317), LT_KAFKA_PORT (29192),
+#   LT_API_PORT (18084), LT_PRODUCER_PORT (18085), LT_CONSUMER_PORT (18086),
+#   CONSUMER_PROFILE (prod; p. ej. prod,parallel), JAVA_OPTS.
+# Las variables TOPUP_* del entorno (stripes, max-in-flight, modo de
+# auditoría, etc.) llegan tal cual a los servicios.
+# =====================================================================
+set -euo pipefail
+
+RATE="${1:-200}"
+DURATION="${2:-60}"
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+CARRIER_MIX="${CARRIER_MIX:-MOVISTAR:50,CLARO:30,ENTEL:20}"
+AMOUNT_MIX="${AMOUNT_MIX:-5:30,10:30,20:25,50:15}"
+ARRIVALS="${ARRIVALS:-uniform}"
+INITIAL_BALANCE="${INITIAL_BALANCE:-100000.00}"
+PARTITIONS="${PARTITIONS:-6}"
+DRAIN_TIMEOUT="${DRAIN_TIMEOUT:-120}"
+SAMPLE_INTERVAL="${SAMPLE_INTERVAL:-1}"
+SKIP_BUILD="${SKIP_BUILD:-0}"
+KEEP="${KEEP:-0}"
+DB_IMAGE="${DB_IMAGE:-mariadb:10.4.32}"
+KAFKA_IMAGE="${KAFKA_IMAGE:-apache/kafka:3.9.1}"
+LT_DB_PORT="${LT_DB_PORT:-3317}"
+LT_KAFKA_PORT="${LT_KAFKA_PORT:-29192}"
+LT_API_PORT="${LT_API_PORT:-18084}"
+LT_PRODUCER_PORT="${LT_PRODUCER_PORT:-18085}"
+LT_CONSUMER_PORT="${LT_CONSUMER_PORT:-18086}"
+CONSUMER_PROFILE="${CONSUMER_PROFILE:-prod}"
+DB_PASSWORD="123456789"
+DB_CONTAINER="topup-loadtest-db"
+KAFKA_CONTAINER="topup-loadtest-kafka"
+WORK_DIR="$(mktemp -d /tmp/topup-loadtest.XXXXXX)"
+PIDS=()
+
+log() {
+  echo "[$(date +%H:%M:%S)] $*"
+}
+
+sql() {
+  docker exec -i "$DB_CONTAINER" mysql -N -B -u root -p"$DB_PASSWORD" phone_recharge_db "$@"
+}
+
+kafka_topics() {
+  if [ -n "${KAFKA_HOME:-}" ]; then
+    "$KAFKA_HOME/bin/kafka-topics.sh" --bootstrap-server "localhost:$LT_KAFKA_PORT" "$@"
+  else
+    docker exec "$KAFKA_CONTAINER" /opt/kafka/bin/kafka-topics.sh --bootstrap-server localhost:9092 "$@"
+  fi
+}
+
+cleanup() {
+  if [ "$KEEP" = "1" ]; then
+    log "KEEP=1: servicios e infraestructura siguen corriendo (logs en $WORK_DIR)"
+    return
+  fi
+  for pid in "${PIDS[@]}"; do
+    kill "$pid" 2>/dev/null || true
+  done
+  wait 2>/dev/null || true
+  docker rm -f "$DB_CONTAINER" "$KAFKA_CONTAINER" >/dev/null 2>&1 || true
+  log "Infraestructura eliminada (logs en $WORK_DIR)"
+}
+trap cleanup EXIT
+
+# wait_for <descripción> <segundos> <comando...>
+wait_for() {
+  local what="$1" timeout="$2"
+  shift 2
+  for _ in $(seq 1 "$timeout"); do
+    if "$@" >/dev/null 2>&1; then
+      return 0
+    fi
+    sleep 1
+  done
+  log "ERROR: $what no respondió en ${timeout}s"
+  return 1
+}
+
+# percentiles <archivo con un valor por línea, en µs>: imprime "p50 p99 p999 max" en ms
+percentiles() {
+  sort -n "$1" | awk '{ v[NR] = $1 } END {
+    if (NR == 0) { print "- - - -"; exit }
+    split("0.5 0.99 0.999", q, " ")
+    for (i = 1; i <= 3; i++) { k = int(q[i] * NR + 0.999999); if (k < 1) k = 1; printf "%.1f ", v[k] / 1000 }
+    printf "%.1f\n", v[NR] / 1000
+  }'
+}
+
+# ---------------------------------------------------------------------
+# 1. Build (offline)
+# ---------------------------------------------------------------------
+if [ "$SKIP_BUILD" != "1" ]; then
+  log "Compilando los módulos (mvn -o package)..."
+  mvn -B -q -o -f "$ROOT/pom.xml" package -DskipTests
+fi
+
+# ---------------------------------------------------------------------
+# 2. MariaDB
+# ---------------------------------------------------------------------
+log "Levantando MariaDB ($DB_IMAGE) en el puerto $LT_DB_PORT..."
+docker rm -f "$DB_CONTAINER" >/dev/null 2>&1 || true
+docker run -d --pull never --name "$DB_CONTAINER" \
+  -e MYSQL_ROOT_PASSWORD="$DB_PASSWORD" -e MYSQL_DATABASE=phone_recharge_db \
+  -p "127.0.0.1:$LT_DB_PORT:3306" "$DB_IMAGE" >/dev/null
+wait_for "MariaDB" 60 sql -e "SELECT 1"
+
+# script.sql empieza con consultas de ejemplo: se aplica desde el primer CREATE
+sed -n '/^CREATE /,$p' "$ROOT/files/script.sql" | sql
+sql -e "INSERT INTO balance_wallets (operator_name, current_balance, currency) VALUES
+        ('Movistar', $INITIAL_BALANCE, 'PEN'), ('Claro', $INITIAL_BALANCE, 'PEN'), ('Entel', $INITIAL_BALANCE, 'PEN');"
+
+# ---------------------------------------------------------------------
+# 3. Kafka (KRaft, un nodo)
+# ---------------------------------------------------------------------
+if [ -n "${KAFKA_HOME:-}" ]; then
+  log "Levantando Kafka desde $KAFKA_HOME en el puerto $LT_KAFKA_PORT..."
+  cat > "$WORK_DIR/kafka.properties" <<EOF
+process.roles=broker,controller
+node.id=1
+controller.quorum.voters=1@127.0.0.1:$((LT_KAFKA_PORT + 1))
+listeners=PLAINTEXT://127.0.0.1:$LT_KAFKA_PORT,CONTROLLER://127.0.0.1:$((LT_KAFKA_PORT + 1))
+advertised.listeners=PLAINTEXT://127.0.0.1:$LT_KAFKA_PORT
+controller.listener.names=CONTROLLER
+listener.security.protocol.map=PLAINTEXT:PLAINTEXT,CONTROLLER:PLAINTEXT
+log.dirs=$WORK_DIR/kafka-data
+offsets.topic.replication.factor=1
+transaction.state.log.replication.factor=1
+transaction.state.log.min.isr=1
+group.initial.rebalance.delay.ms=0
+EOF
+  "$KAFKA_HOME/bin/kafka-storage.sh" format -t "$("$KAFKA_HOME/bin/kafka-storage.sh" random-uuid)" \
+    -c "$WORK_DIR/kafka.properties" >/dev/null
+  "$KAFKA_HOME/bin/kafka-server-start.sh" "$WORK_DIR/kafka.properties" >"$WORK_DIR/kafka.log" 2>&1 &
+  PIDS+=("$!")
+else
+  log "Levantando Kafka ($KAFKA_IMAGE) en el puerto $LT_KAFKA_PORT..."
+  docker rm -f "$KAFKA_CONTAINER" >/dev/null 2>&1 || true
+  docker run -d --pull never --name "$KAFKA_CONTAINER" -p "127.0.0.1:$LT_KAFKA_PORT:29092" \
+    -e KAFKA_NODE_ID=1 \
+    -e KAFKA_PROCESS_ROLES=broker,controller \
+    -e KAFKA_CONTROLLER_QUORUM_VOTERS=1@localhost:9093 \
+    -e KAFKA_LISTENERS=PLAINTEXT://:9092,CONTROLLER://:9093,HOST://:29092 \
+    -e KAFKA_ADVERTISED_LISTENERS=PLAINTEXT://localhost:9092,HOST://localhost:$LT_KAFKA_PORT \
+    -e KAFKA_LISTENER_SECURITY_PROTOCOL_MAP=PLAINTEXT:PLAINTEXT,CONTROLLER:PLAINTEXT,HOST:PLAINTEXT \
+    -e KAFKA_CONTROLLER_LISTENER_NAMES=CONTROLLER \
+    -e KAFKA_INTER_BROKER_LISTENER_NAME=PLAINTEXT \
+    -e KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR=1 \
+    -e KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR=1 \
+    -e KAFKA_TRANSACTION_STATE_LOG_MIN_ISR=1 \
+    -e KAFKA_GROUP_INITIAL_REBALANCE_DELAY_MS=0 \
+    "$KAFKA_IMAGE" >/dev/null
+fi
+wait_for "Kafka" 60 kafka_topics --list
+
+for topic in topup-topic topup-status-topic topup-topic-retry-1s topup-topic-retry-10s topup-topic-retry-60s topup-topic-dlq; do
+  kafka_topics --create --if-not-exists --topic "$topic" --partitions "$PARTITIONS" --replication-factor 1 >/dev/null
+done
+kafka_topics --create --if-not-exists --topic topup-dispatch-wakeup-topic --partitions 1 --replication-factor 1 >/dev/null
+
+# ---------------------------------------------------------------------
+# 4. Servicios
+# ---------------------------------------------------------------------
+export KAFKA_BROKERS="PLAINTEXT://localhost:$LT_KAFKA_PORT"
+export SCHEMA_REGISTRY_URL="mock://topup-loadtest"
+export TOPUP_SCHEMA_PINNED_IDS="${TOPUP_SCHEMA_PINNED_IDS:-pe.com.topup.model.TopUpEvent=1,pe.com.topup.model.TopUpEventV2=2}"
+export OTEL_SDK_DISABLED=true
+export DB_HOST=localhost DB_PORT="$LT_DB_PORT" DB_PASSWORD
+export CONFIG_DB_HOST="localhost:$LT_DB_PORT" CONFIG_DB_PASSWORD="$DB_PASSWORD"
+
+# start_service <módulo> <puerto> [perfil]
+start_service() {
+  local module="$1" port="$2" profile="${3:-prod}"
+  log "Arrancando $module en el puerto $port (perfil $profile)..."
+  # UTC como el contenedor de MariaDB: el consumer escribe updated_at con la hora de la JVM
+  # shellcheck disable=SC2086
+  QUARKUS_HTTP_PORT="$port" QUARKUS_PROFILE="$profile" java ${JAVA_OPTS:-} -Duser.timezone=UTC \
+    -Djava.util.logging.manager=org.jboss.logmanager.LogManager \
+    -jar "$ROOT/$module/target/quarkus-app/quarkus-run.jar" >"$WORK_DIR/$module.log" 2>&1 &
+  PIDS+=("$!")
+  if ! wait_for "$module" 90 curl -sf "http://localhost:$port/q/metrics"; then
+    tail -n 30 "$WORK_DIR/$module.log"
+    exit 1
+  fi
+}
+
+start_service async-topup-consumer-v1 "$LT_CONSUMER_PORT" "$CONSUMER_PROFILE"
+start_service async-topup-producer-v1 "$LT_PRODUCER_PORT"
+start_service sync-topup-api-v1 "$LT_API_PORT"
+
+# ---------------------------------------------------------------------
+# 5. Carga + muestreo del backlog
+# ---------------------------------------------------------------------
+# Una fila por muestra: segundos desde el inicio, PENDING+DISPATCHING, SENT_TO_KAFKA, finales
+(
+  started=$(date +%s.%N)
+  while true; do
+    sql -e "SELECT COALESCE(SUM(status IN ('PENDING', 'DISPATCHING')), 0),
+                   COALESCE(SUM(status = 'SENT_TO_KAFKA'), 0),
+                   COALESCE(SUM(status IN ('COMPLETED', 'FAILED')), 0)
+            FROM recharge_requests;" 2>/dev/null |
+      awk -v s="$started" -v now="$(date +%s.%N)" '{ printf "%.1f %d %d %d\n", now - s, $1, $2, $3 }'
+    sleep "$SAMPLE_INTERVAL"
+  done
+) </dev/null >"$WORK_DIR/backlog.txt" &
+SAMPLER_PID=$!
+PIDS+=("$SAMPLER_PID")
+
+log "Carga: $RATE solicitudes/s durante ${DURATION}s"
+java "$ROOT/files/loadtest/LoadGenerator.java" --url "http://localhost:$LT_API_PORT/v1/topups" \
+  --rate "$RATE" --duration "$DURATION" --carriers "$CARRIER_MIX" --amounts "$AMOUNT_MIX" \
+  --arrivals "$ARRIVALS" --summary-file "$WORK_DIR/generator.properties"
+LOAD_END_SAMPLE=$(tail -n 1 "$WORK_DIR/backlog.txt")
+
+log "Esperando a que el pipeline drene (máximo ${DRAIN_TIMEOUT}s)..."
+drain_start=$(date +%s)
+while true; do
+  in_flight=$(sql -e "SELECT COUNT(*) FROM recharge_requests WHERE status NOT IN ('COMPLETED', 'FAILED');")
+  [ "$in_flight" -eq 0 ] && break
+  if [ $(( $(date +%s) - drain_start )) -ge "$DRAIN_TIMEOUT" ]; then
+    log "Aviso: quedan $in_flight solicitudes sin estado final"
+    break
+  fi
+  sleep 1
+done
+DRAIN_SECONDS=$(( $(date +%s) - drain_start ))
+kill "$SAMPLER_PID" 2>/dev/null || true
+
+# ---------------------------------------------------------------------
+# 6. Reporte
+# ---------------------------------------------------------------------
+generator() {
+  grep "^$1=" "$WORK_DIR/generator.properties" | cut -d= -f2
+}
+accepted=$(generator accepted)
+
+sql -e "SELECT TIMESTAMPDIFF(MICROSECOND, created_at, updated_at) FROM recharge_requests
+        WHERE status IN ('COMPLETED', 'FAILED');" >"$WORK_DIR/e2e-micros.txt"
+read -r e2e_p50 e2e_p99 e2e_p999 e2e_max <<<"$(percentiles "$WORK_DIR/e2e-micros.txt")"
+read -r rows completed failed not_final pipeline_seconds <<<"$(sql -e "
+  SELECT COUNT(*), COALESCE(SUM(status = 'COMPLETED'), 0), COALESCE(SUM(status = 'FAILED'), 0),
+         COALESCE(SUM(status NOT IN ('COMPLETED', 'FAILED')), 0),
+         COALESCE(TIMESTAMPDIFF(MICROSECOND, MIN(created_at), MAX(updated_at)) / 1e6, 0)
+  FROM recharge_requests;")"
+
+echo
+echo "===================== Resultado ($RATE/s x ${DURATION}s) ====================="
+echo "Solicitudes:   aceptadas (202)=$accepted  en BD=$rows  COMPLETED=$completed  FAILED=$failed  sin estado final=$not_final"
+awk -v n="$((completed + failed))" -v s="$pipeline_seconds" \
+  'BEGIN { printf "Throughput:    %.1f solicitudes finalizadas/s (primer insert -> último estado final)\n", (s > 0 ? n / s : 0) }'
+echo "Punta a punta: p50 ${e2e_p50} ms  p99 ${e2e_p99} ms  p999 ${e2e_p999} ms  max ${e2e_max} ms (created_at -> estado final)"
+echo "API:           $(generator rate) solicitudes/s enviadas; p50 $(generator api_p50_ms) ms  p99 $(generator api_p99_ms) ms  p999 $(generator api_p999_ms) ms"
+awk -v d="$DURATION" -v last="$LOAD_END_SAMPLE" '
+  $1 <= d + 1 { if ($2 > pd) pd = $2; if ($3 > ps) ps = $3 }
+  END {
+    split(last, l, " ")
+    printf "Backlog:       pico dispatcher=%d consumer=%d; al terminar la carga dispatcher=%d consumer=%d (%+.1f/s)\n",
+      pd, ps, l[2], l[3], (d > 0 ? (l[2] + l[3]) / d : 0)
+  }' "$WORK_DIR/backlog.txt"
+echo "Drenado:       ${DRAIN_SECONDS}s después de la carga (serie completa en $WORK_DIR/backlog.txt)"
+
+failures=0
+overdrafts=$(sql -e "SELECT (SELECT COUNT(*) FROM balance_wallets WHERE current_balance < 0)
+                          + (SELECT COUNT(*) FROM balance_wallet_stripes WHERE balance < 0);")
+if [ "$overdrafts" -ne 0 ]; then
+  echo "Wallets:       ERROR: $overdrafts filas de saldo negativas"
+  failures=1
+fi
+# Saldo durable = saldo sin asignar + franjas - journal aún no aplicado (modo ledger)
+while read -r operator balance debited matches; do
+  if [ "$matches" -eq 1 ]; then
+    printf "Wallet %-9s saldo final=%s, debitado=%s, coincide con COMPLETED\n" "$operator:" "$balance" "$debited"
+  else
+    printf "Wallet %-9s ERROR: saldo final=%s, pero COMPLETED suma %s (inicial %s)\n" \
+      "$operator:" "$balance" "$debited" "$INITIAL_BALANCE"
+    failures=1
+  fi
+done < <(sql -e "
+  SELECT t.operator_name,
+         t.total_balance - COALESCE(j.unapplied, 0),
+         COALESCE(r.debited, 0.00),
+         $INITIAL_BALANCE - (t.total_balance - COALESCE(j.unapplied, 0)) = COALESCE(r.debited, 0.00)
+  FROM balance_wallets_total t
+  LEFT JOIN (SELECT operator_id, SUM(amount) AS unapplied FROM wallet_journal WHERE applied = 0
+             GROUP BY operator_id) j ON j.operator_id = t.operator_id
+  LEFT JOIN (SELECT LOWER(carrier) AS carrier, SUM(amount) AS debited FROM recharge_requests
+             WHERE status = 'COMPLETED' GROUP BY LOWER(carrier)) r ON r.carrier = LOWER(t.operator_name)
+  ORDER BY t.operator_id;")
+if [ "$rows" -lt "$accepted" ]; then
+  echo "Solicitudes:   ERROR: el API aceptó $accepted pero hay $rows filas"
+  failures=1
+elif [ "$rows" -gt "$accepted" ]; then
+  # Una solicitud que venció en el cliente puede haberse insertado igual
+  echo "Solicitudes:   aviso: $((rows - accepted)) filas más que respuestas 202 (errores del cliente: $(generator errors))"
+fi
+exit "$failures"
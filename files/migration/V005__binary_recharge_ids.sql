@@ -0,0 +1,80 @@
+-- =====================================================================
+-- Migración: recharge_id VARCHAR(36) -> BINARY(16) (UUID v7)
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- Orden de despliegue:
+--   1. Detener sync-topup-api-v1 (no más inserts) y esperar a que
+--      async-topup-producer-v1 y async-topup-consumer-v1 drenen los
+--      registros PENDING / SENT_TO_KAFKA.
+--   2. Detener producer y consumer.
+--   3. Ejecutar este script.
+--   4. Desplegar las tres aplicaciones con la nueva versión.
+--
+-- Los IDs existentes con formato UUID se convierten sin pérdida
+-- (UNHEX del texto sin guiones). Los IDs heredados que no son UUID
+-- (p. ej. 'req-777-abc') se convierten con UNHEX(MD5(id)) y quedan
+-- registrados en recharge_id_migration para poder rastrearlos.
+-- =====================================================================
+
+-- 1. Tabla de trazabilidad para IDs heredados que no eran UUID
+CREATE TABLE IF NOT EXISTS recharge_id_migration (
+                                                     legacy_id VARCHAR(36) PRIMARY KEY,
+                                                     recharge_id BINARY(16) NOT NULL,
+                                                     migrated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6)
+);
+
+-- 2. Columnas nuevas
+ALTER TABLE recharge_requests ADD COLUMN recharge_id_bin BINARY(16) NULL AFTER recharge_id;
+ALTER TABLE process_audits ADD COLUMN recharge_id_bin BINARY(16) NULL AFTER recharge_id;
+ALTER TABLE idempotency_keys ADD COLUMN recharge_id_bin BINARY(16) NULL AFTER recharge_id;
+
+-- 3. Backfill de la tabla padre
+UPDATE recharge_requests
+SET recharge_id_bin = CASE
+    WHEN recharge_id REGEXP '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$'
+        THEN UNHEX(REPLACE(recharge_id, '-', ''))
+    ELSE UNHEX(MD5(recharge_id))
+END;
+
+INSERT IGNORE INTO recharge_id_migration (legacy_id, recharge_id)
+SELECT recharge_id, recharge_id_bin
+FROM recharge_requests
+WHERE recharge_id NOT REGEXP '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$';
+
+-- 4. Backfill de las tablas hijas a partir del ID anterior
+UPDATE process_audits a
+    JOIN recharge_requests r ON r.recharge_id = a.recharge_id
+SET a.recharge_id_bin = r.recharge_id_bin;
+
+UPDATE idempotency_keys k
+    JOIN recharge_requests r ON r.recharge_id = k.recharge_id
+SET k.recharge_id_bin = r.recharge_id_bin;
+
+-- 5. Verificación: ambas consultas deben devolver 0 antes de continuar
+SELECT COUNT(*) AS requests_sin_migrar FROM recharge_requests WHERE recharge_id_bin IS NULL;
+SELECT COUNT(*) AS audits_sin_migrar FROM process_audits WHERE recharge_id IS NOT NULL AND recharge_id_bin IS NULL;
+
+-- 6. Intercambio de columnas y claves
+ALTER TABLE process_audits DROP FOREIGN KEY fk_recharge;
+
+ALTER TABLE recharge_requests
+    DROP PRIMARY KEY,
+    DROP COLUMN recharge_id,
+    CHANGE COLUMN recharge_id_bin recharge_id BINARY(16) NOT NULL FIRST,
+    ADD PRIMARY KEY (recharge_id);
+
+ALTER TABLE process_audits
+    DROP COLUMN recharge_id,
+    CHANGE COLUMN recharge_id_bin recharge_id BINARY(16) NULL AFTER audit_id;
+
+ALTER TABLE idempotency_keys
+    DROP COLUMN recharge_id,
+    CHANGE COLUMN recharge_id_bin recharge_id BINARY(16) NOT NULL AFTER idempotency_key;
+
+ALTER TABLE process_audits
+    ADD CONSTRAINT fk_recharge FOREIGN KEY (recharge_id) REFERENCES recharge_requests(recharge_id);
+
+-- Consulta de ejemplo con el ID en formato legible:
+-- SELECT LOWER(INSERT(INSERT(INSERT(INSERT(HEX(recharge_id), 9, 0, '-'), 14, 0, '-'), 19, 0, '-'), 24, 0, '-')) AS recharge_id,
+--        phone_number, status
+-- FROM recharge_requests;
@@ -0,0 +1,19 @@
+-- =====================================================================
+-- Migración: columnas de reclamo para el dispatcher paginado
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- El producer reclama páginas de registros 'PENDING' pasándolos a
+-- 'DISPATCHING' con un token y un lease (claim_token / claim_expires_at).
+-- MariaDB 10.4 no soporta SELECT ... FOR UPDATE SKIP LOCKED (disponible
+-- desde 10.6), por eso el reclamo se hace con un UPDATE ... ORDER BY ...
+-- LIMIT atómico.
+--
+-- Se puede aplicar con el producer en ejecución; la nueva versión del
+-- producer requiere estas columnas.
+-- =====================================================================
+
+ALTER TABLE recharge_requests
+    ADD COLUMN claim_token VARCHAR(36) NULL,
+    ADD COLUMN claim_expires_at DATETIME(6) NULL,
+    ADD KEY idx_status_created (status, created_at),
+    ADD KEY idx_claim_token (claim_token);
@@ -0,0 +1,44 @@
+-- =====================================================================
+-- Migración: wallets en franjas (balance_wallet_stripes)
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- Con TOPUP_WALLET_STRIPES = N > 1 el consumer reparte el saldo de cada
+-- operador en N filas para que los débitos concurrentes de un mismo
+-- operador no esperen todos el mismo row lock. balance_wallets.current_balance
+-- pasa a ser el saldo sin asignar (donde se siguen cargando fondos); el
+-- rebalanceo del consumer lo mueve a las franjas y crea las que falten.
+--
+-- Aplicar ANTES de desplegar el consumer con TOPUP_WALLET_STRIPES > 1.
+-- Con TOPUP_WALLET_STRIPES = 1 la tabla queda vacía y no se usa.
+--
+-- Para volver a una sola fila: detener los consumers, ejecutar el bloque
+-- "Reversión" del final y desplegar con TOPUP_WALLET_STRIPES = 1.
+-- =====================================================================
+
+CREATE TABLE IF NOT EXISTS balance_wallet_stripes (
+    operator_id INT NOT NULL,
+    stripe_no INT NOT NULL,
+    balance DECIMAL(15,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (operator_id, stripe_no),
+    CONSTRAINT fk_stripe_wallet FOREIGN KEY (operator_id) REFERENCES balance_wallets(operator_id)
+);
+
+CREATE OR REPLACE VIEW balance_wallets_total AS
+SELECT w.operator_id,
+       w.operator_name,
+       w.currency,
+       w.current_balance + COALESCE(SUM(s.balance), 0) AS total_balance
+FROM balance_wallets w
+    LEFT JOIN balance_wallet_stripes s ON s.operator_id = w.operator_id
+GROUP BY w.operator_id, w.operator_name, w.currency, w.current_balance;
+
+-- ---------------------------------------------------------------------
+-- Reversión: devuelve el saldo de las franjas a balance_wallets
+-- ---------------------------------------------------------------------
+-- START TRANSACTION;
+-- UPDATE balance_wallets w
+--     JOIN (SELECT operator_id, SUM(balance) AS stripes_balance
+--           FROM balance_wallet_stripes GROUP BY operator_id) s ON s.operator_id = w.operator_id
+-- SET w.current_balance = w.current_balance + s.stripes_balance;
+-- DELETE FROM balance_wallet_stripes;
+-- COMMIT;
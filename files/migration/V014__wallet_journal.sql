@@ -0,0 +1,33 @@
+-- =====================================================================
+-- Migración: journal del ledger en memoria del consumer (perfil "ledger")
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- En modo ledger el consumer decide los débitos contra un saldo en memoria
+-- y los escribe por lotes en wallet_journal (con estados y auditorías) antes
+-- de confirmar los offsets. Cada checkpoint suma las filas applied = 0 a
+-- balance_wallets y las marca applied = 1. El saldo durable de un operador es:
+--
+--   current_balance - SUM(amount de sus filas con applied = 0)
+--
+-- recharge_id es UNIQUE: un evento re-entregado nunca se debita dos veces.
+-- Aplicar ANTES de desplegar el consumer con QUARKUS_PROFILE=prod,ledger.
+-- =====================================================================
+
+CREATE TABLE IF NOT EXISTS wallet_journal (
+    journal_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    operator_id INT NOT NULL,
+    recharge_id BINARY(16) NOT NULL,
+    amount DECIMAL(15,2) NOT NULL,
+    applied TINYINT(1) NOT NULL DEFAULT 0,
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    UNIQUE KEY uk_journal_recharge (recharge_id),
+    KEY idx_journal_pending (operator_id, applied, journal_id),
+    CONSTRAINT fk_journal_wallet FOREIGN KEY (operator_id) REFERENCES balance_wallets(operator_id)
+);
+
+-- Saldo durable por operador (útil mientras el consumer corre en modo ledger)
+-- SELECT w.operator_name,
+--        w.current_balance - COALESCE(SUM(j.amount), 0) AS durable_balance
+-- FROM balance_wallets w
+--     LEFT JOIN wallet_journal j ON j.operator_id = w.operator_id AND j.applied = 0
+-- GROUP BY w.operator_id, w.operator_name, w.current_balance;
@@ -0,0 +1,15 @@
+-- =====================================================================
+-- Migración: contexto de traza de cada solicitud
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- El sync API guarda el traceparent W3C de la petición HTTP que creó la
+-- solicitud; el producer lo usa como padre del envío a Kafka, de modo que
+-- una recarga se puede seguir en una sola traza API -> producer -> consumer.
+--
+-- Aplicar antes de desplegar las nuevas versiones del sync API y del
+-- producer. La columna es opcional: las filas previas quedan en NULL y se
+-- envían sin traza padre.
+-- =====================================================================
+
+ALTER TABLE recharge_requests
+    ADD COLUMN trace_parent VARCHAR(55) NULL;
@@ -0,0 +1,27 @@
+-- =====================================================================
+-- Migración: checkpoints del dispatcher en modo binlog
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- Con topup.dispatcher.mode=BINLOG el producer lee los inserts de
+-- recharge_requests desde el binlog en lugar de consultar la tabla, y
+-- guarda aquí hasta qué posición todo fue confirmado por Kafka. Al
+-- reiniciar retoma desde esa posición.
+--
+-- Requisitos del servidor para ese modo:
+--   binlog_format    = ROW
+--   binlog_row_image = FULL
+--   log_bin activo (MariaDB: --log-bin; MySQL 8: activo por defecto) y un
+--   expire_logs/binlog_expire_logs_seconds mayor que cualquier caída
+--   esperada del producer
+--   GRANT REPLICATION SLAVE, REPLICATION CLIENT ON *.* TO '<usuario>'@'%';
+--
+-- Una sola instancia del producer por base de datos en modo BINLOG. En modo
+-- POLLING la tabla no se usa.
+-- =====================================================================
+
+CREATE TABLE IF NOT EXISTS dispatcher_binlog_checkpoints (
+    checkpoint_name VARCHAR(64) PRIMARY KEY,
+    binlog_file VARCHAR(255) NOT NULL,
+    binlog_position BIGINT NOT NULL,
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
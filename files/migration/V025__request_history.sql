@@ -0,0 +1,50 @@
+-- =====================================================================
+-- Migración: ciclo de vida caliente/frío de las solicitudes
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- El archivador del producer (TOPUP_ARCHIVER_ENABLED=true) mueve las
+-- solicitudes 'COMPLETED' y 'FAILED' con más de TOPUP_ARCHIVER_MIN_AGE, y
+-- sus auditorías, a estas tablas de historial. recharge_requests y
+-- process_audits quedan con lo vivo y el reclamo del dispatcher
+-- (idx_status_created, V007) y las consultas del consumer no se degradan a
+-- medida que crece el historial.
+--
+-- El particionado por mes va en el historial y no en las tablas vivas:
+-- InnoDB no admite claves foráneas en tablas particionadas
+-- (process_audits -> recharge_requests) y cada clave única debe incluir la
+-- columna de partición. Las tablas se crean solo con p_future; el
+-- archivador la parte en pYYYYMM por adelantado. Para purgar historial
+-- antiguo: ALTER TABLE ... DROP PARTITION pYYYYMM.
+--
+-- Aplicar antes de activar el archivador. No afecta a los servicios en
+-- ejecución.
+-- =====================================================================
+
+CREATE TABLE IF NOT EXISTS recharge_requests_history (
+    recharge_id BINARY(16) NOT NULL,
+    phone_number VARCHAR(15) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    carrier VARCHAR(20),
+    status VARCHAR(20) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6),
+    trace_parent VARCHAR(55) NULL,
+    archived_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (recharge_id, created_at)
+)
+PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+CREATE TABLE IF NOT EXISTS process_audits_history (
+    audit_id INT NOT NULL,
+    recharge_id BINARY(16),
+    completion_date DATETIME NOT NULL,
+    error_details TEXT,
+    archived_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (audit_id, completion_date),
+    KEY idx_audit_history_recharge (recharge_id)
+)
+PARTITION BY RANGE COLUMNS (completion_date) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
@@ -0,0 +1,14 @@
+-- =====================================================================
+-- Migración: vencimiento de las Idempotency-Key
+-- Compatible con MariaDB 10.4+ y MySQL 8.0+
+--
+-- La API borra periódicamente las claves con más de
+-- TOPUP_IDEMPOTENCY_RETENTION (por defecto 24h), en lotes de
+-- TOPUP_IDEMPOTENCY_PURGE_BATCH_SIZE ordenados por created_at. El índice
+-- evita que cada lote recorra la tabla completa.
+--
+-- Aplicar antes de desplegar la API. No afecta a los servicios en
+-- ejecución.
+-- =====================================================================
+
+ALTER TABLE idempotency_keys ADD KEY idx_idempotency_created (created_at);
@@ -6,9 +6,9 @@ select * from recharge_requests;
 INSERT INTO balance_wallets (operator_name, current_balance, currency) VALUES ('Movistar', 100.00, 'PEN');
 INSERT INTO balance_wallets (operator_name, current_balance, currency) VALUES ('Claro', 50.00, 'PEN');
 
--- Simulamos una recarga de 20 soles
+-- Simulamos una recarga de 20 soles (recharge_id es un UUID v7 guardado como BINARY(16))
 INSERT INTO recharge_requests (recharge_id, phone_number, amount, status)
-VALUES ('req-777-abc', '987654321', 20.00, 'PENDING');
+VALUES (UNHEX(REPLACE('0192f5a4-7c1e-7a3b-9d2e-5f8a1b3c4d5e', '-', '')), '987654321', 20.00, 'PENDING');
 
 -- 1. Descontamos el saldo (El Consumer lo hace)
 UPDATE balance_wallets
@@ -18,21 +18,28 @@ WHERE operator_name = 'Movistar';
 -- 2. Marcamos como exitosa la solicitud
 UPDATE recharge_requests
 SET status = 'SUCCESSFUL'
-WHERE recharge_id = 'req-777-abc';
+WHERE recharge_id = UNHEX(REPLACE('0192f5a4-7c1e-7a3b-9d2e-5f8a1b3c4d5e', '-', ''));
 
 -- 3. Llenamos la auditoría con el detalle del éxito
 INSERT INTO process_audits (recharge_id, error_details)
-VALUES ('req-777-abc', 'Transaction processed by Kafka Consumer. Balance deducted from Movistar.');
+VALUES (UNHEX(REPLACE('0192f5a4-7c1e-7a3b-9d2e-5f8a1b3c4d5e', '-', '')), 'Transaction processed by Kafka Consumer. Balance deducted from Movistar.');
 
 
 CREATE TABLE IF NOT EXISTS recharge_requests (
-                                                 recharge_id VARCHAR(36) PRIMARY KEY,
+                                                 recharge_id BINARY(16) PRIMARY KEY, -- UUID v7 (ordenado por tiempo)
                                                  phone_number VARCHAR(15) NOT NULL,
                                                  amount DECIMAL(10,2) NOT NULL,
                                                  carrier VARCHAR(20),
                                                  status VARCHAR(20) DEFAULT 'PENDING',
                                                  created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
-                                                 updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+                                                 updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+                                                 -- Reclamo del dispatcher (solo mientras status = 'DISPATCHING')
+                                                 claim_token VARCHAR(36) NULL,
+                                                 claim_expires_at DATETIME(6) NULL,
+                                                 -- traceparent W3C de la petición que creó la solicitud (trazas de punta a punta)
+                                                 trace_parent VARCHAR(55) NULL,
+                                                 KEY idx_status_created (status, created_at),
+                                                 KEY idx_claim_token (claim_token)
 );
 
 
@@ -43,16 +50,89 @@ CREATE TABLE IF NOT EXISTS balance_wallets (
                                                currency VARCHAR(3) DEFAULT 'PEN'
 );
 
+-- Franjas de saldo por operador (opcional, TOPUP_WALLET_STRIPES > 1 en el consumer)
+CREATE TABLE IF NOT EXISTS balance_wallet_stripes (
+                                                      operator_id INT NOT NULL,
+                                                      stripe_no INT NOT NULL,
+                                                      balance DECIMAL(15,2) NOT NULL DEFAULT 0.00,
+                                                      PRIMARY KEY (operator_id, stripe_no),
+                                                      CONSTRAINT fk_stripe_wallet FOREIGN KEY (operator_id) REFERENCES balance_wallets(operator_id)
+);
+
+-- Saldo total por operador: sin asignar + franjas
+CREATE OR REPLACE VIEW balance_wallets_total AS
+SELECT w.operator_id,
+       w.operator_name,
+       w.currency,
+       w.current_balance + COALESCE(SUM(s.balance), 0) AS total_balance
+FROM balance_wallets w
+         LEFT JOIN balance_wallet_stripes s ON s.operator_id = w.operator_id
+GROUP BY w.operator_id, w.operator_name, w.currency, w.current_balance;
+
+-- Journal del modo ledger del consumer: débitos decididos en memoria, aplicados a balance_wallets en cada checkpoint
+CREATE TABLE IF NOT EXISTS wallet_journal (
+                                              journal_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                              operator_id INT NOT NULL,
+                                              recharge_id BINARY(16) NOT NULL,
+                                              amount DECIMAL(15,2) NOT NULL,
+                                              applied TINYINT(1) NOT NULL DEFAULT 0,
+                                              created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+                                              UNIQUE KEY uk_journal_recharge (recharge_id),
+                                              KEY idx_journal_pending (operator_id, applied, journal_id),
+                                              CONSTRAINT fk_journal_wallet FOREIGN KEY (operator_id) REFERENCES balance_wallets(operator_id)
+);
+
 -- Tabla de auditoría: Ahora el campo FK se llama igual que la PK de la tabla padre
 CREATE TABLE IF NOT EXISTS process_audits (
                                               audit_id INT AUTO_INCREMENT PRIMARY KEY,
-                                              recharge_id VARCHAR(36), -- Se llama exactamente igual que en recharge_requests
+                                              recharge_id BINARY(16), -- Se llama exactamente igual que en recharge_requests
                                               completion_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                                               error_details TEXT,
                                               CONSTRAINT fk_recharge FOREIGN KEY (recharge_id) REFERENCES recharge_requests(recharge_id)
 );
 
 
+-- Claves de idempotencia del sync API: una fila por Idempotency-Key recibida
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+                                                idempotency_key VARCHAR(64) PRIMARY KEY,
+                                                recharge_id BINARY(16) NOT NULL,
+                                                created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+                                                KEY idx_idempotency_created (created_at)
+);
+
+-- Historial de solicitudes terminadas (archivador del producer); particiones mensuales pYYYYMM
+CREATE TABLE IF NOT EXISTS recharge_requests_history (
+                                                         recharge_id BINARY(16) NOT NULL,
+                                                         phone_number VARCHAR(15) NOT NULL,
+                                                         amount DECIMAL(10,2) NOT NULL,
+                                                         carrier VARCHAR(20),
+                                                         status VARCHAR(20) NOT NULL,
+                                                         created_at DATETIME(6) NOT NULL,
+                                                         updated_at DATETIME(6),
+                                                         trace_parent VARCHAR(55) NULL,
+                                                         archived_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+                                                         PRIMARY KEY (recharge_id, created_at)
+)
+PARTITION BY RANGE COLUMNS (created_at) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
+CREATE TABLE IF NOT EXISTS process_audits_history (
+                                                      audit_id INT NOT NULL,
+                                                      recharge_id BINARY(16),
+                                                      completion_date DATETIME NOT NULL,
+                                                      error_details TEXT,
+                                                      archived_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+                                                      PRIMARY KEY (audit_id, completion_date),
+                                                      KEY idx_audit_history_recharge (recharge_id)
+)
+PARTITION BY RANGE COLUMNS (completion_date) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
+
+-- Posición del binlog ya publicada por el producer en modo BINLOG
+CREATE TABLE IF NOT EXISTS dispatcher_binlog_checkpoints (
+                                                             checkpoint_name VARCHAR(64) PRIMARY KEY,
+                                                             binlog_file VARCHAR(255) NOT NULL,
+                                                             binlog_position BIGINT NOT NULL,
+                                                             updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
+
 
 # docker exec -it mariadb10432 mysql -u root -p123456789 phone_recharge_db -e "SELECT * FROM balance_wallets;"
 # docker exec -it mariadb10432 mysql -u root -p123456789 phone_recharge_db -e "SELECT * FROM process_audits;"
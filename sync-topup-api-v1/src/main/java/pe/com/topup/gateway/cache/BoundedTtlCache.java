@@ -0,0 +1,110 @@
+package pe.com.topup.gateway.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free, size-bounded in-process cache with a fixed time-to-live.
+ * Because every entry gets the same TTL, insertion order is also expiry order,
+ * so a single FIFO queue drives both size-based and time-based eviction.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<K, V>> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * @param maxSize Maximum number of entries kept (including superseded ones awaiting eviction).
+     * @param ttl     Time-to-live of every entry.
+     */
+    public BoundedTtlCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached value, or null if absent or expired.
+     *
+     * @param key The key.
+     * @return The value or null.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores a value, replacing any previous one and restarting its TTL.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        long now = System.nanoTime();
+        Entry<K, V> entry = new Entry<>(key, value, now + ttlNanos);
+        entries.put(key, entry);
+        order.add(entry);
+        queued.incrementAndGet();
+        evict(now);
+    }
+
+    /**
+     * Removes the entry for the given key, if present.
+     *
+     * @param key The key.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * @return The number of live entries (expired entries not yet evicted are included).
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Entry<K, V> head;
+        while ((head = order.peek()) != null
+                && (queued.get() > maxSize || head.expiresAt - now <= 0)) {
+            Entry<K, V> oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            // Only removes the mapping if it was not superseded by a later put
+            entries.remove(oldest.key, oldest);
+        }
+    }
+
+    /**
+     * Cache entry compared by identity, so a superseded entry never evicts its replacement.
+     */
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
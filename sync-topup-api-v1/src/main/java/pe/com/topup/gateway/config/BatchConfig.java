@@ -0,0 +1,28 @@
+package pe.com.topup.gateway.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Configuration for batch topup ingestion.
+ * Mapped from the "topup.batch" prefix.
+ */
+@ConfigMapping(prefix = "topup.batch")
+public interface BatchConfig {
+
+    /**
+     * Number of rows written per multi-row INSERT (and per transaction).
+     * Validated at startup: 0 would fail every batch call.
+     */
+    @Positive
+    @WithDefault("100")
+    int chunkSize();
+
+    /**
+     * Maximum number of items accepted in a single batch call.
+     */
+    @Positive
+    @WithDefault("1000")
+    int maxItems();
+}
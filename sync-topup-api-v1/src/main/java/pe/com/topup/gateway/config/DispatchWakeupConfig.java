@@ -0,0 +1,26 @@
+package pe.com.topup.gateway.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the "new insert" signal sent to the producer's dispatcher.
+ * Mapped from the "topup.dispatch-wakeup" prefix.
+ */
+@ConfigMapping(prefix = "topup.dispatch-wakeup")
+public interface DispatchWakeupConfig {
+
+    /**
+     * Whether successful inserts wake the dispatcher up instead of waiting for its next cycle.
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Minimum time between two signals; inserts in between are covered by the previous one.
+     */
+    @WithDefault("20ms")
+    Duration minInterval();
+}
@@ -0,0 +1,32 @@
+package pe.com.topup.gateway.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configuration for group-commit write coalescing of single topup requests.
+ * Mapped from the "topup.group-commit" prefix.
+ */
+@ConfigMapping(prefix = "topup.group-commit")
+public interface GroupCommitConfig {
+
+    /**
+     * Whether concurrent single requests are merged into shared transactions.
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * How long the first queued request waits for others before the batch is flushed.
+     */
+    @WithDefault("2ms")
+    Duration window();
+
+    /**
+     * Number of queued requests that triggers an immediate flush.
+     */
+    @WithDefault("64")
+    int maxBatchSize();
+}
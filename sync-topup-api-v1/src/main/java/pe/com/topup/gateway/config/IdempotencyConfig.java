@@ -0,0 +1,46 @@
+package pe.com.topup.gateway.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+import jakarta.validation.constraints.Positive;
+
+import java.time.Duration;
+
+/**
+ * Configuration for Idempotency-Key handling.
+ * Mapped from the "topup.idempotency" prefix.
+ */
+@ConfigMapping(prefix = "topup.idempotency")
+public interface IdempotencyConfig {
+
+    /**
+     * Maximum number of keys kept in the in-process dedupe cache.
+     */
+    @WithDefault("100000")
+    int cacheMaxSize();
+
+    /**
+     * How long a key is answered from the in-process cache before falling back to the table.
+     */
+    @WithDefault("15m")
+    Duration cacheTtl();
+
+    /**
+     * How long a key is kept in the table. A retry after this is treated as a new request.
+     */
+    @WithDefault("24h")
+    Duration retention();
+
+    /**
+     * How often expired keys are purged from the table.
+     */
+    @WithDefault("5m")
+    Duration purgeInterval();
+
+    /**
+     * Keys deleted per DELETE statement while purging.
+     */
+    @Positive
+    @WithDefault("1000")
+    int purgeBatchSize();
+}
@@ -0,0 +1,78 @@
+package pe.com.topup.gateway.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configuration for per-carrier and per-phone admission control of topup requests.
+ * Mapped from the "topup.rate-limit" prefix.
+ */
+@ConfigMapping(prefix = "topup.rate-limit")
+public interface RateLimitConfig {
+
+    /**
+     * Whether requests over the limits are rejected with 429 Too Many Requests.
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * Token bucket applied to each carrier independently.
+     */
+    CarrierLimit carrier();
+
+    /**
+     * Token bucket applied to each phone number independently.
+     */
+    PhoneLimit phone();
+
+    /**
+     * Limits per carrier.
+     */
+    interface CarrierLimit {
+
+        /**
+         * Sustained number of requests per second refilled into each carrier's bucket.
+         */
+        @WithDefault("500")
+        double ratePerSecond();
+
+        /**
+         * Maximum number of requests accepted back to back for one carrier.
+         */
+        @WithDefault("1000")
+        int burst();
+    }
+
+    /**
+     * Limits per phone number.
+     */
+    interface PhoneLimit {
+
+        /**
+         * Sustained number of requests per second refilled into each phone's bucket.
+         */
+        @WithDefault("0.2")
+        double ratePerSecond();
+
+        /**
+         * Maximum number of requests accepted back to back for one phone number.
+         */
+        @WithDefault("3")
+        int burst();
+
+        /**
+         * Maximum number of phone numbers tracked at the same time.
+         */
+        @WithDefault("100000")
+        int maxKeys();
+
+        /**
+         * How often buckets that have refilled completely are evicted.
+         */
+        @WithDefault("30s")
+        Duration evictionInterval();
+    }
+}
@@ -0,0 +1,38 @@
+package pe.com.topup.gateway.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configuration for topup status lookups and push completion.
+ * Mapped from the "topup.status" prefix.
+ */
+@ConfigMapping(prefix = "topup.status")
+public interface StatusConfig {
+
+    /**
+     * Maximum number of statuses kept in each in-process cache.
+     */
+    @WithDefault("50000")
+    int cacheMaxSize();
+
+    /**
+     * How long a final status (COMPLETED/FAILED) is served from memory.
+     */
+    @WithDefault("10m")
+    Duration terminalTtl();
+
+    /**
+     * How long an in-flight status (PENDING, SENT_TO_KAFKA, ...) is served from memory.
+     */
+    @WithDefault("1s")
+    Duration inFlightTtl();
+
+    /**
+     * How long a status event stream is held open waiting for the final status.
+     */
+    @WithDefault("30s")
+    Duration eventsTimeout();
+}
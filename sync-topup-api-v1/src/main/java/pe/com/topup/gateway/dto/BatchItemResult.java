@@ -0,0 +1,67 @@
+package pe.com.topup.gateway.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the outcome of a single item in a batch.
+ */
+public class BatchItemResult {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String REJECTED = "REJECTED";
+
+    private int index;
+    private String status;
+    private String rechargeId;
+    private List<String> errors;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(int index, String status, String rechargeId, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.rechargeId = rechargeId;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult accepted(int index, String rechargeId) {
+        return new BatchItemResult(index, ACCEPTED, rechargeId, null);
+    }
+
+    public static BatchItemResult rejected(int index, List<String> errors) {
+        return new BatchItemResult(index, REJECTED, null, errors);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getRechargeId() {
+        return rechargeId;
+    }
+
+    public void setRechargeId(String rechargeId) {
+        this.rechargeId = rechargeId;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
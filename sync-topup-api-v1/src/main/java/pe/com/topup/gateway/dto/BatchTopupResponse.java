@@ -0,0 +1,52 @@
+package pe.com.topup.gateway.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for Batch Topup Responses.
+ * Holds one result per submitted item, in submission order.
+ */
+public class BatchTopupResponse {
+
+    private int accepted;
+    private int rejected;
+    private List<BatchItemResult> results;
+
+    public BatchTopupResponse() {
+    }
+
+    public BatchTopupResponse(List<BatchItemResult> results) {
+        this.results = results;
+        for (BatchItemResult result : results) {
+            if (BatchItemResult.ACCEPTED.equals(result.getStatus())) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
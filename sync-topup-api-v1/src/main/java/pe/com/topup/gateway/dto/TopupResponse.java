@@ -0,0 +1,42 @@
+package pe.com.topup.gateway.dto;
+
+/**
+ * Data Transfer Object for Topup Responses.
+ */
+public class TopupResponse {
+
+    private String rechargeId;
+    private boolean replayed;
+
+    public TopupResponse() {
+    }
+
+    public TopupResponse(String rechargeId, boolean replayed) {
+        this.rechargeId = rechargeId;
+        this.replayed = replayed;
+    }
+
+    public static TopupResponse created(String rechargeId) {
+        return new TopupResponse(rechargeId, false);
+    }
+
+    public static TopupResponse replayed(String rechargeId) {
+        return new TopupResponse(rechargeId, true);
+    }
+
+    public String getRechargeId() {
+        return rechargeId;
+    }
+
+    public void setRechargeId(String rechargeId) {
+        this.rechargeId = rechargeId;
+    }
+
+    public boolean isReplayed() {
+        return replayed;
+    }
+
+    public void setReplayed(boolean replayed) {
+        this.replayed = replayed;
+    }
+}
@@ -0,0 +1,34 @@
+package pe.com.topup.gateway.dto;
+
+/**
+ * Data Transfer Object for Topup Status lookups and events.
+ */
+public class TopupStatusResponse {
+
+    private String rechargeId;
+    private String status;
+
+    public TopupStatusResponse() {
+    }
+
+    public TopupStatusResponse(String rechargeId, String status) {
+        this.rechargeId = rechargeId;
+        this.status = status;
+    }
+
+    public String getRechargeId() {
+        return rechargeId;
+    }
+
+    public void setRechargeId(String rechargeId) {
+        this.rechargeId = rechargeId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,18 @@
+package pe.com.topup.gateway.exception;
+
+/**
+ * Thrown when a topup request exceeds the per-carrier or per-phone admission limits.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Too many topup requests, retry after " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
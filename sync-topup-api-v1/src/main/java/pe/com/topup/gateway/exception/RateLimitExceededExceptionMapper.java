@@ -0,0 +1,30 @@
+package pe.com.topup.gateway.exception;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import pe.com.topup.gateway.dto.ErrorResponse;
+
+import java.util.List;
+
+/**
+ * Exception Mapper for RateLimitExceededException.
+ * Returns 429 Too Many Requests with a Retry-After header in seconds.
+ */
+@Provider
+public class RateLimitExceededExceptionMapper implements ExceptionMapper<RateLimitExceededException> {
+
+    @Override
+    public Response toResponse(RateLimitExceededException exception) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                "RATE_LIMITED",
+                "Too many topup requests for this carrier or phone number",
+                List.of(exception.getMessage()));
+
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, exception.getRetryAfterSeconds())
+                .entity(errorResponse)
+                .build();
+    }
+}
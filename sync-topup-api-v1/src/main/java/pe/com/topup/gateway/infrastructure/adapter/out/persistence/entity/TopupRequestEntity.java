@@ -6,10 +6,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Entity representing a Topup Request in the database.
@@ -20,8 +23,9 @@ import java.time.LocalDateTime;
 public class TopupRequestEntity {
 
     @Id
-    @Column(name = "recharge_id", length = 36)
-    public String rechargeId;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "recharge_id", length = 16)
+    public UUID rechargeId;
 
     @Column(name = "phone_number", length = 15, nullable = false)
     public String phoneNumber;
@@ -35,6 +39,12 @@ public class TopupRequestEntity {
     @Column(name = "status", length = 20)
     public String status;
 
+    /**
+     * W3C traceparent of the request that created the topup; the producer continues that trace.
+     */
+    @Column(name = "trace_parent", length = 55)
+    public String traceParent;
+
     @Column(name = "created_at", insertable = false, updatable = false)
     @CreationTimestamp
     public LocalDateTime createdAt;
@@ -52,13 +62,13 @@ public class TopupRequestEntity {
     /**
      * Constructor for creating a new TopupRequestEntity.
      * 
-     * @param rechargeId  The UUID of the recharge.
+     * @param rechargeId  The time-ordered ID of the recharge.
      * @param phoneNumber The phone number.
      * @param amount      The amount.
      * @param carrier     The carrier name.
      * @param status      The initial status.
      */
-    public TopupRequestEntity(String rechargeId, String phoneNumber, BigDecimal amount, String carrier, String status) {
+    public TopupRequestEntity(UUID rechargeId, String phoneNumber, BigDecimal amount, String carrier, String status) {
         this.rechargeId = rechargeId;
         this.phoneNumber = phoneNumber;
         this.amount = amount;
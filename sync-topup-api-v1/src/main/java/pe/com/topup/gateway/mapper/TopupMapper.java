@@ -1,10 +1,10 @@
 package pe.com.topup.gateway.mapper;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import pe.com.topup.gateway.dto.TopupRequest;
 import pe.com.topup.gateway.infrastructure.adapter.out.persistence.entity.TopupRequestEntity;
-
-import java.util.UUID;
+import pe.com.topup.gateway.tracing.TraceParents;
 
 /**
  * Mapper for converting between DTOs and Entities.
@@ -13,16 +13,24 @@ import java.util.UUID;
 @ApplicationScoped
 public class TopupMapper {
 
+    private final RechargeIdGenerator idGenerator;
+
+    @Inject
+    public TopupMapper(RechargeIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
     public TopupRequestEntity toEntity(TopupRequest request) {
         if (request == null) {
             return null;
         }
-        String rechargeId = UUID.randomUUID().toString();
-        return new TopupRequestEntity(
-                rechargeId,
+        TopupRequestEntity entity = new TopupRequestEntity(
+                idGenerator.next(),
                 request.getPhoneNumber(),
                 request.getAmount(),
                 request.getCarrier() != null ? request.getCarrier().name() : null,
                 "PENDING");
+        entity.traceParent = TraceParents.current();
+        return entity;
     }
 }
@@ -0,0 +1,60 @@
+package pe.com.topup.gateway.notification;
+
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+import pe.com.topup.gateway.config.DispatchWakeupConfig;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells the producer's dispatcher that new PENDING rows were committed, so it
+ * starts a cycle right away instead of waiting for its backed-off interval.
+ * <p>
+ * Signals carry no data and are throttled: one signal covers every insert made
+ * within the configured interval. They are best-effort; a lost signal only
+ * means the row waits for the dispatcher's next scheduled cycle.
+ * </p>
+ */
+@ApplicationScoped
+public class DispatchWakeupPublisher {
+
+    private static final java.util.logging.Logger LOG = java.util.logging.Logger
+            .getLogger(DispatchWakeupPublisher.class.getName());
+
+    private final MutinyEmitter<String> emitter;
+    private final boolean enabled;
+    private final long minIntervalNanos;
+    private final AtomicLong lastSignal;
+
+    @Inject
+    public DispatchWakeupPublisher(
+            @Channel("dispatch-wakeup") @OnOverflow(OnOverflow.Strategy.DROP) MutinyEmitter<String> emitter,
+            DispatchWakeupConfig config) {
+        this.emitter = emitter;
+        this.enabled = config.enabled();
+        this.minIntervalNanos = config.minInterval().toNanos();
+        this.lastSignal = new AtomicLong(System.nanoTime() - minIntervalNanos);
+    }
+
+    /**
+     * Signals that new rows were committed. Cheap enough to call after every insert.
+     */
+    public void signal() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastSignal.get();
+        if (now - last < minIntervalNanos || !lastSignal.compareAndSet(last, now)) {
+            return;
+        }
+        try {
+            emitter.sendAndForget("wakeup");
+        } catch (RuntimeException e) {
+            LOG.fine("No se pudo enviar la senal al dispatcher: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pe.com.topup.gateway.notification;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import pe.com.topup.gateway.cache.BoundedTtlCache;
+import pe.com.topup.gateway.config.StatusConfig;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process registry of recharge statuses.
+ * Keeps the read-through status caches and completes the callers waiting for
+ * a final status as soon as the consumer's notification arrives.
+ */
+@ApplicationScoped
+public class TopupStatusHub {
+
+    private final BoundedTtlCache<String, String> terminalStatuses;
+    private final BoundedTtlCache<String, String> inFlightStatuses;
+    private final Map<String, Set<UniEmitter<? super String>>> waiters = new ConcurrentHashMap<>();
+
+    @Inject
+    public TopupStatusHub(StatusConfig config) {
+        this.terminalStatuses = new BoundedTtlCache<>(config.cacheMaxSize(), config.terminalTtl());
+        this.inFlightStatuses = new BoundedTtlCache<>(config.cacheMaxSize(), config.inFlightTtl());
+    }
+
+    /**
+     * @param status A recharge status.
+     * @return True if the status is final and will not change anymore.
+     */
+    public static boolean isTerminal(String status) {
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+
+    /**
+     * Returns the cached status of a recharge.
+     *
+     * @param rechargeId The recharge ID.
+     * @return The cached status, or null on a cache miss.
+     */
+    public String cachedStatus(String rechargeId) {
+        String status = terminalStatuses.get(rechargeId);
+        return status != null ? status : inFlightStatuses.get(rechargeId);
+    }
+
+    /**
+     * Records a status read from the database or received from the consumer.
+     * Final statuses also complete every caller waiting on the recharge.
+     *
+     * @param rechargeId The recharge ID.
+     * @param status     The status.
+     */
+    public void update(String rechargeId, String status) {
+        if (!isTerminal(status)) {
+            inFlightStatuses.put(rechargeId, status);
+            return;
+        }
+        terminalStatuses.put(rechargeId, status);
+        inFlightStatuses.invalidate(rechargeId);
+        Set<UniEmitter<? super String>> pending = waiters.remove(rechargeId);
+        if (pending != null) {
+            pending.forEach(emitter -> emitter.complete(status));
+        }
+    }
+
+    /**
+     * Waits for the final status of a recharge. The returned Uni never times out
+     * by itself; callers bound it.
+     *
+     * @param rechargeId The recharge ID.
+     * @return A Uni resolving to COMPLETED or FAILED.
+     */
+    public Uni<String> awaitTerminal(String rechargeId) {
+        return Uni.createFrom().emitter(emitter -> {
+            Set<UniEmitter<? super String>> set = waiters.computeIfAbsent(rechargeId,
+                    id -> ConcurrentHashMap.newKeySet());
+            set.add(emitter);
+            emitter.onTermination(() -> waiters.computeIfPresent(rechargeId, (id, current) -> {
+                current.remove(emitter);
+                return current.isEmpty() ? null : current;
+            }));
+            // The notification may have arrived between the caller's lookup and the registration
+            String status = terminalStatuses.get(rechargeId);
+            if (status != null) {
+                emitter.complete(status);
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package pe.com.topup.gateway.notification;
+
+import io.smallrye.reactive.messaging.kafka.Record;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+/**
+ * Listens to the status notifications published by the consumer after each
+ * recharge reaches its final state (key = rechargeId, value = status).
+ */
+@ApplicationScoped
+public class TopupStatusListener {
+
+    private final TopupStatusHub statusHub;
+
+    @Inject
+    public TopupStatusListener(TopupStatusHub statusHub) {
+        this.statusHub = statusHub;
+    }
+
+    @Incoming("topup-status")
+    public void onStatus(Record<String, String> record) {
+        if (record.key() != null && record.value() != null) {
+            statusHub.update(record.key(), record.value());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pe.com.topup.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm (GCRA).
+ * The whole state is a single "theoretical arrival time": each accepted request
+ * pushes it forward by one emission interval, and a request is rejected when that
+ * would put it further than the burst allowance ahead of the clock.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long emissionIntervalNanos, int burst, long nowNanos) {
+        this.emissionIntervalNanos = emissionIntervalNanos;
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @param nowNanos Current {@link System#nanoTime()}.
+     * @return 0 if the token was taken, otherwise the nanoseconds until one is available.
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long excess = next - nowNanos - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire(long)} when the request was
+     * rejected by another dimension afterwards.
+     */
+    void release() {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos);
+    }
+
+    /**
+     * A bucket is idle once it has refilled completely; dropping it is then
+     * indistinguishable from keeping it.
+     *
+     * @param nowNanos Current {@link System#nanoTime()}.
+     * @return Whether the bucket is full.
+     */
+    boolean isIdle(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,141 @@
+package pe.com.topup.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import pe.com.topup.gateway.config.RateLimitConfig;
+import pe.com.topup.gateway.dto.TopupRequest;
+import pe.com.topup.gateway.model.Carrier;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for topup requests, applied before anything touches MySQL or Kafka.
+ * Every request takes one token from the bucket of its phone number and one from
+ * the bucket of its carrier. Carrier buckets are fixed (one per enum constant);
+ * phone buckets live in a bounded map and are evicted once they have refilled.
+ */
+@ApplicationScoped
+public class TopupAdmissionController {
+
+    private static final java.util.logging.Logger LOG = java.util.logging.Logger
+            .getLogger(TopupAdmissionController.class.getName());
+
+    private final boolean enabled;
+    private final long phoneIntervalNanos;
+    private final int phoneBurst;
+    private final int maxPhoneKeys;
+    private final TokenBucket[] carrierBuckets;
+    private final Map<String, TokenBucket> phoneBuckets = new ConcurrentHashMap<>();
+    private final Counter carrierRejections;
+    private final Counter phoneRejections;
+
+    @Inject
+    public TopupAdmissionController(RateLimitConfig config, Vertx vertx, MeterRegistry registry) {
+        this.enabled = config.enabled();
+        this.phoneIntervalNanos = intervalNanos(config.phone().ratePerSecond());
+        this.phoneBurst = Math.max(1, config.phone().burst());
+        this.maxPhoneKeys = config.phone().maxKeys();
+
+        long now = System.nanoTime();
+        long carrierIntervalNanos = intervalNanos(config.carrier().ratePerSecond());
+        int carrierBurst = Math.max(1, config.carrier().burst());
+        this.carrierBuckets = new TokenBucket[Carrier.values().length];
+        for (int i = 0; i < carrierBuckets.length; i++) {
+            carrierBuckets[i] = new TokenBucket(carrierIntervalNanos, carrierBurst, now);
+        }
+
+        this.carrierRejections = rejections(registry, "carrier");
+        this.phoneRejections = rejections(registry, "phone");
+
+        if (enabled) {
+            vertx.setPeriodic(Math.max(1, config.phone().evictionInterval().toMillis()), id -> evictIdle());
+        }
+    }
+
+    /**
+     * Takes the tokens needed to admit a request.
+     *
+     * @param request A validated topup request.
+     * @return 0 if the request is admitted, otherwise the nanoseconds the client should wait.
+     */
+    public long tryAdmit(TopupRequest request) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+
+        TokenBucket phoneBucket = phoneBucket(request.getPhoneNumber(), now);
+        if (phoneBucket != null) {
+            long wait = phoneBucket.tryAcquire(now);
+            if (wait > 0) {
+                phoneRejections.increment();
+                return wait;
+            }
+        }
+
+        long wait = carrierBuckets[request.getCarrier().ordinal()].tryAcquire(now);
+        if (wait > 0) {
+            if (phoneBucket != null) {
+                phoneBucket.release();
+            }
+            carrierRejections.increment();
+            return wait;
+        }
+        return 0;
+    }
+
+    /**
+     * Converts a wait returned by {@link #tryAdmit(TopupRequest)} to a Retry-After value.
+     *
+     * @param waitNanos Nanoseconds until the request would be admitted.
+     * @return Whole seconds, rounded up and at least 1.
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the bucket of a phone number, creating it if needed. When the map is
+     * full of active numbers the request is not tracked per phone (the carrier
+     * bucket still applies) rather than growing without bound.
+     */
+    private TokenBucket phoneBucket(String phoneNumber, long now) {
+        TokenBucket bucket = phoneBuckets.get(phoneNumber);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (phoneBuckets.size() >= maxPhoneKeys) {
+            evictIdle();
+            if (phoneBuckets.size() >= maxPhoneKeys) {
+                return null;
+            }
+        }
+        return phoneBuckets.computeIfAbsent(phoneNumber, k -> new TokenBucket(phoneIntervalNanos, phoneBurst, now));
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        int before = phoneBuckets.size();
+        phoneBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+        int evicted = before - phoneBuckets.size();
+        if (evicted > 0) {
+            LOG.fine("Rate limit: " + evicted + " numeros inactivos liberados, activos=" + phoneBuckets.size());
+        }
+    }
+
+    private static long intervalNanos(double ratePerSecond) {
+        return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+    }
+
+    private static Counter rejections(MeterRegistry registry, String dimension) {
+        return Counter.builder("topup.admission.rejected")
+                .description("Topup requests rejected with 429 by admission control")
+                .tag("dimension", dimension)
+                .register(registry);
+    }
+}
@@ -0,0 +1,64 @@
+package pe.com.topup.gateway.repository;
+
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import pe.com.topup.gateway.config.IdempotencyConfig;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Periodically deletes Idempotency-Keys older than "topup.idempotency.retention",
+ * in batches, so the idempotency_keys table does not grow without bound. Every
+ * instance runs it; concurrent purges simply delete different rows.
+ */
+@ApplicationScoped
+public class IdempotencyKeyPurger {
+
+    private static final java.util.logging.Logger LOG = java.util.logging.Logger
+            .getLogger(IdempotencyKeyPurger.class.getName());
+
+    private final IdempotencyKeyRepository repository;
+    private final IdempotencyConfig config;
+    private final Vertx vertx;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Inject
+    public IdempotencyKeyPurger(IdempotencyKeyRepository repository, IdempotencyConfig config, Vertx vertx) {
+        this.repository = repository;
+        this.config = config;
+        this.vertx = vertx;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        vertx.setPeriodic(Math.max(1, config.purgeInterval().toMillis()), id -> purge());
+    }
+
+    private void purge() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        purgeBatches(0).subscribe().with(
+                purged -> {
+                    running.set(false);
+                    if (purged > 0) {
+                        LOG.info("Idempotency-Keys vencidas eliminadas: " + purged);
+                    }
+                },
+                failure -> {
+                    running.set(false);
+                    LOG.warning("No se pudieron eliminar Idempotency-Keys vencidas: " + failure.getMessage());
+                });
+    }
+
+    private Uni<Long> purgeBatches(long purged) {
+        int batchSize = config.purgeBatchSize();
+        return repository.purgeExpired(config.retention(), batchSize)
+                .chain(deleted -> deleted < batchSize
+                        ? Uni.createFrom().item(purged + deleted)
+                        : purgeBatches(purged + deleted));
+    }
+}
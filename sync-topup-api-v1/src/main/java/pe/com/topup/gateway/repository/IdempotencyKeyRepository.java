@@ -0,0 +1,79 @@
+package pe.com.topup.gateway.repository;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowIterator;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.SqlResult;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import pe.com.topup.gateway.mapper.RechargeIdGenerator;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Repository for the "idempotency_keys" table.
+ * The key is the primary key, so the table is the source of truth when the
+ * in-process cache misses (restart, eviction or another instance).
+ */
+@ApplicationScoped
+public class IdempotencyKeyRepository {
+
+    private final Pool pool;
+
+    @Inject
+    public IdempotencyKeyRepository(Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Claims a key for the given recharge inside the caller's transaction. The
+     * claim only becomes visible when that transaction commits, together with the
+     * recharge row.
+     *
+     * @param connection The connection of the transaction that stores the recharge.
+     * @param key        The Idempotency-Key header value.
+     * @param rechargeId The recharge that will own the key.
+     * @return A Uni resolving to true if the key was claimed, false if it already existed.
+     */
+    public Uni<Boolean> claim(SqlConnection connection, String key, UUID rechargeId) {
+        return connection.preparedQuery("INSERT IGNORE INTO idempotency_keys (idempotency_key, recharge_id) VALUES (?, ?)")
+                .execute(Tuple.of(key, Buffer.buffer(RechargeIdGenerator.toBytes(rechargeId))))
+                .map(rows -> rows.rowCount() == 1);
+    }
+
+    /**
+     * Looks up the recharge that owns a key.
+     *
+     * @param key The Idempotency-Key header value.
+     * @return A Uni resolving to the rechargeId, or null if the key is unknown.
+     */
+    public Uni<UUID> findRechargeId(String key) {
+        return pool.preparedQuery("SELECT recharge_id FROM idempotency_keys WHERE idempotency_key = ?")
+                .execute(Tuple.of(key))
+                .map(rows -> {
+                    RowIterator<Row> iterator = rows.iterator();
+                    return iterator.hasNext()
+                            ? RechargeIdGenerator.fromBytes(iterator.next().getBuffer("recharge_id").getBytes())
+                            : null;
+                });
+    }
+
+    /**
+     * Deletes keys older than the retention period, oldest first.
+     *
+     * @param retention How long a key is kept after it was claimed.
+     * @param limit     Maximum number of keys deleted by this call.
+     * @return A Uni resolving to the number of keys deleted.
+     */
+    public Uni<Integer> purgeExpired(Duration retention, int limit) {
+        return pool.preparedQuery("DELETE FROM idempotency_keys WHERE created_at < DATE_SUB(NOW(6), INTERVAL ? SECOND)"
+                        + " ORDER BY created_at LIMIT ?")
+                .execute(Tuple.of(retention.toSeconds(), limit))
+                .map(SqlResult::rowCount);
+    }
+}
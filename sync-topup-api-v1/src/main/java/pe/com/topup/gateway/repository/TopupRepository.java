@@ -1,13 +1,90 @@
 package pe.com.topup.gateway.repository;
 
 import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import pe.com.topup.gateway.infrastructure.adapter.out.persistence.entity.TopupRequestEntity;
+import pe.com.topup.gateway.mapper.RechargeIdGenerator;
+
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Repository for TopupRequestEntity.
  * Implements the Repository Pattern using Panache.
  */
 @ApplicationScoped
-public class TopupRepository implements PanacheRepositoryBase<TopupRequestEntity, String> {
+public class TopupRepository implements PanacheRepositoryBase<TopupRequestEntity, UUID> {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO recharge_requests (recharge_id, phone_number, amount, carrier, status, trace_parent) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?)";
+
+    private final Pool pool;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Inject
+    public TopupRepository(Pool pool, IdempotencyKeyRepository idempotencyKeyRepository) {
+        this.pool = pool;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+    }
+
+    /**
+     * Inserts all entities with a single multi-row INSERT inside one transaction.
+     * Bypasses the Hibernate session: created_at/updated_at are filled by the
+     * column defaults, exactly as with {@link #persist(Object)}.
+     *
+     * @param entities The entities to insert. Must not be empty.
+     * @return A Uni that completes when the transaction has committed.
+     */
+    public Uni<Void> persistBatch(List<TopupRequestEntity> entities) {
+        return pool.withTransaction(connection -> insert(connection, entities))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Claims an Idempotency-Key and inserts its recharge in the same transaction,
+     * so a key is only ever visible together with a stored recharge.
+     * <p>
+     * A concurrent request with the same key blocks on the key's primary key
+     * until this transaction commits (its claim then finds the key) or rolls
+     * back (its claim then succeeds).
+     * </p>
+     *
+     * @param entity The entity to insert.
+     * @param key    The Idempotency-Key header value.
+     * @return A Uni resolving to true if the recharge was stored, false if the key
+     *         already belonged to another recharge (nothing is written).
+     */
+    public Uni<Boolean> persistWithIdempotencyKey(TopupRequestEntity entity, String key) {
+        return pool.withTransaction(connection -> idempotencyKeyRepository.claim(connection, key, entity.rechargeId)
+                .chain(claimed -> claimed
+                        ? insert(connection, List.of(entity)).replaceWith(true)
+                        : Uni.createFrom().item(false)));
+    }
+
+    private static Uni<Void> insert(SqlConnection connection, List<TopupRequestEntity> entities) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + entities.size() * (ROW_PLACEHOLDER.length() + 2))
+                .append(INSERT_PREFIX);
+        Tuple params = Tuple.tuple();
+        for (int i = 0; i < entities.size(); i++) {
+            TopupRequestEntity entity = entities.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+            params.addBuffer(Buffer.buffer(RechargeIdGenerator.toBytes(entity.rechargeId)))
+                    .addString(entity.phoneNumber)
+                    .addBigDecimal(entity.amount)
+                    .addString(entity.carrier)
+                    .addString(entity.status)
+                    .addString(entity.traceParent);
+        }
+        return connection.preparedQuery(sql.toString()).execute(params).replaceWithVoid();
+    }
 }
@@ -0,0 +1,108 @@
+package pe.com.topup.gateway.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import pe.com.topup.gateway.config.GroupCommitConfig;
+import pe.com.topup.gateway.infrastructure.adapter.out.persistence.entity.TopupRequestEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group-commit coalescer for single topup inserts.
+ * Entities submitted within the configured window (or until the maximum batch
+ * size is reached) are written together with one multi-row INSERT in one
+ * transaction; every caller completes when that shared commit finishes.
+ */
+@ApplicationScoped
+public class TopupWriteCoalescer {
+
+    private static final java.util.logging.Logger LOG = java.util.logging.Logger
+            .getLogger(TopupWriteCoalescer.class.getName());
+
+    private final TopupRepository repository;
+    private final Vertx vertx;
+    private final int maxBatchSize;
+    private final long windowMillis;
+    private final DistributionSummary batchSizes;
+
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    @Inject
+    public TopupWriteCoalescer(TopupRepository repository, Vertx vertx, GroupCommitConfig config,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.vertx = vertx;
+        this.maxBatchSize = config.maxBatchSize();
+        this.windowMillis = Math.max(1, config.window().toMillis());
+        this.batchSizes = DistributionSummary.builder("topup.group.commit.batch.size")
+                .description("Number of topup requests written per group commit")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Queues an entity for the next group commit.
+     *
+     * @param entity The entity to insert.
+     * @return A Uni that completes when the transaction containing the entity has committed.
+     */
+    public Uni<Void> submit(TopupRequestEntity entity) {
+        return Uni.createFrom().emitter(emitter -> {
+            queue.add(new PendingWrite(entity, emitter));
+            if (queued.incrementAndGet() >= maxBatchSize) {
+                flush();
+            } else {
+                scheduleFlush();
+            }
+        });
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            vertx.setTimer(windowMillis, id -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    private void flush() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        PendingWrite write;
+        while (batch.size() < maxBatchSize && (write = queue.poll()) != null) {
+            batch.add(write);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (queued.addAndGet(-batch.size()) > 0) {
+            scheduleFlush();
+        }
+        batchSizes.record(batch.size());
+
+        List<TopupRequestEntity> entities = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            entities.add(pending.entity());
+        }
+        repository.persistBatch(entities).subscribe().with(
+                ok -> batch.forEach(pending -> pending.emitter().complete(null)),
+                failure -> {
+                    LOG.severe("Error en group commit de " + batch.size() + " solicitudes: " + failure.getMessage());
+                    batch.forEach(pending -> pending.emitter().fail(failure));
+                });
+    }
+
+    private record PendingWrite(TopupRequestEntity entity, UniEmitter<? super Void> emitter) {
+    }
+}
@@ -1,16 +1,38 @@
 package pe.com.topup.gateway.resource;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import pe.com.topup.gateway.config.BatchConfig;
+import pe.com.topup.gateway.dto.ErrorResponse;
 import pe.com.topup.gateway.dto.TopupRequest;
+import pe.com.topup.gateway.dto.TopupResponse;
+import pe.com.topup.gateway.dto.TopupStatusResponse;
+import pe.com.topup.gateway.exception.RateLimitExceededException;
+import pe.com.topup.gateway.notification.TopupStatusHub;
+import pe.com.topup.gateway.ratelimit.TopupAdmissionController;
 import pe.com.topup.gateway.service.TopupService;
 import jakarta.inject.Inject;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST Resource for managing Topup operations.
@@ -18,23 +40,203 @@ import jakarta.inject.Inject;
 @Path("/v1/topups")
 public class TopupResource {
 
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final TopupService topupService;
+    private final BatchConfig batchConfig;
+    private final ObjectMapper objectMapper;
+    private final TopupAdmissionController admissionController;
+    private final MeterRegistry registry;
 
     @Inject
-    public TopupResource(TopupService topupService) {
+    public TopupResource(TopupService topupService, BatchConfig batchConfig, ObjectMapper objectMapper,
+            TopupAdmissionController admissionController, MeterRegistry registry) {
         this.topupService = topupService;
+        this.batchConfig = batchConfig;
+        this.objectMapper = objectMapper;
+        this.admissionController = admissionController;
+        this.registry = registry;
     }
 
     /**
      * Creates a new topup request.
-     * Delegates to TopupService.
+     * Delegates to TopupService. Retries carrying the same Idempotency-Key
+     * get the original rechargeId back instead of creating a new request.
+     * Requests over the per-carrier or per-phone limits are rejected with 429
+     * before reaching the service.
+     *
+     * @param idempotencyKey Optional client-generated key identifying the logical request.
+     * @param request        The topup request DTO.
+     * @return A Uni resolving to the Response.
+     */
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> createTopup(
+            @HeaderParam(IDEMPOTENCY_KEY_HEADER)
+            @Size(min = 1, max = 64, message = "Idempotency-Key must have between 1 and 64 characters")
+            String idempotencyKey,
+            @Valid TopupRequest request) {
+        return timed("create", () -> {
+            if (idempotencyKey == null) {
+                return admitAndRegister(request, null);
+            }
+            // A retry is answered before admission control: it stores nothing, so it costs no token
+            return topupService.findReplay(idempotencyKey)
+                    .chain(replay -> replay != null
+                            ? Uni.createFrom().item(accepted(replay))
+                            : admitAndRegister(request, idempotencyKey));
+        });
+    }
+
+    private Uni<Response> admitAndRegister(TopupRequest request, String idempotencyKey) {
+        long waitNanos = admissionController.tryAdmit(request);
+        if (waitNanos > 0) {
+            return Uni.createFrom().failure(
+                    new RateLimitExceededException(TopupAdmissionController.retryAfterSeconds(waitNanos)));
+        }
+        return topupService.registerTopup(request, idempotencyKey).map(TopupResource::accepted);
+    }
+
+    private static Response accepted(TopupResponse result) {
+        Response.ResponseBuilder response = Response.accepted(result);
+        if (result.isReplayed()) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.build();
+    }
+
+    /**
+     * Creates a batch of topup requests from a JSON array.
+     * Each item is validated independently; the response carries one result per item.
+     *
+     * @param requests The topup request DTOs.
+     * @return A Uni resolving to the Response.
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> createTopupBatch(List<TopupRequest> requests) {
+        return registerBatch(requests);
+    }
+
+    /**
+     * Creates a batch of topup requests from an NDJSON body (one JSON object per line).
+     * Malformed lines are reported as rejected items instead of failing the whole batch.
      *
-     * @param request The topup request DTO.
+     * @param body The NDJSON payload.
      * @return A Uni resolving to the Response.
      */
     @POST
-    public Uni<Response> createTopup(@Valid TopupRequest request) {
-        return topupService.registerTopup(request)
-                .map(v -> Response.accepted().build());
+    @Path("/batch")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> createTopupBatchNdjson(String body) {
+        List<TopupRequest> requests = new ArrayList<>();
+        if (body != null) {
+            for (String line : body.split("\\r?\\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    requests.add(objectMapper.readValue(line, TopupRequest.class));
+                } catch (JsonProcessingException e) {
+                    requests.add(null);
+                }
+            }
+        }
+        return registerBatch(requests);
+    }
+
+    /**
+     * Returns the current status of a topup request.
+     * Served from an in-process cache when possible, otherwise read from the database.
+     *
+     * @param rechargeId The recharge ID returned at creation.
+     * @return A Uni resolving to 200 with the status, or 404 if unknown.
+     */
+    @GET
+    @Path("/{rechargeId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getTopupStatus(@PathParam("rechargeId") String rechargeId) {
+        return timed("status", () -> topupService.findStatus(rechargeId)
+                .map(status -> status != null
+                        ? Response.ok(status).build()
+                        : Response.status(Response.Status.NOT_FOUND)
+                                .entity(new ErrorResponse("NOT_FOUND", "Topup not found", List.of(rechargeId)))
+                                .build()));
+    }
+
+    /**
+     * Streams the status of a topup request as Server-Sent Events.
+     * Emits the current status and, if it is not final yet, holds the connection
+     * until the consumer reports COMPLETED/FAILED or the configured timeout expires.
+     *
+     * @param rechargeId The recharge ID returned at creation.
+     * @return A Multi of status events.
+     */
+    @GET
+    @Path("/{rechargeId}/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<TopupStatusResponse> streamTopupStatus(@PathParam("rechargeId") String rechargeId) {
+        return topupService.findStatus(rechargeId)
+                .onItem().transformToMulti(current -> {
+                    if (current == null) {
+                        return Multi.createFrom().failure(new NotFoundException("Topup not found: " + rechargeId));
+                    }
+                    if (TopupStatusHub.isTerminal(current.getStatus())) {
+                        return Multi.createFrom().item(current);
+                    }
+                    return Multi.createBy().concatenating().streams(
+                            Multi.createFrom().item(current),
+                            topupService.awaitFinalStatus(rechargeId).toMulti());
+                });
+    }
+
+    private Uni<Response> registerBatch(List<TopupRequest> requests) {
+        return timed("batch", () -> {
+            if (requests == null || requests.isEmpty()) {
+                return Uni.createFrom().item(badRequest("EMPTY_BATCH", "Batch must contain at least one item"));
+            }
+            if (requests.size() > batchConfig.maxItems()) {
+                return Uni.createFrom().item(badRequest("BATCH_TOO_LARGE",
+                        "Batch cannot contain more than " + batchConfig.maxItems() + " items"));
+            }
+            return topupService.registerBatch(requests)
+                    .map(result -> Response.accepted(result).build());
+        });
+    }
+
+    /**
+     * Records the latency of an operation in "topup.api.requests", tagged with the
+     * operation and the HTTP status it ended with; the timer count gives the request rate.
+     */
+    private Uni<Response> timed(String operation, Supplier<Uni<Response>> call) {
+        return Uni.createFrom().deferred(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call.get().onItemOrFailure().invoke((response, failure) -> sample.stop(Timer
+                    .builder("topup.api.requests")
+                    .description("Latency of topup API operations")
+                    .tag("operation", operation)
+                    .tag("status", failure == null ? Integer.toString(response.getStatus()) : statusOf(failure))
+                    .publishPercentileHistogram()
+                    .register(registry)));
+        });
+    }
+
+    private static String statusOf(Throwable failure) {
+        if (failure instanceof RateLimitExceededException) {
+            return "429";
+        }
+        return "500";
+    }
+
+    private static Response badRequest(String code, String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(code, message, List.of()))
+                .build();
     }
 }
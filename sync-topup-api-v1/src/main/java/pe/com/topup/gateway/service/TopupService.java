@@ -1,7 +1,12 @@
 package pe.com.topup.gateway.service;
 
 import io.smallrye.mutiny.Uni;
+import pe.com.topup.gateway.dto.BatchTopupResponse;
 import pe.com.topup.gateway.dto.TopupRequest;
+import pe.com.topup.gateway.dto.TopupResponse;
+import pe.com.topup.gateway.dto.TopupStatusResponse;
+
+import java.util.List;
 
 /**
  * Service Interface for Topup operations.
@@ -11,9 +16,47 @@ public interface TopupService {
 
     /**
      * Processes and stores a new topup request.
+     * When an idempotency key is given and was already used, the original
+     * rechargeId is returned and nothing is stored.
      * 
-     * @param request The topup request DTO.
-     * @return A Uni that completes when the operation is finished.
+     * @param request        The topup request DTO.
+     * @param idempotencyKey The Idempotency-Key header value, or null.
+     * @return A Uni resolving to the rechargeId once the operation is finished.
+     */
+    Uni<TopupResponse> registerTopup(TopupRequest request, String idempotencyKey);
+
+    /**
+     * Looks up a previously used idempotency key, from memory when possible.
+     * Lets callers answer a retry before charging it against admission control.
+     *
+     * @param idempotencyKey The Idempotency-Key header value.
+     * @return A Uni resolving to the replayed response, or null if the key is unused.
+     */
+    Uni<TopupResponse> findReplay(String idempotencyKey);
+
+    /**
+     * Validates and stores a batch of topup requests.
+     * Valid items are written in chunks; invalid items are reported without
+     * aborting the rest of the batch.
+     *
+     * @param requests The topup request DTOs. Null entries are reported as rejected.
+     * @return A Uni resolving to one result per item, in submission order.
+     */
+    Uni<BatchTopupResponse> registerBatch(List<TopupRequest> requests);
+
+    /**
+     * Looks up the current status of a recharge, from memory when possible.
+     *
+     * @param rechargeId The recharge ID.
+     * @return A Uni resolving to the status, or null if the recharge does not exist.
+     */
+    Uni<TopupStatusResponse> findStatus(String rechargeId);
+
+    /**
+     * Waits until the consumer reports the final status of a recharge.
+     *
+     * @param rechargeId The recharge ID.
+     * @return A Uni resolving to the final status, or null if it did not arrive in time.
      */
-    Uni<Void> registerTopup(TopupRequest request);
+    Uni<TopupStatusResponse> awaitFinalStatus(String rechargeId);
 }
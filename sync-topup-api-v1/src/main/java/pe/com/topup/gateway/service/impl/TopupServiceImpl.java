@@ -1,15 +1,38 @@
 package pe.com.topup.gateway.service.impl;
 
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import pe.com.topup.gateway.config.BatchConfig;
+import pe.com.topup.gateway.cache.BoundedTtlCache;
+import pe.com.topup.gateway.config.GroupCommitConfig;
+import pe.com.topup.gateway.config.IdempotencyConfig;
+import pe.com.topup.gateway.config.StatusConfig;
+import pe.com.topup.gateway.dto.BatchItemResult;
+import pe.com.topup.gateway.dto.BatchTopupResponse;
 import pe.com.topup.gateway.dto.TopupRequest;
+import pe.com.topup.gateway.dto.TopupResponse;
+import pe.com.topup.gateway.dto.TopupStatusResponse;
 import pe.com.topup.gateway.infrastructure.adapter.out.persistence.entity.TopupRequestEntity;
 import pe.com.topup.gateway.mapper.TopupMapper;
+import pe.com.topup.gateway.notification.DispatchWakeupPublisher;
+import pe.com.topup.gateway.notification.TopupStatusHub;
+import pe.com.topup.gateway.ratelimit.TopupAdmissionController;
+import pe.com.topup.gateway.repository.IdempotencyKeyRepository;
 import pe.com.topup.gateway.repository.TopupRepository;
+import pe.com.topup.gateway.repository.TopupWriteCoalescer;
 import pe.com.topup.gateway.service.TopupService;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
 /**
  * Implementation of TopupService.
  * Orchestrates validation, mapping, and persistence.
@@ -22,25 +45,209 @@ public class TopupServiceImpl implements TopupService {
 
     private final TopupRepository repository;
     private final TopupMapper mapper;
+    private final Validator validator;
+    private final BatchConfig batchConfig;
+    private final TopupWriteCoalescer coalescer;
+    private final boolean groupCommit;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final BoundedTtlCache<String, UUID> idempotencyCache;
+    private final TopupStatusHub statusHub;
+    private final Duration eventsTimeout;
+    private final TopupAdmissionController admissionController;
+    private final DispatchWakeupPublisher wakeupPublisher;
 
     @Inject
-    public TopupServiceImpl(TopupRepository repository, TopupMapper mapper) {
+    public TopupServiceImpl(TopupRepository repository, TopupMapper mapper, Validator validator,
+            BatchConfig batchConfig, TopupWriteCoalescer coalescer, GroupCommitConfig groupCommitConfig,
+            IdempotencyKeyRepository idempotencyKeyRepository, IdempotencyConfig idempotencyConfig,
+            TopupStatusHub statusHub, StatusConfig statusConfig, TopupAdmissionController admissionController,
+            DispatchWakeupPublisher wakeupPublisher) {
         this.repository = repository;
         this.mapper = mapper;
+        this.validator = validator;
+        this.batchConfig = batchConfig;
+        this.coalescer = coalescer;
+        this.groupCommit = groupCommitConfig.enabled();
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyCache = new BoundedTtlCache<>(idempotencyConfig.cacheMaxSize(),
+                idempotencyConfig.cacheTtl());
+        this.statusHub = statusHub;
+        this.eventsTimeout = statusConfig.eventsTimeout();
+        this.admissionController = admissionController;
+        this.wakeupPublisher = wakeupPublisher;
     }
 
     @Override
-    @WithTransaction
-    public Uni<Void> registerTopup(TopupRequest request) {
+    public Uni<TopupResponse> registerTopup(TopupRequest request, String idempotencyKey) {
         LOG.info("Paso 1: Recibida solicitud de recarga. Datos: Mobile=" + request.getPhoneNumber() + " Amount="
                 + request.getAmount());
 
+        // The cache was already checked by findReplay; a key used since then is caught by its claim
         TopupRequestEntity entity = mapper.toEntity(request);
         LOG.info("Paso 2: Datos mapeados a entidad. Estado inicial=" + entity.status);
 
-        LOG.info("Paso 3: Iniciando persistencia en base de datos...");
-        return repository.persist(entity)
+        if (idempotencyKey == null) {
+            return store(entity).map(v -> TopupResponse.created(entity.rechargeId.toString()));
+        }
+        // Keyed requests skip group commit: the key and the row must share one transaction
+        return repository.persistWithIdempotencyKey(entity, idempotencyKey)
+                .chain(stored -> {
+                    if (!stored) {
+                        return replayFromTable(request, idempotencyKey);
+                    }
+                    LOG.info("Paso 4: Persistencia exitosa. ID generado=" + entity.rechargeId);
+                    wakeupPublisher.signal();
+                    idempotencyCache.put(idempotencyKey, entity.rechargeId);
+                    return Uni.createFrom().item(TopupResponse.created(entity.rechargeId.toString()));
+                });
+    }
+
+    @Override
+    public Uni<TopupResponse> findReplay(String idempotencyKey) {
+        UUID cachedRechargeId = idempotencyCache.get(idempotencyKey);
+        if (cachedRechargeId != null) {
+            LOG.info("Paso 1.1: Idempotency-Key repetida (cache). ID original=" + cachedRechargeId);
+            return Uni.createFrom().item(TopupResponse.replayed(cachedRechargeId.toString()));
+        }
+        return idempotencyKeyRepository.findRechargeId(idempotencyKey)
+                .map(existingRechargeId -> existingRechargeId == null
+                        ? null
+                        : replayedFromTable(idempotencyKey, existingRechargeId));
+    }
+
+    private Uni<Void> store(TopupRequestEntity entity) {
+        LOG.info("Paso 3: Iniciando persistencia en base de datos" + (groupCommit ? " (group commit)..." : "..."));
+        Uni<?> write = groupCommit
+                ? coalescer.submit(entity)
+                : Panache.withTransaction(() -> repository.persist(entity));
+        return write
                 .invoke(() -> LOG.info("Paso 4: Persistencia exitosa. ID generado=" + entity.rechargeId))
+                .invoke(wakeupPublisher::signal)
                 .replaceWithVoid();
     }
+
+    /**
+     * Answers a retry with the recharge that owns the key. The key was committed
+     * together with that recharge, so the ID always refers to a stored row.
+     */
+    private Uni<TopupResponse> replayFromTable(TopupRequest request, String idempotencyKey) {
+        return idempotencyKeyRepository.findRechargeId(idempotencyKey)
+                .chain(existingRechargeId -> {
+                    if (existingRechargeId == null) {
+                        // Purged between the claim and the lookup: the key is free again
+                        return registerTopup(request, idempotencyKey);
+                    }
+                    return Uni.createFrom().item(replayedFromTable(idempotencyKey, existingRechargeId));
+                });
+    }
+
+    private TopupResponse replayedFromTable(String idempotencyKey, UUID rechargeId) {
+        LOG.info("Paso 1.2: Idempotency-Key repetida (tabla). ID original=" + rechargeId);
+        idempotencyCache.put(idempotencyKey, rechargeId);
+        return TopupResponse.replayed(rechargeId.toString());
+    }
+
+    @Override
+    public Uni<BatchTopupResponse> registerBatch(List<TopupRequest> requests) {
+        LOG.info("Paso 1: Recibido lote de " + requests.size() + " solicitudes de recarga.");
+
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        List<TopupRequestEntity> entities = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TopupRequest request = requests.get(i);
+            List<String> errors = validate(request);
+            if (!errors.isEmpty()) {
+                results[i] = BatchItemResult.rejected(i, errors);
+                continue;
+            }
+            long waitNanos = admissionController.tryAdmit(request);
+            if (waitNanos > 0) {
+                results[i] = BatchItemResult.rejected(i, List.of("RATE_LIMITED: retry after "
+                        + TopupAdmissionController.retryAfterSeconds(waitNanos) + "s"));
+                continue;
+            }
+            indexes.add(i);
+            entities.add(mapper.toEntity(request));
+        }
+        LOG.info("Paso 2: Lote validado. Validos=" + entities.size() + " Rechazados="
+                + (requests.size() - entities.size()));
+
+        int chunkSize = batchConfig.chunkSize();
+        int chunks = (entities.size() + chunkSize - 1) / chunkSize;
+        LOG.info("Paso 3: Iniciando persistencia en " + chunks + " bloques de hasta " + chunkSize + " filas...");
+        return Multi.createFrom().range(0, chunks)
+                .onItem().transformToUniAndConcatenate(chunk -> {
+                    int from = chunk * chunkSize;
+                    int to = Math.min(from + chunkSize, entities.size());
+                    return repository.persistBatch(entities.subList(from, to))
+                            .invoke(wakeupPublisher::signal)
+                            .invoke(() -> {
+                                for (int k = from; k < to; k++) {
+                                    int index = indexes.get(k);
+                                    results[index] = BatchItemResult.accepted(index,
+                                            entities.get(k).rechargeId.toString());
+                                }
+                            })
+                            .onFailure().recoverWithItem(t -> {
+                                LOG.severe("Error persistiendo bloque " + chunk + ": " + t.getMessage());
+                                for (int k = from; k < to; k++) {
+                                    int index = indexes.get(k);
+                                    results[index] = BatchItemResult.rejected(index,
+                                            List.of("PERSISTENCE_ERROR: Item could not be stored"));
+                                }
+                                return null;
+                            });
+                })
+                .collect().asList()
+                .map(done -> {
+                    BatchTopupResponse response = new BatchTopupResponse(Arrays.asList(results));
+                    LOG.info("Paso 4: Lote procesado. Aceptados=" + response.getAccepted() + " Rechazados="
+                            + response.getRejected());
+                    return response;
+                });
+    }
+
+    @Override
+    public Uni<TopupStatusResponse> findStatus(String requestedId) {
+        UUID id;
+        try {
+            id = UUID.fromString(requestedId);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().nullItem();
+        }
+        // Canonical form, so cache keys match the consumer's notifications
+        String rechargeId = id.toString();
+        String cachedStatus = statusHub.cachedStatus(rechargeId);
+        if (cachedStatus != null) {
+            return Uni.createFrom().item(new TopupStatusResponse(rechargeId, cachedStatus));
+        }
+        return Panache.withSession(() -> repository.findById(id))
+                .map(entity -> {
+                    if (entity == null) {
+                        return null;
+                    }
+                    statusHub.update(rechargeId, entity.status);
+                    return new TopupStatusResponse(rechargeId, entity.status);
+                });
+    }
+
+    @Override
+    public Uni<TopupStatusResponse> awaitFinalStatus(String requestedId) {
+        String rechargeId = UUID.fromString(requestedId).toString();
+        return statusHub.awaitTerminal(rechargeId)
+                .map(status -> new TopupStatusResponse(rechargeId, status))
+                .ifNoItem().after(eventsTimeout).recoverWithUni(() -> Uni.createFrom().nullItem());
+    }
+
+    private List<String> validate(TopupRequest request) {
+        if (request == null) {
+            return List.of("item: Item cannot be null or malformed");
+        }
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<TopupRequest> violation : validator.validate(request)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return errors;
+    }
 }
@@ -0,0 +1,29 @@
+package pe.com.topup.gateway.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+
+/**
+ * W3C trace context helpers.
+ * The sync API stores the traceparent of the request that created a topup next
+ * to the row, so the producer can continue the same trace when it publishes the
+ * event, even though it picks the row up later from a different thread.
+ */
+public final class TraceParents {
+
+    private TraceParents() {
+    }
+
+    /**
+     * Formats the current span as a W3C traceparent header value.
+     *
+     * @return The traceparent, or null if there is no valid span (tracing disabled).
+     */
+    public static String current() {
+        SpanContext context = Span.current().getSpanContext();
+        if (!context.isValid()) {
+            return null;
+        }
+        return "00-" + context.getTraceId() + "-" + context.getSpanId() + "-" + context.getTraceFlags().asHex();
+    }
+}
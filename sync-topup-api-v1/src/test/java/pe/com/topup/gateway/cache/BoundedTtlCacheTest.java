@@ -0,0 +1,64 @@
+package pe.com.topup.gateway.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class BoundedTtlCacheTest {
+
+    private static final Duration LONG_TTL = Duration.ofHours(1);
+
+    @Test
+    void returnsStoredValuesAndNullForMissingKeys() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, LONG_TTL);
+        cache.put("a", 1);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void evictsTheOldestEntryBeyondMaxSize() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(2, LONG_TTL);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void keepsTheLatestValueWhenASupersededEntryIsEvicted() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(2, LONG_TTL);
+        cache.put("a", 1);
+        cache.put("a", 2);
+        cache.put("b", 3);
+
+        assertEquals(2, cache.get("a"));
+        assertEquals(3, cache.get("b"));
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, Duration.ofNanos(1));
+        cache.put("a", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateRemovesTheEntry() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, LONG_TTL);
+        cache.put("a", 1);
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+    }
+}
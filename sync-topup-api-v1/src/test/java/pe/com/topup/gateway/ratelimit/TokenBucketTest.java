@@ -0,0 +1,65 @@
+package pe.com.topup.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long INTERVAL = 1_000;
+    private static final long START = 1_000_000;
+
+    @Test
+    void admitsTheBurstThenReportsTheWaitForTheNextToken() {
+        TokenBucket bucket = new TokenBucket(INTERVAL, 3, START);
+
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(INTERVAL, bucket.tryAcquire(START));
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        TokenBucket bucket = new TokenBucket(INTERVAL, 1, START);
+        assertEquals(0, bucket.tryAcquire(START));
+
+        assertEquals(INTERVAL / 2, bucket.tryAcquire(START + INTERVAL / 2));
+        assertEquals(0, bucket.tryAcquire(START + INTERVAL));
+    }
+
+    @Test
+    void doesNotChargeRejectedRequests() {
+        TokenBucket bucket = new TokenBucket(INTERVAL, 1, START);
+        bucket.tryAcquire(START);
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(START);
+        }
+
+        assertEquals(0, bucket.tryAcquire(START + INTERVAL));
+    }
+
+    @Test
+    void releaseGivesTheTokenBack() {
+        TokenBucket bucket = new TokenBucket(INTERVAL, 1, START);
+        bucket.tryAcquire(START);
+
+        bucket.release();
+
+        assertEquals(0, bucket.tryAcquire(START));
+    }
+
+    @Test
+    void isIdleOnlyOnceFullyRefilled() {
+        TokenBucket bucket = new TokenBucket(INTERVAL, 2, START);
+        assertTrue(bucket.isIdle(START));
+
+        bucket.tryAcquire(START);
+        bucket.tryAcquire(START);
+
+        assertFalse(bucket.isIdle(START + INTERVAL));
+        assertTrue(bucket.isIdle(START + 2 * INTERVAL));
+    }
+}
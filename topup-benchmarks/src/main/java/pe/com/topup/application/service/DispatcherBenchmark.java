@@ -0,0 +1,269 @@
+package pe.com.topup.application.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pe.com.topup.application.config.DispatchMode;
+import pe.com.topup.application.config.DispatcherConfig;
+import pe.com.topup.application.config.EventVersion;
+import pe.com.topup.application.config.PartitionKeyStrategy;
+import pe.com.topup.domain.entity.TopupRequestEntity;
+import pe.com.topup.domain.repository.TopupRequestRepository;
+
+/**
+ * async-topup-producer-v1: one dispatcher page, from claim to markSent, with an
+ * in-memory repository and an emitter whose broker acks take a fixed time.
+ * <p>
+ * Score is per event. With {@code maxInFlight=1} it is roughly the ack latency
+ * (one send at a time); with a window it drops towards the CPU cost of building
+ * and sending each message, which is what the dispatcher spends per row once
+ * the broker is not the bottleneck.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    private static final int PAGE_SIZE = 256;
+
+    @Param({ "1", "16", "64" })
+    public int maxInFlight;
+
+    /**
+     * Simulated broker round trip (acks=all on a local cluster).
+     */
+    @Param({ "200" })
+    public long ackLatencyMicros;
+
+    @Param({ "V1", "V2" })
+    public EventVersion eventVersion;
+
+    private DispatcherService dispatcher;
+
+    @Setup
+    public void setup() {
+        // Cada página registra sus IDs a nivel INFO; el benchmark mide el despacho, no el logging
+        Logger.getLogger(DispatcherService.class.getName()).setLevel(Level.WARNING);
+
+        dispatcher = new DispatcherService();
+        dispatcher.repository = new InMemoryTopupRequestRepository(page());
+        dispatcher.config = config(maxInFlight, eventVersion);
+        Duration ackLatency = Duration.ofNanos(ackLatencyMicros * 1_000);
+        dispatcher.emitter = new DelayedAckEmitter<>(ackLatency);
+        dispatcher.emitterV2 = new DelayedAckEmitter<>(ackLatency);
+        dispatcher.registry = new SimpleMeterRegistry();
+        dispatcher.init();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public Integer dispatchPage() {
+        return dispatcher.processPendingRequests().await().indefinitely();
+    }
+
+    private static List<TopupRequestEntity> page() {
+        String[] carriers = { "MOVISTAR", "CLARO", "ENTEL" };
+        List<TopupRequestEntity> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            TopupRequestEntity entity = new TopupRequestEntity();
+            entity.rechargeId = UUID.randomUUID();
+            entity.phoneNumber = "9" + String.format("%08d", i);
+            entity.amount = BigDecimal.valueOf(500 + i * 25L, 2);
+            entity.carrier = carriers[i % carriers.length];
+            entity.status = TopupRequestRepository.STATUS_DISPATCHING;
+            entity.queuedMicros = 1_000;
+            page.add(entity);
+        }
+        return page;
+    }
+
+    private static DispatcherConfig config(int maxInFlight, EventVersion eventVersion) {
+        return new DispatcherConfig() {
+            @Override
+            public DispatchMode mode() {
+                return DispatchMode.POLLING;
+            }
+
+            @Override
+            public int pageSize() {
+                return PAGE_SIZE;
+            }
+
+            @Override
+            public int maxInFlight() {
+                return maxInFlight;
+            }
+
+            @Override
+            public Duration leaseDuration() {
+                return Duration.ofSeconds(60);
+            }
+
+            @Override
+            public PartitionKeyStrategy partitionKey() {
+                return PartitionKeyStrategy.CARRIER;
+            }
+
+            @Override
+            public EventVersion eventVersion() {
+                return eventVersion;
+            }
+
+            @Override
+            public Duration initialDelay() {
+                return Duration.ofSeconds(5);
+            }
+
+            @Override
+            public Duration minInterval() {
+                return Duration.ofMillis(100);
+            }
+
+            @Override
+            public Duration maxInterval() {
+                return Duration.ofSeconds(10);
+            }
+
+            @Override
+            public Duration backlogRefreshInterval() {
+                return Duration.ofSeconds(5);
+            }
+
+            @Override
+            public Duration reaperInterval() {
+                return Duration.ofSeconds(30);
+            }
+
+            @Override
+            public Binlog binlog() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Always claims the same full page; every sent row is reported as updated.
+     */
+    static final class InMemoryTopupRequestRepository extends TopupRequestRepository {
+
+        private final List<TopupRequestEntity> page;
+
+        InMemoryTopupRequestRepository(List<TopupRequestEntity> page) {
+            super(null);
+            this.page = page;
+        }
+
+        @Override
+        public Uni<List<TopupRequestEntity>> claimPending(String claimToken, int limit, Duration lease) {
+            return Uni.createFrom().item(page);
+        }
+
+        @Override
+        public Uni<Integer> markSent(List<UUID> rechargeIds, String claimToken) {
+            return Uni.createFrom().item(rechargeIds.size());
+        }
+
+        @Override
+        public Uni<Integer> releaseClaim(String claimToken) {
+            return Uni.createFrom().item(0);
+        }
+    }
+
+    /**
+     * Acknowledges every message after a fixed delay, on Mutiny's default
+     * scheduler, the way the Kafka connector completes sends from the producer's
+     * I/O thread.
+     */
+    static final class DelayedAckEmitter<T> implements MutinyEmitter<T> {
+
+        private final Duration ackLatency;
+
+        DelayedAckEmitter(Duration ackLatency) {
+            this.ackLatency = ackLatency;
+        }
+
+        @Override
+        public <M extends Message<? extends T>> Uni<Void> sendMessage(M msg) {
+            return Uni.createFrom().voidItem().onItem().delayIt().by(ackLatency);
+        }
+
+        @Override
+        public Uni<Void> send(T payload) {
+            return sendMessage(Message.of(payload));
+        }
+
+        @Override
+        public void sendAndAwait(T payload) {
+            send(payload).await().indefinitely();
+        }
+
+        @Override
+        public Cancellable sendAndForget(T payload) {
+            return send(payload).subscribe().with(ignored -> {
+            });
+        }
+
+        @Override
+        public <M extends Message<? extends T>> void send(M msg) {
+            sendMessage(msg).subscribe().with(ignored -> {
+            });
+        }
+
+        @Override
+        public <M extends Message<? extends T>> void sendMessageAndAwait(M msg) {
+            sendMessage(msg).await().indefinitely();
+        }
+
+        @Override
+        public <M extends Message<? extends T>> Cancellable sendMessageAndForget(M msg) {
+            return sendMessage(msg).subscribe().with(ignored -> {
+            });
+        }
+
+        @Override
+        public void complete() {
+        }
+
+        @Override
+        public void error(Exception e) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean hasRequests() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package pe.com.topup.gateway.mapper;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pe.com.topup.gateway.dto.TopupRequest;
+import pe.com.topup.gateway.infrastructure.adapter.out.persistence.entity.TopupRequestEntity;
+import pe.com.topup.gateway.model.Carrier;
+
+/**
+ * sync-topup-api-v1: DTO to entity mapping and recharge ID generation.
+ * <p>
+ * {@code randomUuid} is the baseline the UUIDv7 generator replaced; the
+ * 4-thread variants show the cost of the generator's shared CAS sequence.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private RechargeIdGenerator generator;
+    private TopupMapper mapper;
+    private TopupRequest request;
+    private UUID id;
+
+    @Setup
+    public void setup() {
+        generator = new RechargeIdGenerator();
+        mapper = new TopupMapper(generator);
+        request = new TopupRequest();
+        request.setPhoneNumber("987654321");
+        request.setAmount(new BigDecimal("50.00"));
+        request.setCarrier(Carrier.MOVISTAR);
+        id = generator.next();
+    }
+
+    @Benchmark
+    public TopupRequestEntity toEntity() {
+        return mapper.toEntity(request);
+    }
+
+    @Benchmark
+    public UUID nextId() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID nextIdContended() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID randomUuidContended() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public byte[] idToBytes() {
+        return RechargeIdGenerator.toBytes(id);
+    }
+}
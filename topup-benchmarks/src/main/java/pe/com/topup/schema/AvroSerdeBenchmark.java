@@ -0,0 +1,137 @@
+package pe.com.topup.schema;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pe.com.topup.application.config.EventVersion;
+import pe.com.topup.domain.entity.TopupRequestEntity;
+import pe.com.topup.worker.TopupCommand;
+
+/**
+ * TopUpEvent on the wire: the dispatcher's event builder, the Avro serdes and
+ * the consumer's parsing into a {@link TopupCommand}, per schema version.
+ * <p>
+ * {@code pinned=false} goes through the Confluent serdes against the in-memory
+ * {@code mock://} registry (IDs cached after the first record), so the
+ * difference to {@code pinned=true} is the serde overhead alone, without
+ * network.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvroSerdeBenchmark {
+
+    private static final String TOPIC = "topup-topic";
+
+    @Param({ "V1", "V2" })
+    public EventVersion version;
+
+    @Param({ "true", "false" })
+    public boolean pinned;
+
+    private PinnedAvroSerializer serializer;
+    private PinnedAvroDeserializer deserializer;
+    private TopupRequestEntity entity;
+    private long createdAt;
+    private SpecificRecord event;
+    private Headers headers;
+    private byte[] encoded;
+    private SpecificRecord decoded;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("schema.registry.url", "mock://topup-benchmarks");
+        configs.put("specific.avro.reader", true);
+        configs.put("auto.register.schemas", true);
+        if (version == EventVersion.V2) {
+            configs.put("value.subject.name.strategy", "io.confluent.kafka.serializers.subject.RecordNameStrategy");
+        }
+        if (pinned) {
+            configs.put(PinnedSchemas.CONFIG, "pe.com.topup.model.TopUpEvent=1001,pe.com.topup.model.TopUpEventV2=1002");
+        }
+        serializer = new PinnedAvroSerializer();
+        serializer.configure(configs, false);
+        deserializer = new PinnedAvroDeserializer();
+        deserializer.configure(configs, false);
+
+        entity = new TopupRequestEntity();
+        entity.rechargeId = UUID.fromString("0190a4c2-7d3e-7a01-8b2c-3d4e5f607182");
+        entity.phoneNumber = "987654321";
+        entity.amount = new BigDecimal("50.00");
+        entity.carrier = "MOVISTAR";
+        createdAt = System.currentTimeMillis();
+        headers = new RecordHeaders();
+        headers.add(TopupCommand.CREATED_AT_HEADER, Long.toString(createdAt).getBytes(StandardCharsets.UTF_8));
+
+        event = version.toEvent(entity, createdAt);
+        encoded = serializer.serialize(TOPIC, headers, event);
+        decoded = (SpecificRecord) deserializer.deserialize(TOPIC, headers, encoded);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    /**
+     * What the dispatcher does per row before sending.
+     */
+    @Benchmark
+    public SpecificRecord build() {
+        return version.toEvent(entity, createdAt);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, headers, event);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize(TOPIC, headers, encoded);
+    }
+
+    /**
+     * What every consumer mode does with a decoded record.
+     */
+    @Benchmark
+    public TopupCommand toCommand() {
+        return TopupCommand.from(entity.carrier, decoded, headers);
+    }
+
+    /**
+     * Dispatcher row to consumer command, as one event crosses the system.
+     */
+    @Benchmark
+    public TopupCommand roundTrip() {
+        byte[] bytes = serializer.serialize(TOPIC, headers, version.toEvent(entity, createdAt));
+        return TopupCommand.from(entity.carrier, (SpecificRecord) deserializer.deserialize(TOPIC, headers, bytes),
+                headers);
+    }
+}
@@ -0,0 +1,215 @@
+package pe.com.topup.worker;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.smallrye.mutiny.Uni;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pe.com.topup.config.DedupeConfig;
+import pe.com.topup.config.WalletConfig;
+import pe.com.topup.dedupe.ProcessedEventFilter;
+import pe.com.topup.repository.BalanceWalletRepository;
+import pe.com.topup.repository.BalanceWalletStripeRepository;
+import pe.com.topup.repository.RechargeRequestRepository;
+
+/**
+ * async-topup-consumer-v1: the per-event decisions {@link TopupProcessor} takes
+ * before and around its transaction, with in-memory repositories standing in
+ * for MySQL.
+ * <p>
+ * The transaction itself needs the Quarkus runtime (Panache.withTransaction),
+ * so it is not covered here; what is measured is the CPU the processor adds on
+ * top of the database: the duplicate filter, the debit routing across stripes
+ * (including the fallbacks when the preferred stripe runs dry) and the Mutiny
+ * chain built around it.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessorDecisionBenchmark {
+
+    private static final int OPERATOR_ID = 1;
+    private static final int IDS = 4_096;
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    /**
+     * 1 = single balance_wallets row, N = striped wallet.
+     */
+    @Param({ "1", "8" })
+    public int stripes;
+
+    /**
+     * Whether the preferred stripe can cover the debit, or the processor has to
+     * fall back to the richest stripe and then the unallocated balance.
+     */
+    @Param({ "true", "false" })
+    public boolean stripeFunded;
+
+    private TopupProcessor processor;
+    private InMemoryWallets wallets;
+    private ProcessedEventFilter filter;
+    private UUID[] ids;
+    private int next;
+
+    @Setup
+    public void setup() {
+        wallets = new InMemoryWallets(stripes);
+        processor = new TopupProcessor();
+        processor.walletConfig = walletConfig(stripes);
+        processor.balanceWalletRepository = wallets.base;
+        processor.balanceWalletStripeRepository = wallets.striped;
+
+        filter = new ProcessedEventFilter(dedupeConfig(), new RechargeRequestRepository());
+        ids = new UUID[IDS];
+        for (int i = 0; i < IDS; i++) {
+            ids[i] = UUID.randomUUID();
+            // La mitad ya procesada: el filtro responde PROCESSED sin consultar
+            if (i % 2 == 0) {
+                filter.markProcessed(ids[i]);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void refill() {
+        wallets.fund(stripeFunded);
+    }
+
+    @Benchmark
+    public Boolean debit() {
+        return processor.debit(OPERATOR_ID, nextId(), AMOUNT).await().indefinitely();
+    }
+
+    @Benchmark
+    public ProcessedEventFilter.Verdict checkDuplicate() {
+        return filter.check(nextId());
+    }
+
+    @Benchmark
+    public void markProcessed() {
+        filter.markProcessed(UUID.randomUUID());
+    }
+
+    private UUID nextId() {
+        UUID id = ids[next];
+        next = (next + 1) & (IDS - 1);
+        return id;
+    }
+
+    private static WalletConfig walletConfig(int stripes) {
+        return new WalletConfig() {
+            @Override
+            public int stripes() {
+                return stripes;
+            }
+
+            @Override
+            public Duration rebalanceInterval() {
+                return Duration.ofSeconds(5);
+            }
+        };
+    }
+
+    private static DedupeConfig dedupeConfig() {
+        return new DedupeConfig() {
+            @Override
+            public int recentCapacity() {
+                return 100_000;
+            }
+
+            @Override
+            public int expectedIds() {
+                return 1_000_000;
+            }
+
+            @Override
+            public double falsePositiveRate() {
+                return 0.01;
+            }
+
+            @Override
+            public Duration seedWindow() {
+                return Duration.ofMinutes(15);
+            }
+        };
+    }
+
+    /**
+     * Balances of one carrier, kept in cents. The conditional UPDATEs become a
+     * compare against the in-memory balance, same outcome as the row count.
+     */
+    static final class InMemoryWallets {
+
+        // Suficiente para que ninguna iteración agote el saldo sin reponerlo
+        private static final long FLOAT_CENTS = Long.MAX_VALUE / 4;
+
+        final long[] stripeCents;
+        long unallocatedCents;
+
+        final BalanceWalletRepository base = new BalanceWalletRepository() {
+            @Override
+            public Uni<Boolean> debitIfSufficient(Integer operatorId, BigDecimal amount) {
+                long cents = amount.movePointRight(2).longValueExact();
+                if (unallocatedCents < cents) {
+                    return Uni.createFrom().item(false);
+                }
+                unallocatedCents -= cents;
+                return Uni.createFrom().item(true);
+            }
+        };
+
+        final BalanceWalletStripeRepository striped = new BalanceWalletStripeRepository() {
+            @Override
+            public Uni<Boolean> debitIfSufficient(Integer operatorId, int stripeNo, BigDecimal amount) {
+                return Uni.createFrom().item(debitStripe(stripeNo, amount.movePointRight(2).longValueExact()));
+            }
+
+            @Override
+            public Uni<Boolean> debitRichestIfSufficient(Integer operatorId, BigDecimal amount) {
+                int richest = 0;
+                for (int i = 1; i < stripeCents.length; i++) {
+                    if (stripeCents[i] > stripeCents[richest]) {
+                        richest = i;
+                    }
+                }
+                return Uni.createFrom().item(debitStripe(richest, amount.movePointRight(2).longValueExact()));
+            }
+        };
+
+        InMemoryWallets(int stripes) {
+            this.stripeCents = new long[stripes];
+        }
+
+        void fund(boolean stripesFunded) {
+            Arrays.fill(stripeCents, stripesFunded ? FLOAT_CENTS : 0);
+            unallocatedCents = FLOAT_CENTS;
+        }
+
+        private boolean debitStripe(int stripeNo, long cents) {
+            if (stripeCents[stripeNo] < cents) {
+                return false;
+            }
+            stripeCents[stripeNo] -= cents;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pe.com.topup.schema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+
+/**
+ * {@link KafkaAvroDeserializer} that reads records of a pinned schema locally.
+ * <p>
+ * Readers for every ID in {@value PinnedSchemas#CONFIG} are built in
+ * {@link #configure(Map, boolean)} from the schemas compiled into this module, so
+ * the first record of a pinned schema is decoded without a registry round-trip.
+ * Any other ID goes to the wrapped deserializer, configured with the same
+ * properties, which fetches and caches it as usual.
+ * </p>
+ */
+public class PinnedAvroDeserializer implements Deserializer<Object> {
+
+    private static final String SPECIFIC_AVRO_READER = "specific.avro.reader";
+    private static final int HEADER_SIZE = 5;
+
+    private final Deserializer<Object> delegate = new KafkaAvroDeserializer();
+    private Map<Integer, DatumReader<Object>> readers = Map.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+        boolean specific = Boolean.parseBoolean(String.valueOf(configs.get(SPECIFIC_AVRO_READER)));
+        Map<Integer, DatumReader<Object>> pinned = new HashMap<>();
+        PinnedSchemas.parse(configs.get(PinnedSchemas.CONFIG)).all().forEach((id, schema) -> pinned.put(id,
+                specific ? new SpecificDatumReader<>(schema, schema, SpecificData.getForSchema(schema))
+                        : new GenericDatumReader<>(schema)));
+        readers = pinned;
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data != null && data.length >= HEADER_SIZE && data[0] == PinnedAvroSerializer.MAGIC_BYTE) {
+            int id = ByteBuffer.wrap(data, 1, 4).getInt();
+            DatumReader<Object> reader = readers.get(id);
+            if (reader != null) {
+                try {
+                    return reader.read(null, DecoderFactory.get()
+                            .binaryDecoder(data, HEADER_SIZE, data.length - HEADER_SIZE, null));
+                } catch (IOException | RuntimeException e) {
+                    throw new SerializationException("Error deserializing Avro record with pinned schema ID " + id,
+                            e);
+                }
+            }
+        }
+        return headers != null ? delegate.deserialize(topic, headers, data) : delegate.deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,86 @@
+package pe.com.topup.schema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+
+/**
+ * {@link KafkaAvroSerializer} that writes records of a pinned schema locally.
+ * <p>
+ * Records whose schema has an ID in {@value PinnedSchemas#CONFIG} are encoded
+ * in the registry wire format (magic byte, 4-byte ID, Avro binary) without
+ * asking the registry for the ID. Everything else goes to the wrapped
+ * serializer, configured with the same properties, so unpinned schemas keep
+ * the usual lookup/auto-registration behaviour.
+ * </p>
+ */
+public class PinnedAvroSerializer implements Serializer<Object> {
+
+    static final byte MAGIC_BYTE = 0x0;
+
+    private final Serializer<Object> delegate = new KafkaAvroSerializer();
+    private final Map<Class<?>, DatumWriter<Object>> writers = new ConcurrentHashMap<>();
+    private PinnedSchemas pins = PinnedSchemas.parse(null);
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+        pins = PinnedSchemas.parse(configs.get(PinnedSchemas.CONFIG));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, new RecordHeaders(), data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data instanceof SpecificRecord record) {
+            Integer id = pins.id(record.getSchema().getFullName());
+            if (id != null) {
+                return encode(id, record);
+            }
+        }
+        return delegate.serialize(topic, headers, data);
+    }
+
+    private byte[] encode(int id, SpecificRecord record) {
+        Schema schema = record.getSchema();
+        DatumWriter<Object> writer = writers.computeIfAbsent(record.getClass(),
+                type -> new SpecificDatumWriter<>(schema, SpecificData.getForSchema(schema)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC_BYTE);
+        out.write(id >>> 24);
+        out.write(id >>> 16);
+        out.write(id >>> 8);
+        out.write(id);
+        try {
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+            writer.write(record, encoder);
+            encoder.flush();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Error serializing Avro record with pinned schema ID " + id, e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
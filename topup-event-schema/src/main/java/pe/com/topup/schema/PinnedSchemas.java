@@ -0,0 +1,101 @@
+package pe.com.topup.schema;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.config.ConfigException;
+
+import pe.com.topup.model.TopUpEvent;
+import pe.com.topup.model.TopUpEventV2;
+
+/**
+ * Registry IDs pinned to the schemas compiled into this module.
+ * <p>
+ * The generated classes already carry their schema, so once the ID the registry
+ * assigned to it is known (GET /subjects/{subject}/versions/latest), records of
+ * that schema can be written and read with no registry lookup at all. The pins
+ * come from the serde property {@value #CONFIG}, e.g.
+ * {@code pe.com.topup.model.TopUpEvent=1,pe.com.topup.model.TopUpEventV2=3}.
+ * An ID pinned to the wrong schema corrupts every record it touches, so only
+ * pin IDs read from the registry the topics are registered in.
+ * </p>
+ */
+public final class PinnedSchemas {
+
+    /**
+     * Serde property with the comma-separated {@code <record full name>=<id>} pins.
+     */
+    public static final String CONFIG = "pinned.schema.ids";
+
+    private static final List<Schema> KNOWN = List.of(TopUpEvent.getClassSchema(), TopUpEventV2.getClassSchema());
+
+    private final Map<Integer, Schema> schemasById;
+    private final Map<String, Integer> idsByName;
+
+    private PinnedSchemas(Map<Integer, Schema> schemasById, Map<String, Integer> idsByName) {
+        this.schemasById = schemasById;
+        this.idsByName = idsByName;
+    }
+
+    /**
+     * Parses the {@value #CONFIG} property.
+     *
+     * @param value The property value (null or blank pins nothing).
+     * @return The pins.
+     * @throws ConfigException If an entry is malformed, names a schema this module
+     *                         does not compile, or reuses an ID.
+     */
+    public static PinnedSchemas parse(Object value) {
+        Map<Integer, Schema> schemasById = new HashMap<>();
+        Map<String, Integer> idsByName = new HashMap<>();
+        String pins = value != null ? value.toString().trim() : "";
+        if (pins.isEmpty()) {
+            return new PinnedSchemas(schemasById, idsByName);
+        }
+        for (String entry : pins.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new ConfigException(CONFIG, pins, "Expected <record full name>=<id>, got: " + entry);
+            }
+            String name = entry.substring(0, separator).trim();
+            Schema schema = KNOWN.stream().filter(s -> s.getFullName().equals(name)).findFirst()
+                    .orElseThrow(() -> new ConfigException(CONFIG, pins, "Unknown schema: " + name));
+            int id;
+            try {
+                id = Integer.parseInt(entry.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new ConfigException(CONFIG, pins, "Invalid schema ID for " + name);
+            }
+            if (schemasById.putIfAbsent(id, schema) != null) {
+                throw new ConfigException(CONFIG, pins, "Schema ID " + id + " pinned twice");
+            }
+            idsByName.put(name, id);
+        }
+        return new PinnedSchemas(schemasById, idsByName);
+    }
+
+    /**
+     * @param id A schema ID read from a record.
+     * @return The pinned schema, or null if the ID is not pinned.
+     */
+    public Schema schema(int id) {
+        return schemasById.get(id);
+    }
+
+    /**
+     * @param fullName The full name of a record schema.
+     * @return Its pinned ID, or null if it is not pinned.
+     */
+    public Integer id(String fullName) {
+        return idsByName.get(fullName);
+    }
+
+    /**
+     * @return The pinned IDs and their schemas.
+     */
+    public Map<Integer, Schema> all() {
+        return Map.copyOf(schemasById);
+    }
+}